@@ -1,10 +1,13 @@
 package net.skycade.space.constants;
 
+import net.skycade.space.space.SpaceShipSpaceConstants;
+
 /**
  * Represents constants used for physics and rendering.
  * <p>
- * The "RENDER_DELAY_MILLIS" and "PHYSICS_DELAY_MILLIS" constants MUST be the same, this is because
- * the physics engine and rendering engine are synchronized.
+ * Physics run in fixed steps of "PHYSICS_DELAY_MILLIS" (see
+ * {@link net.skycade.space.model.sector.SectorClock}), and the renderer interpolates between the
+ * last two physics states, so "RENDER_DELAY_MILLIS" doesn't have to match it.
  *
  * @author Jacob Cohen
  */
@@ -19,4 +22,248 @@ public class PhysicsAndRenderingConstants {
    * The delay between each physics tick, in milliseconds.
    */
   public static final Long PHYSICS_DELAY_MILLIS = 50L;
+
+  /**
+   * The most physics steps a sector runs at once to catch up after a late tick. Anything beyond
+   * that is dropped rather than letting a slow server spiral.
+   */
+  public static final int MAX_PHYSICS_SUBSTEPS = 5;
+
+  /**
+   * How far (in meters) the ship may drift away from its sector's floating origin before the
+   * origin is shifted onto the ship. Keeps double precision centered on what's being rendered.
+   */
+  public static final double FLOATING_ORIGIN_SHIFT_DISTANCE = 1_000_000_000d;
+
+  /**
+   * The number of bodies a sector needs before its physics step is split across the physics
+   * worker threads. Below this, the overhead of forking isn't worth it.
+   */
+  public static final int PARALLEL_PHYSICS_THRESHOLD = 4096;
+
+  /**
+   * The smallest number of bodies a single physics worker task is given.
+   */
+  public static final int PARALLEL_PHYSICS_CHUNK_SIZE = 1024;
+
+  /**
+   * The number of worker threads used for parallel physics steps.
+   */
+  public static final int PHYSICS_WORKER_THREADS =
+      Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+  /**
+   * The gravitational constant, in m^3 kg^-1 s^-2.
+   */
+  public static final double GRAVITATIONAL_CONSTANT = 6.674e-11;
+
+  /**
+   * The default Barnes-Hut opening angle. Smaller is more accurate and slower; 0 degenerates to
+   * the exact pairwise sum.
+   */
+  public static final double GRAVITY_OPENING_ANGLE = 0.7;
+
+  /**
+   * Softening length for gravity, in meters. Keeps close encounters from producing huge
+   * accelerations.
+   */
+  public static final double GRAVITY_SOFTENING_METERS = 1000;
+
+  /**
+   * The most bodies with a mass a sector can have for its gravity to be summed pair by pair
+   * instead of with Barnes-Hut, which only pays off for more bodies than this (see
+   * {@code GravitySolverBenchmark} in the tests). Start the server with
+   * {@code -Dskycade.space.gravity.directMaxBodies=<bodies>} to change it.
+   */
+  public static final int GRAVITY_DIRECT_MAX_BODIES =
+      Integer.getInteger("skycade.space.gravity.directMaxBodies", 1500);
+
+  /**
+   * The number of consecutive quiet physics steps after which a body is put to sleep, and no
+   * longer integrated until something disturbs it.
+   */
+  public static final int SLEEP_AFTER_QUIET_STEPS = 20;
+
+  /**
+   * The largest velocity, acceleration, angular velocity and angular acceleration component
+   * (per physics step) a body can have while still counting as quiet.
+   */
+  public static final double SLEEP_MOTION_THRESHOLD = 1e-9;
+
+  /**
+   * The largest gravity component (m/s^2) a body can feel while still counting as quiet. Sleeping
+   * bodies that feel more than this are woken up.
+   */
+  public static final double SLEEP_GRAVITY_THRESHOLD = 1e-6;
+
+  /**
+   * How far from the ship objects are rendered, in meters (about 670 AU). Objects further away
+   * aren't even looked at, thanks to the sector's spatial index.
+   */
+  public static final double RENDER_DISTANCE_METERS = 1e14;
+
+  /**
+   * The angle between the ship's forward direction and the edge of what's rendered, in degrees.
+   * Objects outside this cone aren't drawn at all. 90 renders the half of the sky in front of the
+   * ship; 180 turns culling off. Start the server with
+   * {@code -Dskycade.space.viewConeHalfAngle=<degrees>} to change it.
+   */
+  public static final double VIEW_CONE_HALF_ANGLE_DEGREES =
+      Double.parseDouble(System.getProperty("skycade.space.viewConeHalfAngle", "90"));
+
+  /**
+   * How far past the horizon of a planet or star particles are still drawn, in terms of the
+   * cosine of the angle between a point's normal and the direction to the ship. Keeps the
+   * outline of the sphere from flickering as it turns.
+   */
+  public static final double HORIZON_LIMB_BAND = 0.02;
+
+  /**
+   * The most particles sent per frame, split between the objects in view by how big they look.
+   * Start the server with {@code -Dskycade.space.particleBudget=<particles>} to change it.
+   */
+  public static final int PARTICLE_BUDGET =
+      Integer.getInteger("skycade.space.particleBudget", 4000);
+
+  /**
+   * How finely particles are snapped before being sent, in spots per block. Particles that land
+   * on the same spot are merged into a single packet.
+   */
+  public static final int PARTICLE_MERGE_RESOLUTION = 32;
+
+  /**
+   * The most particle traffic sent to a single viewer per frame, in bytes.
+   */
+  public static final int MAX_PARTICLE_BYTES_PER_VIEWER_FRAME = 192 * 1024;
+
+  /**
+   * The least particle packets sent to a single viewer per frame, however far behind they are.
+   */
+  public static final int MIN_PARTICLE_PACKETS_PER_VIEWER_FRAME = 200;
+
+  /**
+   * Roughly how big a particle packet is on the wire, in bytes.
+   */
+  public static final int ESTIMATED_PARTICLE_PACKET_BYTES = 48;
+
+  /**
+   * How far (in milliseconds) a viewer's latency can rise above its baseline before their
+   * particle traffic is cut back.
+   */
+  public static final int VIEWER_BACKLOG_THRESHOLD_MILLIS = 150;
+
+  /**
+   * How many particle packets per frame a viewer's budget grows by each frame while they keep
+   * up.
+   */
+  public static final double VIEWER_BUDGET_INCREASE_PACKETS = 50;
+
+  /**
+   * What a viewer's particle budget is multiplied by when they fall behind.
+   */
+  public static final double VIEWER_BUDGET_DECREASE_FACTOR = 0.5;
+
+  /**
+   * How far, in blocks, an object may drift on the 'draw sphere' (or grow or shrink) before the
+   * particles it was drawn with last are drawn again rather than sent as they are. Half a step of
+   * the grid particles are snapped to (see {@link #PARTICLE_MERGE_RESOLUTION}), so reusing them is
+   * hardly ever visible.
+   */
+  public static final double PROJECTION_CACHE_TOLERANCE = 0.5 / PARTICLE_MERGE_RESOLUTION;
+
+  /**
+   * Objects that look smaller than this on the 'draw sphere' (their radius, in blocks) are drawn
+   * as a single dot, see {@link net.skycade.space.renderer.LodTier}. Start the server with
+   * {@code -Dskycade.space.lod.dotRadius=<blocks>} to change it.
+   */
+  public static final double LOD_DOT_MAX_RADIUS =
+      Double.parseDouble(System.getProperty("skycade.space.lod.dotRadius", "0.25"));
+
+  /**
+   * Objects that look smaller than this (and not small enough to be a dot) are drawn as a flat
+   * disc facing the ship. The same as {@link #LOD_DOT_MAX_RADIUS} by default, which turns the tier
+   * off; start the server with {@code -Dskycade.space.lod.impostorRadius=<blocks>} to turn it on.
+   */
+  public static final double LOD_IMPOSTOR_MAX_RADIUS = Double.parseDouble(
+      System.getProperty("skycade.space.lod.impostorRadius", String.valueOf(LOD_DOT_MAX_RADIUS)));
+
+  /**
+   * Objects that look smaller than this (and bigger than an impostor) are drawn as a sparse
+   * sphere; anything bigger is a dense sphere. Start the server with
+   * {@code -Dskycade.space.lod.sparseRadius=<blocks>} to change it.
+   */
+  public static final double LOD_SPARSE_MAX_RADIUS =
+      Double.parseDouble(System.getProperty("skycade.space.lod.sparseRadius", "2"));
+
+  /**
+   * How far past the bound of its tier an object has to be before it's drawn with another tier,
+   * as a fraction of its size. Start the server with
+   * {@code -Dskycade.space.lod.hysteresis=<fraction>} to change it.
+   */
+  public static final double LOD_HYSTERESIS =
+      Double.parseDouble(System.getProperty("skycade.space.lod.hysteresis", "0.1"));
+
+  /**
+   * The particles an impostor is drawn with, per block of radius on the 'draw sphere'. Start the
+   * server with {@code -Dskycade.space.lod.impostorDensity=<particles>} to change it.
+   */
+  public static final double LOD_IMPOSTOR_PARTICLES_PER_BLOCK =
+      Double.parseDouble(System.getProperty("skycade.space.lod.impostorDensity", "40"));
+
+  /**
+   * The particles a sparse sphere is laid out with, per block of radius on the 'draw sphere',
+   * before the far side is culled by its horizon. Start the server with
+   * {@code -Dskycade.space.lod.sparseDensity=<particles>} to change it.
+   */
+  public static final double LOD_SPARSE_PARTICLES_PER_BLOCK =
+      Double.parseDouble(System.getProperty("skycade.space.lod.sparseDensity", "100"));
+
+  /**
+   * The particles a dense sphere is laid out with, per block of radius on the 'draw sphere'. Start
+   * the server with {@code -Dskycade.space.lod.denseDensity=<particles>} to change it.
+   */
+  public static final double LOD_DENSE_PARTICLES_PER_BLOCK =
+      Double.parseDouble(System.getProperty("skycade.space.lod.denseDensity", "250"));
+
+  /**
+   * The most particles a single object is drawn with, whatever its tier. Start the server with
+   * {@code -Dskycade.space.lod.maxParticles=<particles>} to change it.
+   */
+  public static final int LOD_MAX_PARTICLES =
+      Integer.getInteger("skycade.space.lod.maxParticles", 3000);
+
+  /**
+   * How far away, in meters, background stars (see
+   * {@link net.skycade.space.model.sector.contained.SectorStaticObject#isCelestialBackground()})
+   * have to be to be baked into the renderer's skybox, rather than drawn one by one. Only stars
+   * that are drawn as a dot (see {@link #LOD_DOT_MAX_RADIUS}) from anywhere the ship goes before
+   * the next bake are baked. Start the server with
+   * {@code -Dskycade.space.skyboxDistance=<meters>} to change it.
+   */
+  public static final double SKYBOX_DISTANCE_METERS =
+      Double.parseDouble(System.getProperty("skycade.space.skyboxDistance", "1e11"));
+
+  /**
+   * How far the ship can travel before the skybox is baked again, as a fraction of the distance
+   * to the nearest star that was baked. Any further, and that star would have shifted by more
+   * than {@link #PROJECTION_CACHE_TOLERANCE} on the 'draw sphere'.
+   * <p>
+   * The nearer the nearest baked star, the more often the skybox is baked: a star just past
+   * {@link #SKYBOX_DISTANCE_METERS} makes a fast ship bake every few frames. Raising
+   * {@link #SKYBOX_DISTANCE_METERS} bakes less often, at the cost of drawing more stars one by
+   * one.
+   */
+  public static final double SKYBOX_REBAKE_DISTANCE_RATIO =
+      PROJECTION_CACHE_TOLERANCE / SpaceShipSpaceConstants.DRAW_ON_CIRCLE_RADIUS;
+
+  /**
+   * Whether particles are projected with the SIMD kernel (see
+   * {@link net.skycade.space.renderer.ParticleProjectionKernel#select()}). Only makes a difference
+   * for builds made with {@code -PvectorApi} and run with
+   * {@code --add-modules jdk.incubator.vector}; anything else always uses the scalar kernel. On
+   * by default for those; start the server with {@code -Dskycade.space.vectorProjection=false}
+   * to use the scalar kernel anyway.
+   */
+  public static final boolean USE_VECTOR_PROJECTION =
+      Boolean.parseBoolean(System.getProperty("skycade.space.vectorProjection", "true"));
 }
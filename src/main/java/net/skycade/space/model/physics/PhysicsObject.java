@@ -1,22 +1,55 @@
 package net.skycade.space.model.physics;
 
-import net.skycade.space.model.physics.vector.SectorContainedPos;
-import net.skycade.space.model.physics.vector.SectorContainedVec;
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+import net.skycade.space.model.physics.orbit.KeplerOrbit;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.physics.vector.SectorLocalVec;
+import net.skycade.space.model.sector.SectorBodyStore;
 import net.skycade.space.model.sector.contained.SectorContainedObject;
 
 /**
  * Represents a physics object.
+ * <p>
+ * Physics objects can be put "on rails" with {@link #setOrbit(KeplerOrbit, SectorContainedObject)}:
+ * they then follow a fixed orbit around another object instead of being integrated, and their
+ * position is only worked out (in closed form) when something asks for it.
  *
  * @author Jacob Cohen
  */
 public abstract class PhysicsObject extends SectorContainedObject {
 
+  /**
+   * The length of a physics step, in seconds.
+   */
+  private static final double STEP_SECONDS =
+      PhysicsAndRenderingConstants.PHYSICS_DELAY_MILLIS / 1000d;
+
+  /**
+   * The orbit the object follows, or null if it moves freely.
+   */
+  private KeplerOrbit orbit;
+
+  /**
+   * The object being orbited.
+   */
+  private SectorContainedObject orbitPrimary;
+
+  /**
+   * The simulation time the object's position was last worked out for.
+   */
+  private double orbitSampleTimeSeconds = Double.NaN;
+
+  /**
+   * Scratch space for sampling the orbit.
+   */
+  private double[] orbitSample;
+
   /**
    * Construct a new {@link SectorContainedObject}.
    *
    * @param position the position of the object relative to the sector.
    */
-  public PhysicsObject(SectorContainedPos position) {
+  public PhysicsObject(SectorLocalPos position) {
     super(position);
   }
 
@@ -30,9 +63,122 @@ public abstract class PhysicsObject extends SectorContainedObject {
    * @param angularVelocity     the angular velocity of the object.
    * @param angularAcceleration the angular acceleration of the object.
    */
-  public PhysicsObject(SectorContainedPos position, SectorContainedVec velocity,
-                       SectorContainedVec acceleration, SectorContainedPos rotation,
-                       SectorContainedVec angularVelocity, SectorContainedVec angularAcceleration) {
+  public PhysicsObject(SectorLocalPos position, SectorLocalVec velocity,
+                       SectorLocalVec acceleration, SectorLocalPos rotation,
+                       SectorLocalVec angularVelocity, SectorLocalVec angularAcceleration) {
     super(position, velocity, acceleration, rotation, angularVelocity, angularAcceleration);
   }
+
+  /**
+   * Put the object on rails, following a fixed orbit around another object. Setting the
+   * position of an object on rails has no lasting effect.
+   *
+   * @param orbit   the orbit to follow.
+   * @param primary the object to orbit. For a binary system, orbit one star around the other,
+   *                with the combined mass of both in the orbit's gravitational parameter.
+   */
+  public void setOrbit(KeplerOrbit orbit, SectorContainedObject primary) {
+    if (primary == this) {
+      throw new IllegalArgumentException("An object can't orbit itself");
+    }
+    this.orbit = orbit;
+    this.orbitPrimary = primary;
+    this.orbitSample = new double[6];
+    this.orbitSampleTimeSeconds = Double.NaN;
+    setFlag(SectorBodyStore.FLAG_ON_RAILS, true);
+    wake();
+    sampleOrbit();
+  }
+
+  /**
+   * Take the object off rails. It carries on from its current position with its orbital
+   * velocity.
+   */
+  public void clearOrbit() {
+    if (orbit == null) {
+      return;
+    }
+    sampleOrbit();
+    // bodies on rails sleep, so the position from before the last step is long out of date
+    for (int axis = 0; axis < 3; axis++) {
+      setStateValue(SectorBodyStore.PREVIOUS_POSITION_X + axis,
+          getStateValue(SectorBodyStore.POSITION_X + axis));
+    }
+    setFlag(SectorBodyStore.FLAG_ON_RAILS, false);
+    wake();
+    this.orbit = null;
+    this.orbitPrimary = null;
+    this.orbitSample = null;
+  }
+
+  /**
+   * Get the orbit the object follows.
+   *
+   * @return the orbit, or null if the object moves freely.
+   */
+  public KeplerOrbit getOrbit() {
+    return orbit;
+  }
+
+  /**
+   * Get the object being orbited.
+   *
+   * @return the object being orbited, or null if the object moves freely.
+   */
+  public SectorContainedObject getOrbitPrimary() {
+    return orbitPrimary;
+  }
+
+  /**
+   * Bring the position and velocity of an object on rails up to date with its store's
+   * simulation time. Cheap if they already are; does nothing for objects that move freely.
+   */
+  public void sampleOrbit() {
+    if (orbit == null) {
+      return;
+    }
+    double timeSeconds = getSimulationTimeSeconds();
+    if (timeSeconds == orbitSampleTimeSeconds) {
+      return;
+    }
+    orbitSampleTimeSeconds = timeSeconds;
+
+    orbit.sample(timeSeconds, orbitSample);
+    SectorLocalPos primaryPosition = orbitPrimary.getPosition();
+    setStateValue(SectorBodyStore.POSITION_X, primaryPosition.x() + orbitSample[0]);
+    setStateValue(SectorBodyStore.POSITION_Y, primaryPosition.y() + orbitSample[1]);
+    setStateValue(SectorBodyStore.POSITION_Z, primaryPosition.z() + orbitSample[2]);
+
+    // velocities are integrated once per physics step
+    SectorLocalVec primaryVelocity = orbitPrimary.getVelocity();
+    setStateValue(SectorBodyStore.VELOCITY_X, primaryVelocity.x() + orbitSample[3] * STEP_SECONDS);
+    setStateValue(SectorBodyStore.VELOCITY_Y, primaryVelocity.y() + orbitSample[4] * STEP_SECONDS);
+    setStateValue(SectorBodyStore.VELOCITY_Z, primaryVelocity.z() + orbitSample[5] * STEP_SECONDS);
+  }
+
+  @Override
+  public SectorLocalPos getPosition() {
+    sampleOrbit();
+    return super.getPosition();
+  }
+
+  @Override
+  public SectorLocalVec getVelocity() {
+    sampleOrbit();
+    return super.getVelocity();
+  }
+
+  @Override
+  public SectorLocalPos getInterpolatedPosition(double alpha) {
+    if (orbit == null) {
+      return super.getInterpolatedPosition(alpha);
+    }
+
+    // no need to interpolate, the orbit can be sampled at exactly the time being rendered
+    double timeSeconds =
+        getSimulationTimeSeconds() - (1 - alpha) * STEP_SECONDS;
+    orbit.sample(timeSeconds, orbitSample);
+    return orbitPrimary.getInterpolatedPosition(alpha)
+        .add(orbitSample[0], orbitSample[1], orbitSample[2]);
+  }
 }
@@ -0,0 +1,412 @@
+package net.skycade.space.model.physics.gravity;
+
+import java.util.Arrays;
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+import net.skycade.space.model.sector.SectorBodyStore;
+import net.skycade.space.model.sector.SectorPhysicsExecutor;
+
+/**
+ * Barnes-Hut gravity: O(n log n) instead of the O(n^2) pairwise sum.
+ * <p>
+ * Every solve builds an octree over the bodies that have a mass, where every node knows the total
+ * mass and center of mass of the bodies below it. A body is then pulled by a whole node at once
+ * when the node looks small enough from where the body is, i.e. when
+ * {@code nodeWidth / distance < openingAngle}; otherwise the node is opened and its children are
+ * looked at instead. A node the body is in itself is always opened, so a body never pulls on
+ * itself.
+ * <p>
+ * The tree lives in primitive arrays that are kept between solves, and so do the traversal stacks
+ * (one per thread) and the work handed to the physics workers, so a solve doesn't allocate once
+ * the arrays have grown to fit the sector. Splitting a large sector across the workers (see
+ * {@link SectorPhysicsExecutor}) is the exception.
+ *
+ * @author Jacob Cohen
+ */
+public class BarnesHutGravitySolver implements GravitySolver {
+
+  /**
+   * Bodies that end up in the same node this deep down (i.e. practically on top of each other)
+   * share the node instead of splitting it any further.
+   */
+  private static final int MAX_DEPTH = 48;
+
+  /**
+   * The size of the traversal stack: every level pushes at most 8 children, 7 of which stay on
+   * the stack while the 8th is opened.
+   */
+  private static final int STACK_SIZE = MAX_DEPTH * 7 + 8;
+
+  /**
+   * The opening angle, squared.
+   */
+  private final double openingAngleSquared;
+
+  /**
+   * The softening length, squared.
+   */
+  private final double softeningSquared;
+
+  private double[] nodeCenterX = new double[64];
+  private double[] nodeCenterY = new double[64];
+  private double[] nodeCenterZ = new double[64];
+  private double[] nodeHalfSize = new double[64];
+  private double[] nodeMass = new double[64];
+  private double[] nodeMassCenterX = new double[64];
+  private double[] nodeMassCenterY = new double[64];
+  private double[] nodeMassCenterZ = new double[64];
+
+  /**
+   * The index of a node's first child (the 8 children are consecutive), or -1 for leaves.
+   */
+  private int[] nodeFirstChild = new int[64];
+
+  /**
+   * The slot of the (first) body in a leaf, or -1 for empty leaves and inner nodes.
+   */
+  private int[] nodeBody = new int[64];
+
+  /**
+   * The slot of the next body sharing a leaf with a body, by slot, or -1 for the last one. Only
+   * leaves at {@link #MAX_DEPTH} hold more than one body.
+   */
+  private int[] nextBody = new int[0];
+
+  /**
+   * The number of nodes in use.
+   */
+  private int nodeCount;
+
+  /**
+   * The traversal stack of every thread that has solved a range of bodies.
+   */
+  private final ThreadLocal<int[]> stacks = ThreadLocal.withInitial(() -> new int[STACK_SIZE]);
+
+  /**
+   * The work for a range of bodies, kept so that a solve doesn't create it again.
+   */
+  private final SectorPhysicsExecutor.RangeTask accumulateRange = this::accumulateRange;
+
+  /**
+   * The bodies being solved, while a solve runs.
+   */
+  private SectorBodyStore bodies;
+
+  /**
+   * Constructor.
+   *
+   * @param openingAngle the opening angle; smaller is more accurate and slower.
+   * @param softening    the softening length, in meters.
+   */
+  public BarnesHutGravitySolver(double openingAngle, double softening) {
+    if (openingAngle < 0) {
+      throw new IllegalArgumentException("The opening angle can't be negative");
+    }
+    this.openingAngleSquared = openingAngle * openingAngle;
+    this.softeningSquared = softening * softening;
+  }
+
+  /**
+   * Constructor, using the default opening angle and softening length.
+   */
+  public BarnesHutGravitySolver() {
+    this(PhysicsAndRenderingConstants.GRAVITY_OPENING_ANGLE,
+        PhysicsAndRenderingConstants.GRAVITY_SOFTENING_METERS);
+  }
+
+  @Override
+  public void solve(SectorBodyStore bodies) {
+    int size = bodies.size();
+    double[] positionX = bodies.column(SectorBodyStore.POSITION_X);
+    double[] positionY = bodies.column(SectorBodyStore.POSITION_Y);
+    double[] positionZ = bodies.column(SectorBodyStore.POSITION_Z);
+    double[] mass = bodies.column(SectorBodyStore.MASS);
+    double[] gravityX = bodies.column(SectorBodyStore.GRAVITY_X);
+    double[] gravityY = bodies.column(SectorBodyStore.GRAVITY_Y);
+    double[] gravityZ = bodies.column(SectorBodyStore.GRAVITY_Z);
+
+    if (!buildTree(size, positionX, positionY, positionZ, mass)) {
+      // nothing has a mass, so nothing pulls
+      Arrays.fill(gravityX, 0, size, 0);
+      Arrays.fill(gravityY, 0, size, 0);
+      Arrays.fill(gravityZ, 0, size, 0);
+      return;
+    }
+
+    this.bodies = bodies;
+    try {
+      SectorPhysicsExecutor.forEachRange(0, size, accumulateRange);
+    } finally {
+      this.bodies = null;
+    }
+  }
+
+  /**
+   * Work out the gravity on a range of the bodies being solved, once the tree is built.
+   */
+  private void accumulateRange(int fromSlot, int toSlot) {
+    double[] positionX = bodies.column(SectorBodyStore.POSITION_X);
+    double[] positionY = bodies.column(SectorBodyStore.POSITION_Y);
+    double[] positionZ = bodies.column(SectorBodyStore.POSITION_Z);
+    double[] mass = bodies.column(SectorBodyStore.MASS);
+    double[] gravityX = bodies.column(SectorBodyStore.GRAVITY_X);
+    double[] gravityY = bodies.column(SectorBodyStore.GRAVITY_Y);
+    double[] gravityZ = bodies.column(SectorBodyStore.GRAVITY_Z);
+    int[] flags = bodies.flags();
+    int[] stack = stacks.get();
+    for (int slot = fromSlot; slot < toSlot; slot++) {
+      if ((flags[slot] & SectorBodyStore.FLAG_ON_RAILS) != 0) {
+        // bodies on rails still pull, but aren't pulled
+        gravityX[slot] = 0;
+        gravityY[slot] = 0;
+        gravityZ[slot] = 0;
+        continue;
+      }
+      accumulate(slot, positionX, positionY, positionZ, mass, stack, gravityX, gravityY,
+          gravityZ);
+    }
+  }
+
+  /**
+   * Build the octree over every body that has a mass.
+   *
+   * @return false if no body has a mass.
+   */
+  private boolean buildTree(int size, double[] positionX, double[] positionY,
+                            double[] positionZ, double[] mass) {
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double minZ = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    double maxZ = Double.NEGATIVE_INFINITY;
+    boolean anyMass = false;
+    for (int slot = 0; slot < size; slot++) {
+      if (mass[slot] <= 0) {
+        continue;
+      }
+      anyMass = true;
+      minX = Math.min(minX, positionX[slot]);
+      minY = Math.min(minY, positionY[slot]);
+      minZ = Math.min(minZ, positionZ[slot]);
+      maxX = Math.max(maxX, positionX[slot]);
+      maxY = Math.max(maxY, positionY[slot]);
+      maxZ = Math.max(maxZ, positionZ[slot]);
+    }
+    if (!anyMass) {
+      return false;
+    }
+
+    if (nextBody.length < size) {
+      nextBody = new int[size];
+    }
+
+    // a cube around every massive body, slightly padded so nothing sits exactly on the edge
+    double halfSize = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ)) * 0.5;
+    halfSize = halfSize * 1.0001 + 1;
+    nodeCount = 0;
+    newNode((minX + maxX) * 0.5, (minY + maxY) * 0.5, (minZ + maxZ) * 0.5, halfSize);
+
+    for (int slot = 0; slot < size; slot++) {
+      if (mass[slot] > 0) {
+        insert(slot, positionX, positionY, positionZ, mass[slot]);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Insert a body into the tree, updating the mass and center of mass of every node on the way
+   * down.
+   */
+  private void insert(int slot, double[] positionX, double[] positionY, double[] positionZ,
+                      double mass) {
+    double x = positionX[slot];
+    double y = positionY[slot];
+    double z = positionZ[slot];
+    int node = 0;
+    int depth = 0;
+    while (true) {
+      if (nodeFirstChild[node] < 0 && nodeMass[node] == 0) {
+        // empty leaf, the body goes here
+        nodeBody[node] = slot;
+        nextBody[slot] = -1;
+        nodeMass[node] = mass;
+        nodeMassCenterX[node] = x;
+        nodeMassCenterY[node] = y;
+        nodeMassCenterZ[node] = z;
+        return;
+      }
+
+      double totalMass = nodeMass[node] + mass;
+      nodeMassCenterX[node] = (nodeMassCenterX[node] * nodeMass[node] + x * mass) / totalMass;
+      nodeMassCenterY[node] = (nodeMassCenterY[node] * nodeMass[node] + y * mass) / totalMass;
+      nodeMassCenterZ[node] = (nodeMassCenterZ[node] * nodeMass[node] + z * mass) / totalMass;
+      double previousMass = nodeMass[node];
+      nodeMass[node] = totalMass;
+
+      if (nodeFirstChild[node] < 0) {
+        if (depth >= MAX_DEPTH) {
+          // practically on top of the bodies that are already here, so share the leaf; they
+          // still pull on each other one by one
+          nextBody[slot] = nodeBody[node];
+          nodeBody[node] = slot;
+          return;
+        }
+
+        // occupied leaf: split it and push the body that was here one level down
+        int existing = nodeBody[node];
+        double existingX = positionX[existing];
+        double existingY = positionY[existing];
+        double existingZ = positionZ[existing];
+        split(node);
+        int existingChild = nodeFirstChild[node] + octant(node, existingX, existingY, existingZ);
+        nodeBody[existingChild] = existing;
+        nextBody[existing] = -1;
+        nodeMass[existingChild] = previousMass;
+        nodeMassCenterX[existingChild] = existingX;
+        nodeMassCenterY[existingChild] = existingY;
+        nodeMassCenterZ[existingChild] = existingZ;
+      }
+
+      node = nodeFirstChild[node] + octant(node, x, y, z);
+      depth++;
+    }
+  }
+
+  /**
+   * Sum up the pull of the tree on a single body.
+   */
+  private void accumulate(int slot, double[] positionX, double[] positionY, double[] positionZ,
+                          double[] mass, int[] stack, double[] gravityX, double[] gravityY,
+                          double[] gravityZ) {
+    double x = positionX[slot];
+    double y = positionY[slot];
+    double z = positionZ[slot];
+    // bodies without a mass aren't in the tree, so they can't be in any node
+    boolean inTree = mass[slot] > 0;
+    double accelerationX = 0;
+    double accelerationY = 0;
+    double accelerationZ = 0;
+
+    int stackSize = 0;
+    stack[stackSize++] = 0;
+    while (stackSize > 0) {
+      int node = stack[--stackSize];
+      if (nodeMass[node] == 0) {
+        continue;
+      }
+
+      int firstChild = nodeFirstChild[node];
+      if (firstChild < 0) {
+        // a leaf: pulled by its bodies one by one, which leaves out the body itself
+        for (int body = nodeBody[node]; body >= 0; body = nextBody[body]) {
+          if (body == slot) {
+            continue;
+          }
+          double strength = strength(positionX[body] - x, positionY[body] - y,
+              positionZ[body] - z, mass[body]);
+          accelerationX += (positionX[body] - x) * strength;
+          accelerationY += (positionY[body] - y) * strength;
+          accelerationZ += (positionZ[body] - z) * strength;
+        }
+        continue;
+      }
+
+      double dx = nodeMassCenterX[node] - x;
+      double dy = nodeMassCenterY[node] - y;
+      double dz = nodeMassCenterZ[node] - z;
+      double width = nodeHalfSize[node] * 2;
+      if ((inTree && contains(node, x, y, z))
+          || width * width >= openingAngleSquared * (dx * dx + dy * dy + dz * dz)) {
+        // the body's own mass is in there, or it's too close to treat as a single mass, so
+        // look at the children instead
+        for (int child = 0; child < 8; child++) {
+          stack[stackSize++] = firstChild + child;
+        }
+        continue;
+      }
+
+      double strength = strength(dx, dy, dz, nodeMass[node]);
+      accelerationX += dx * strength;
+      accelerationY += dy * strength;
+      accelerationZ += dz * strength;
+    }
+
+    gravityX[slot] = accelerationX;
+    gravityY[slot] = accelerationY;
+    gravityZ[slot] = accelerationZ;
+  }
+
+  /**
+   * Get the pull of a mass at an offset, divided by the length of the offset.
+   */
+  private double strength(double dx, double dy, double dz, double mass) {
+    double distanceSquared = dx * dx + dy * dy + dz * dz + softeningSquared;
+    return PhysicsAndRenderingConstants.GRAVITATIONAL_CONSTANT * mass
+        / (distanceSquared * Math.sqrt(distanceSquared));
+  }
+
+  /**
+   * Whether a point falls inside a node, the same way {@link #octant(int, double, double, double)}
+   * sorts points into nodes.
+   */
+  private boolean contains(int node, double x, double y, double z) {
+    double halfSize = nodeHalfSize[node];
+    return x >= nodeCenterX[node] - halfSize && x < nodeCenterX[node] + halfSize
+        && y >= nodeCenterY[node] - halfSize && y < nodeCenterY[node] + halfSize
+        && z >= nodeCenterZ[node] - halfSize && z < nodeCenterZ[node] + halfSize;
+  }
+
+  /**
+   * Give a leaf its 8 (empty) children.
+   */
+  private void split(int node) {
+    double quarterSize = nodeHalfSize[node] * 0.5;
+    int firstChild = nodeCount;
+    for (int child = 0; child < 8; child++) {
+      newNode(nodeCenterX[node] + ((child & 1) != 0 ? quarterSize : -quarterSize),
+          nodeCenterY[node] + ((child & 2) != 0 ? quarterSize : -quarterSize),
+          nodeCenterZ[node] + ((child & 4) != 0 ? quarterSize : -quarterSize), quarterSize);
+    }
+    nodeFirstChild[node] = firstChild;
+    nodeBody[node] = -1;
+  }
+
+  /**
+   * Which of a node's children a point falls into.
+   */
+  private int octant(int node, double x, double y, double z) {
+    return (x >= nodeCenterX[node] ? 1 : 0) | (y >= nodeCenterY[node] ? 2 : 0)
+        | (z >= nodeCenterZ[node] ? 4 : 0);
+  }
+
+  /**
+   * Add an empty leaf to the tree.
+   */
+  private void newNode(double centerX, double centerY, double centerZ, double halfSize) {
+    if (nodeCount == nodeMass.length) {
+      int capacity = nodeCount * 2;
+      nodeCenterX = Arrays.copyOf(nodeCenterX, capacity);
+      nodeCenterY = Arrays.copyOf(nodeCenterY, capacity);
+      nodeCenterZ = Arrays.copyOf(nodeCenterZ, capacity);
+      nodeHalfSize = Arrays.copyOf(nodeHalfSize, capacity);
+      nodeMass = Arrays.copyOf(nodeMass, capacity);
+      nodeMassCenterX = Arrays.copyOf(nodeMassCenterX, capacity);
+      nodeMassCenterY = Arrays.copyOf(nodeMassCenterY, capacity);
+      nodeMassCenterZ = Arrays.copyOf(nodeMassCenterZ, capacity);
+      nodeFirstChild = Arrays.copyOf(nodeFirstChild, capacity);
+      nodeBody = Arrays.copyOf(nodeBody, capacity);
+    }
+    int node = nodeCount++;
+    nodeCenterX[node] = centerX;
+    nodeCenterY[node] = centerY;
+    nodeCenterZ[node] = centerZ;
+    nodeHalfSize[node] = halfSize;
+    nodeMass[node] = 0;
+    nodeMassCenterX[node] = 0;
+    nodeMassCenterY[node] = 0;
+    nodeMassCenterZ[node] = 0;
+    nodeFirstChild[node] = -1;
+    nodeBody[node] = -1;
+  }
+}
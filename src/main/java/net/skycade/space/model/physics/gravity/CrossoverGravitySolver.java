@@ -0,0 +1,65 @@
+package net.skycade.space.model.physics.gravity;
+
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+import net.skycade.space.model.sector.SectorBodyStore;
+
+/**
+ * Sums gravity pair by pair ({@link DirectGravitySolver}) while a sector has few bodies with a
+ * mass, and switches to {@link BarnesHutGravitySolver} once it has more than a crossover count.
+ * <p>
+ * Building the Barnes-Hut tree costs more than it saves below a couple of thousand bodies, and
+ * most sectors are far smaller than that.
+ *
+ * @author Jacob Cohen
+ */
+public class CrossoverGravitySolver implements GravitySolver {
+
+  private final DirectGravitySolver direct;
+  private final BarnesHutGravitySolver barnesHut;
+
+  /**
+   * The most bodies with a mass that are summed pair by pair.
+   */
+  private final int directMaxBodies;
+
+  /**
+   * Constructor.
+   *
+   * @param direct          the solver for few bodies.
+   * @param barnesHut       the solver for many bodies.
+   * @param directMaxBodies the most bodies with a mass to use {@code direct} for.
+   */
+  public CrossoverGravitySolver(DirectGravitySolver direct, BarnesHutGravitySolver barnesHut,
+                                int directMaxBodies) {
+    this.direct = direct;
+    this.barnesHut = barnesHut;
+    this.directMaxBodies = directMaxBodies;
+  }
+
+  /**
+   * Constructor, using the default solvers and
+   * {@link PhysicsAndRenderingConstants#GRAVITY_DIRECT_MAX_BODIES}.
+   */
+  public CrossoverGravitySolver() {
+    this(new DirectGravitySolver(), new BarnesHutGravitySolver(),
+        PhysicsAndRenderingConstants.GRAVITY_DIRECT_MAX_BODIES);
+  }
+
+  @Override
+  public void solve(SectorBodyStore bodies) {
+    // both solvers go through every body anyway, so counting them first is cheap
+    double[] mass = bodies.column(SectorBodyStore.MASS);
+    int size = bodies.size();
+    int massiveBodies = 0;
+    for (int slot = 0; slot < size && massiveBodies <= directMaxBodies; slot++) {
+      if (mass[slot] > 0) {
+        massiveBodies++;
+      }
+    }
+    if (massiveBodies <= directMaxBodies) {
+      direct.solve(bodies);
+    } else {
+      barnesHut.solve(bodies);
+    }
+  }
+}
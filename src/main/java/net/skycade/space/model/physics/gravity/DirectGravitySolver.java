@@ -0,0 +1,107 @@
+package net.skycade.space.model.physics.gravity;
+
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+import net.skycade.space.model.sector.SectorBodyStore;
+import net.skycade.space.model.sector.SectorPhysicsExecutor;
+
+/**
+ * The exact O(n^2) pairwise gravity sum.
+ * <p>
+ * Far too slow for big sectors, but faster than {@link BarnesHutGravitySolver} for small ones
+ * (see {@link CrossoverGravitySolver}), and the reference Barnes-Hut is checked and benchmarked
+ * against.
+ *
+ * @author Jacob Cohen
+ */
+public class DirectGravitySolver implements GravitySolver {
+
+  /**
+   * The softening length, squared.
+   */
+  private final double softeningSquared;
+
+  /**
+   * The work for a range of bodies, kept so that a solve doesn't create it again.
+   */
+  private final SectorPhysicsExecutor.RangeTask solveRange = this::solveRange;
+
+  /**
+   * The bodies being solved, while a solve runs.
+   */
+  private SectorBodyStore bodies;
+
+  /**
+   * Constructor.
+   *
+   * @param softening the softening length, in meters.
+   */
+  public DirectGravitySolver(double softening) {
+    this.softeningSquared = softening * softening;
+  }
+
+  /**
+   * Constructor, using the default softening length.
+   */
+  public DirectGravitySolver() {
+    this(PhysicsAndRenderingConstants.GRAVITY_SOFTENING_METERS);
+  }
+
+  @Override
+  public void solve(SectorBodyStore bodies) {
+    this.bodies = bodies;
+    try {
+      SectorPhysicsExecutor.forEachRange(0, bodies.size(), solveRange);
+    } finally {
+      this.bodies = null;
+    }
+  }
+
+  /**
+   * Work out the gravity on a range of the bodies being solved.
+   */
+  private void solveRange(int fromSlot, int toSlot) {
+    int size = bodies.size();
+    double[] positionX = bodies.column(SectorBodyStore.POSITION_X);
+    double[] positionY = bodies.column(SectorBodyStore.POSITION_Y);
+    double[] positionZ = bodies.column(SectorBodyStore.POSITION_Z);
+    double[] mass = bodies.column(SectorBodyStore.MASS);
+    double[] gravityX = bodies.column(SectorBodyStore.GRAVITY_X);
+    double[] gravityY = bodies.column(SectorBodyStore.GRAVITY_Y);
+    double[] gravityZ = bodies.column(SectorBodyStore.GRAVITY_Z);
+    double gravitationalConstant = PhysicsAndRenderingConstants.GRAVITATIONAL_CONSTANT;
+    int[] flags = bodies.flags();
+    for (int slot = fromSlot; slot < toSlot; slot++) {
+      if ((flags[slot] & SectorBodyStore.FLAG_ON_RAILS) != 0) {
+        gravityX[slot] = 0;
+        gravityY[slot] = 0;
+        gravityZ[slot] = 0;
+        continue;
+      }
+      double x = positionX[slot];
+      double y = positionY[slot];
+      double z = positionZ[slot];
+      double accelerationX = 0;
+      double accelerationY = 0;
+      double accelerationZ = 0;
+
+      for (int other = 0; other < size; other++) {
+        if (other == slot || mass[other] == 0) {
+          continue;
+        }
+        double dx = positionX[other] - x;
+        double dy = positionY[other] - y;
+        double dz = positionZ[other] - z;
+        double distanceSquared = dx * dx + dy * dy + dz * dz + softeningSquared;
+        double strength = gravitationalConstant * mass[other]
+            / (distanceSquared * Math.sqrt(distanceSquared));
+        accelerationX += dx * strength;
+        accelerationY += dy * strength;
+        accelerationZ += dz * strength;
+      }
+
+      gravityX[slot] = accelerationX;
+      gravityY[slot] = accelerationY;
+      gravityZ[slot] = accelerationZ;
+    }
+  }
+}
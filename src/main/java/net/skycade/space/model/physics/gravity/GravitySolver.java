@@ -0,0 +1,20 @@
+package net.skycade.space.model.physics.gravity;
+
+import net.skycade.space.model.sector.SectorBodyStore;
+
+/**
+ * Computes the mutual gravity between the bodies of a sector.
+ *
+ * @author Jacob Cohen
+ */
+public interface GravitySolver {
+
+  /**
+   * Fill in the gravity columns ({@link SectorBodyStore#GRAVITY_X} and on) of every body in the
+   * store, in meters per second squared. Only bodies with a mass pull on others, but every body
+   * is pulled.
+   *
+   * @param bodies the bodies.
+   */
+  void solve(SectorBodyStore bodies);
+}
@@ -0,0 +1,46 @@
+package net.skycade.space.model.physics.integrator;
+
+import net.skycade.space.model.sector.SectorBodyStore;
+
+/**
+ * Explicit (forward) Euler integration: the position moves by the velocity from before the step,
+ * and then the velocity is updated.
+ *
+ * @author Jacob Cohen
+ */
+public class ExplicitEulerIntegrator implements SectorIntegrator {
+
+  @Override
+  public void integrate(SectorBodyStore bodies, int fromSlot, int toSlot, double tickFraction) {
+    double gravityFraction = SectorBodyStore.GRAVITY_TO_TICK_UNITS * tickFraction;
+    double[] gravityX = bodies.column(SectorBodyStore.GRAVITY_X);
+    double[] gravityY = bodies.column(SectorBodyStore.GRAVITY_Y);
+    double[] gravityZ = bodies.column(SectorBodyStore.GRAVITY_Z);
+
+    for (int axis = 0; axis < 3; axis++) {
+      double[] position = bodies.column(SectorBodyStore.POSITION_X + axis);
+      double[] velocity = bodies.column(SectorBodyStore.VELOCITY_X + axis);
+      double[] acceleration = bodies.column(SectorBodyStore.ACCELERATION_X + axis);
+      double[] gravity = axis == 0 ? gravityX : axis == 1 ? gravityY : gravityZ;
+
+      for (int slot = fromSlot; slot < toSlot; slot++) {
+        position[slot] += velocity[slot] * tickFraction;
+        velocity[slot] += acceleration[slot] * tickFraction + gravity[slot] * gravityFraction;
+      }
+    }
+
+    double[] angularVelocityX = bodies.column(SectorBodyStore.ANGULAR_VELOCITY_X);
+    double[] angularVelocityY = bodies.column(SectorBodyStore.ANGULAR_VELOCITY_Y);
+    double[] angularVelocityZ = bodies.column(SectorBodyStore.ANGULAR_VELOCITY_Z);
+    double[] angularAccelerationX = bodies.column(SectorBodyStore.ANGULAR_ACCELERATION_X);
+    double[] angularAccelerationY = bodies.column(SectorBodyStore.ANGULAR_ACCELERATION_Y);
+    double[] angularAccelerationZ = bodies.column(SectorBodyStore.ANGULAR_ACCELERATION_Z);
+    for (int slot = fromSlot; slot < toSlot; slot++) {
+      bodies.rotate(slot, angularVelocityX[slot] * tickFraction,
+          angularVelocityY[slot] * tickFraction, angularVelocityZ[slot] * tickFraction);
+      angularVelocityX[slot] += angularAccelerationX[slot] * tickFraction;
+      angularVelocityY[slot] += angularAccelerationY[slot] * tickFraction;
+      angularVelocityZ[slot] += angularAccelerationZ[slot] * tickFraction;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package net.skycade.space.model.physics.integrator;
+
+import net.skycade.space.model.sector.SectorBodyStore;
+
+/**
+ * Advances the bodies of a sector by one physics step, from their velocity, acceleration and
+ * gravity.
+ * <p>
+ * Every body picks its own integrator (see
+ * {@link net.skycade.space.model.sector.contained.SectorContainedObject#setIntegrator}).
+ * The store hands each integrator runs of consecutive slots that use it, so bodies sharing an
+ * integrator should share the same instance, like the ones below.
+ *
+ * @author Jacob Cohen
+ */
+public interface SectorIntegrator {
+
+  /**
+   * Explicit (forward) Euler: position from the old velocity. Cheapest, but gains energy.
+   */
+  SectorIntegrator EXPLICIT_EULER = new ExplicitEulerIntegrator();
+
+  /**
+   * Semi-implicit (symplectic) Euler: position from the new velocity. The default.
+   */
+  SectorIntegrator SEMI_IMPLICIT_EULER = new SemiImplicitEulerIntegrator();
+
+  /**
+   * Velocity Verlet: second order and symplectic, so orbits and trajectories stay stable at
+   * much coarser physics steps.
+   */
+  SectorIntegrator VELOCITY_VERLET = new VelocityVerletIntegrator();
+
+  /**
+   * Integrate the bodies in a range of slots, updating their state in place.
+   * <p>
+   * Must only touch the given slots, as disjoint ranges may be integrated at the same time.
+   *
+   * @param bodies       the bodies.
+   * @param fromSlot     the first slot (inclusive).
+   * @param toSlot       the last slot (exclusive).
+   * @param tickFraction the time step, as a fraction of a physics tick.
+   */
+  void integrate(SectorBodyStore bodies, int fromSlot, int toSlot, double tickFraction);
+
+  /**
+   * Finish the step for the bodies in a range of slots, once gravity has been solved again for
+   * where {@link #integrate(SectorBodyStore, int, int, double)} moved them. Integrators that only
+   * use the gravity from the start of the step have nothing to do here.
+   * <p>
+   * The same rules as for {@link #integrate(SectorBodyStore, int, int, double)} apply.
+   *
+   * @param bodies       the bodies.
+   * @param fromSlot     the first slot (inclusive).
+   * @param toSlot       the last slot (exclusive).
+   * @param tickFraction the time step, as a fraction of a physics tick.
+   */
+  default void finish(SectorBodyStore bodies, int fromSlot, int toSlot, double tickFraction) {
+  }
+}
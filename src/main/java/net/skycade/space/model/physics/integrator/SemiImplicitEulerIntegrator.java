@@ -0,0 +1,48 @@
+package net.skycade.space.model.physics.integrator;
+
+import net.skycade.space.model.sector.SectorBodyStore;
+
+/**
+ * Semi-implicit (symplectic) Euler integration: the velocity is updated first, and the position
+ * then moves by the new velocity. Unlike explicit Euler it doesn't pump energy into orbits.
+ *
+ * @author Jacob Cohen
+ */
+public class SemiImplicitEulerIntegrator implements SectorIntegrator {
+
+  @Override
+  public void integrate(SectorBodyStore bodies, int fromSlot, int toSlot, double tickFraction) {
+    double gravityFraction = SectorBodyStore.GRAVITY_TO_TICK_UNITS * tickFraction;
+    double[] gravityX = bodies.column(SectorBodyStore.GRAVITY_X);
+    double[] gravityY = bodies.column(SectorBodyStore.GRAVITY_Y);
+    double[] gravityZ = bodies.column(SectorBodyStore.GRAVITY_Z);
+
+    for (int axis = 0; axis < 3; axis++) {
+      double[] position = bodies.column(SectorBodyStore.POSITION_X + axis);
+      double[] velocity = bodies.column(SectorBodyStore.VELOCITY_X + axis);
+      double[] acceleration = bodies.column(SectorBodyStore.ACCELERATION_X + axis);
+      double[] gravity = axis == 0 ? gravityX : axis == 1 ? gravityY : gravityZ;
+
+      for (int slot = fromSlot; slot < toSlot; slot++) {
+        // velocity from acceleration, then position from the new velocity
+        velocity[slot] += acceleration[slot] * tickFraction + gravity[slot] * gravityFraction;
+        position[slot] += velocity[slot] * tickFraction;
+      }
+    }
+
+    // same for the orientation
+    double[] angularVelocityX = bodies.column(SectorBodyStore.ANGULAR_VELOCITY_X);
+    double[] angularVelocityY = bodies.column(SectorBodyStore.ANGULAR_VELOCITY_Y);
+    double[] angularVelocityZ = bodies.column(SectorBodyStore.ANGULAR_VELOCITY_Z);
+    double[] angularAccelerationX = bodies.column(SectorBodyStore.ANGULAR_ACCELERATION_X);
+    double[] angularAccelerationY = bodies.column(SectorBodyStore.ANGULAR_ACCELERATION_Y);
+    double[] angularAccelerationZ = bodies.column(SectorBodyStore.ANGULAR_ACCELERATION_Z);
+    for (int slot = fromSlot; slot < toSlot; slot++) {
+      angularVelocityX[slot] += angularAccelerationX[slot] * tickFraction;
+      angularVelocityY[slot] += angularAccelerationY[slot] * tickFraction;
+      angularVelocityZ[slot] += angularAccelerationZ[slot] * tickFraction;
+      bodies.rotate(slot, angularVelocityX[slot] * tickFraction,
+          angularVelocityY[slot] * tickFraction, angularVelocityZ[slot] * tickFraction);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package net.skycade.space.model.physics.integrator;
+
+import net.skycade.space.model.sector.SectorBodyStore;
+
+/**
+ * Velocity Verlet integration, as kick-drift-kick.
+ * <p>
+ * The sector solves gravity at the end of every step, for where the bodies ended up, which is
+ * also what the next step starts from. So each step gets the acceleration from before and after
+ * the move, from a single solve per step:
+ * <pre>
+ *   integrate:  v += a / 2 * dt
+ *               x += v * dt
+ *   (gravity is solved at the new x)
+ *   finish:     v += a_new / 2 * dt
+ * </pre>
+ * which leaves the velocity in sync with the position once the step is done. The same is done for
+ * the orientation.
+ *
+ * @author Jacob Cohen
+ */
+public class VelocityVerletIntegrator implements SectorIntegrator {
+
+  @Override
+  public void integrate(SectorBodyStore bodies, int fromSlot, int toSlot, double tickFraction) {
+    double halfStep = tickFraction / 2;
+    kick(bodies, fromSlot, toSlot, halfStep);
+
+    for (int axis = 0; axis < 3; axis++) {
+      double[] position = bodies.column(SectorBodyStore.POSITION_X + axis);
+      double[] velocity = bodies.column(SectorBodyStore.VELOCITY_X + axis);
+      for (int slot = fromSlot; slot < toSlot; slot++) {
+        position[slot] += velocity[slot] * tickFraction;
+      }
+    }
+
+    double[] angularVelocityX = bodies.column(SectorBodyStore.ANGULAR_VELOCITY_X);
+    double[] angularVelocityY = bodies.column(SectorBodyStore.ANGULAR_VELOCITY_Y);
+    double[] angularVelocityZ = bodies.column(SectorBodyStore.ANGULAR_VELOCITY_Z);
+    for (int slot = fromSlot; slot < toSlot; slot++) {
+      bodies.rotate(slot, angularVelocityX[slot] * tickFraction,
+          angularVelocityY[slot] * tickFraction, angularVelocityZ[slot] * tickFraction);
+    }
+  }
+
+  @Override
+  public void finish(SectorBodyStore bodies, int fromSlot, int toSlot, double tickFraction) {
+    kick(bodies, fromSlot, toSlot, tickFraction / 2);
+  }
+
+  /**
+   * Add the acceleration set on the bodies, plus the gravity currently in the store, to their
+   * velocities over the given time.
+   */
+  private static void kick(SectorBodyStore bodies, int fromSlot, int toSlot, double time) {
+    // gravity is per second squared, everything else per physics tick squared
+    double gravityTime = SectorBodyStore.GRAVITY_TO_TICK_UNITS * time;
+    for (int axis = 0; axis < 3; axis++) {
+      double[] velocity = bodies.column(SectorBodyStore.VELOCITY_X + axis);
+      double[] acceleration = bodies.column(SectorBodyStore.ACCELERATION_X + axis);
+      double[] gravity = bodies.column(SectorBodyStore.GRAVITY_X + axis);
+      double[] angularVelocity = bodies.column(SectorBodyStore.ANGULAR_VELOCITY_X + axis);
+      double[] angularAcceleration =
+          bodies.column(SectorBodyStore.ANGULAR_ACCELERATION_X + axis);
+      for (int slot = fromSlot; slot < toSlot; slot++) {
+        velocity[slot] += acceleration[slot] * time + gravity[slot] * gravityTime;
+        angularVelocity[slot] += angularAcceleration[slot] * time;
+      }
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package net.skycade.space.model.physics.object;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Precomputed points spread evenly over the unit sphere (a Fibonacci-like spiral), shared by
+ * every spherical object.
+ * <p>
+ * The layout only depends on the number of points, so each table is worked out once and reused
+ * by every body on every frame; drawing a sphere is then just scaling and offsetting the points.
+ * To keep the number of tables small, particle counts are rounded down to a tier first (see
+ * {@link #tier(int)}).
+ *
+ * @author Jacob Cohen
+ */
+final class FibonacciSphere {
+
+  /**
+   * Counts up to this many points get their own table.
+   */
+  private static final int EXACT_TIER_LIMIT = 32;
+
+  /**
+   * Above {@link #EXACT_TIER_LIMIT}, counts are rounded down to this many significant bits, so
+   * there are 8 tiers per doubling and a count is never rounded down by more than 12.5%.
+   */
+  private static final int TIER_SIGNIFICANT_BITS = 4;
+
+  /**
+   * The most points a table can have.
+   */
+  static final int MAX_POINTS = 4096;
+
+  /**
+   * The tables, indexed by point count: x, y and z for each point, one after the other. Filled
+   * in lazily; the render thread and anything else drawing can share them.
+   */
+  private static final AtomicReferenceArray<double[]> TABLES =
+      new AtomicReferenceArray<>(MAX_POINTS + 1);
+
+  private FibonacciSphere() {
+  }
+
+  /**
+   * Round a particle count down to the nearest count that has a table.
+   *
+   * @param count the particle count; anything over {@link #MAX_POINTS} is capped.
+   * @return the count to draw.
+   */
+  static int tier(int count) {
+    if (count <= EXACT_TIER_LIMIT) {
+      return Math.max(count, 0);
+    }
+    count = Math.min(count, MAX_POINTS);
+    int granularity = Integer.highestOneBit(count) >> (TIER_SIGNIFICANT_BITS - 1);
+    return count / granularity * granularity;
+  }
+
+  /**
+   * Work out how many points to lay out over a sphere so that no more than a budget of them end
+   * up visible.
+   *
+   * @param count           the number of points the sphere would like to have.
+   * @param budget          the most visible points to draw.
+   * @param visibleFraction the fraction of the sphere that's visible.
+   * @return the number of points to lay out, as returned by {@link #tier(int)}.
+   */
+  static int tierWithinBudget(int count, int budget, double visibleFraction) {
+    if (visibleFraction > 0 && count * visibleFraction > budget) {
+      count = (int) (budget / visibleFraction);
+    }
+    return tier(count);
+  }
+
+  /**
+   * Get the points of a unit sphere for a given count.
+   *
+   * @param tier the number of points, as returned by {@link #tier(int)}.
+   * @return x, y and z for each point, one after the other. Must not be modified.
+   */
+  static double[] unitPoints(int tier) {
+    double[] points = TABLES.get(tier);
+    if (points == null) {
+      // two threads may both work out the same table; either result is fine to keep
+      points = computeUnitPoints(tier);
+      TABLES.compareAndSet(tier, null, points);
+    }
+    return points;
+  }
+
+  private static double[] computeUnitPoints(int count) {
+    double[] points = new double[count * 3];
+    double turns = Math.sqrt(count * Math.PI);
+    for (int i = 0; i < count; i++) {
+      double theta = Math.acos(-1.0 + (2.0 * i) / count);
+      double phi = turns * theta;
+      points[i * 3] = Math.cos(phi) * Math.sin(theta);
+      points[i * 3 + 1] = Math.sin(phi) * Math.sin(theta);
+      points[i * 3 + 2] = Math.cos(theta);
+    }
+    return points;
+  }
+}
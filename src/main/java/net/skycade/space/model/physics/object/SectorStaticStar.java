@@ -0,0 +1,47 @@
+package net.skycade.space.model.physics.object;
+
+import net.minestom.server.coordinate.Pos;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.sector.contained.SectorStaticObject;
+import net.skycade.space.renderer.LodTier;
+import net.skycade.space.renderer.ParticleSink;
+import net.skycade.space.space.SpaceShipSpace;
+
+/**
+ * Represents a star that never moves, like the stars in the background of a sector. Drawn exactly
+ * like a {@link SectorStar}, but without any physics state.
+ *
+ * @author Jacob Cohen
+ */
+public class SectorStaticStar extends SectorStaticObject {
+
+  /**
+   * Constructor.
+   *
+   * @param position position of the star.
+   * @param radius   radius of the star.
+   */
+  public SectorStaticStar(SectorLocalPos position, double radius) {
+    super(position, radius);
+  }
+
+  @Override
+  public boolean isCelestialBackground() {
+    return true;
+  }
+
+  @Override
+  public int getParticleDemand(SpaceShipSpace space,
+                               Pos absoluteDrawSphereRadiusBoundObjectCenter, double distance,
+                               LodTier tier) {
+    return SphereParticles.getParticleDemand(this.getRadius(), space,
+        absoluteDrawSphereRadiusBoundObjectCenter, distance, tier);
+  }
+
+  @Override
+  public void draw(SpaceShipSpace space, Pos absoluteDrawSphereRadiusBoundObjectCenter,
+                   double distance, LodTier tier, int particleBudget, ParticleSink sink) {
+    SphereParticles.draw(this.getRadius(), space, absoluteDrawSphereRadiusBoundObjectCenter,
+        distance, tier, particleBudget, sink);
+  }
+}
@@ -0,0 +1,77 @@
+package net.skycade.space.model.physics.object;
+
+import net.minestom.server.coordinate.Pos;
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+import net.skycade.space.space.SpaceShipSpaceConstants;
+
+/**
+ * The horizon of a sphere drawn on the 'draw sphere', as seen from the center of the ship.
+ * <p>
+ * Only the cap of the sphere facing the ship is visible, so particles on the rest of it are just
+ * wasted packets. A point on the surface is visible when its normal points towards the ship by
+ * more than the sphere's radius over its distance; a thin band past that (see
+ * {@link PhysicsAndRenderingConstants#HORIZON_LIMB_BAND}) is kept so the outline doesn't
+ * flicker.
+ *
+ * @author Jacob Cohen
+ */
+final class SphereHorizon {
+
+  /**
+   * The direction from the center of the sphere to the center of the ship.
+   */
+  private final double towardsShipX;
+  private final double towardsShipY;
+  private final double towardsShipZ;
+
+  /**
+   * The smallest cosine of the angle between a visible point's normal and the direction to the
+   * ship.
+   */
+  private final double threshold;
+
+  /**
+   * Constructor.
+   *
+   * @param center the center of the sphere in the world.
+   * @param radius the radius of the sphere on the 'draw sphere'.
+   */
+  SphereHorizon(Pos center, double radius) {
+    Pos ship = SpaceShipSpaceConstants.THEORETICAL_CENTER_OF_SHIP;
+    double dx = ship.x() - center.x();
+    double dy = ship.y() - center.y();
+    double dz = ship.z() - center.z();
+    double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+    this.towardsShipX = dx / distance;
+    this.towardsShipY = dy / distance;
+    this.towardsShipZ = dz / distance;
+    if (radius >= distance) {
+      // the ship is inside the sphere, so there's no horizon to speak of
+      this.threshold = Double.NEGATIVE_INFINITY;
+    } else {
+      this.threshold = radius / distance - PhysicsAndRenderingConstants.HORIZON_LIMB_BAND;
+    }
+  }
+
+  /**
+   * Get the fraction of the sphere's surface that can be seen from the ship.
+   *
+   * @return the visible fraction of the surface, between 0 and 1.
+   */
+  double visibleFraction() {
+    // the area of a spherical cap is proportional to its height
+    return Math.min(1, Math.max(0, (1 - threshold) / 2));
+  }
+
+  /**
+   * Check whether a point on the surface of the sphere can be seen from the ship.
+   *
+   * @param normalX the x component of the (unit) normal of the sphere at the point.
+   * @param normalY the y component of the normal.
+   * @param normalZ the z component of the normal.
+   * @return whether the point is on the visible side of the sphere (or in the limb band).
+   */
+  boolean isVisible(double normalX, double normalY, double normalZ) {
+    return normalX * towardsShipX + normalY * towardsShipY + normalZ * towardsShipZ >= threshold;
+  }
+}
@@ -0,0 +1,211 @@
+package net.skycade.space.model.physics.object;
+
+import net.minestom.server.coordinate.Pos;
+import net.skycade.space.model.sector.contained.SectorContainedObject;
+import net.skycade.space.renderer.DotParticles;
+import net.skycade.space.renderer.LodTier;
+import net.skycade.space.renderer.ParticleSink;
+import net.skycade.space.space.SpaceShipSpace;
+import net.skycade.space.space.SpaceShipSpaceConstants;
+
+/**
+ * The particles that make up a spherical object, shared by planets and every kind of star.
+ * <p>
+ * How an object is drawn depends on its {@link LodTier}, which the renderer picks once per frame
+ * from how big the object looks from the ship.
+ *
+ * @author Jacob Cohen
+ */
+final class SphereParticles {
+
+  private SphereParticles() {
+  }
+
+  /**
+   * Draws a spherical object.
+   *
+   * @param radius                                    radius of the object.
+   * @param space                                     space to draw the object in.
+   * @param absoluteDrawSphereRadiusBoundObjectCenter position of the object on the surface of the
+   *                                                  'draw sphere', see
+   *                                                  {@link SectorContainedObject#draw(
+   *                                                  SpaceShipSpace, Pos, double, LodTier, int,
+   *                                                  ParticleSink)}.
+   * @param distance                                  how far the object is from the ship, in
+   *                                                  meters.
+   * @param tier                                      the detail to draw the object with.
+   * @param particleBudget                            the most particles to draw.
+   * @param sink                                      where to draw the particles.
+   */
+  static void draw(double radius, SpaceShipSpace space,
+                   Pos absoluteDrawSphereRadiusBoundObjectCenter, double distance, LodTier tier,
+                   int particleBudget, ParticleSink sink) {
+    // calculate the radius of the object on the surface of the 'draw sphere' (since
+    // the object is spherical, we need the radius of it to render a sphere)
+    double radiusOfObjectOnDrawSphere = radiusOnDrawSphere(radius, distance);
+
+    Pos objectCenterInWorldRelativeToCenterOfShip = absoluteDrawSphereRadiusBoundObjectCenter.add(
+        SpaceShipSpaceConstants.THEORETICAL_CENTER_OF_SHIP);
+
+    switch (tier) {
+      case DOT -> DotParticles.draw(space.getSpaceShipReference().getVelocity(),
+          objectCenterInWorldRelativeToCenterOfShip.x(),
+          objectCenterInWorldRelativeToCenterOfShip.y(),
+          objectCenterInWorldRelativeToCenterOfShip.z(), particleBudget, sink);
+      case IMPOSTOR -> calculateParticlePositionsImpostor(objectCenterInWorldRelativeToCenterOfShip,
+          radiusOfObjectOnDrawSphere, tier.particleCount(radiusOfObjectOnDrawSphere),
+          particleBudget, sink);
+      default -> calculateParticlePositions3DBoundToDrawCircleRadius(
+          objectCenterInWorldRelativeToCenterOfShip, radiusOfObjectOnDrawSphere,
+          tier.particleCount(radiusOfObjectOnDrawSphere), particleBudget, sink);
+    }
+  }
+
+  /**
+   * Get how many particles a spherical object would like to be drawn with, see
+   * {@link SectorContainedObject#getParticleDemand(SpaceShipSpace, Pos, double, LodTier)}.
+   *
+   * @param radius                                    radius of the object.
+   * @param space                                     space to draw the object in.
+   * @param absoluteDrawSphereRadiusBoundObjectCenter position of the object on the surface of the
+   *                                                  'draw sphere'.
+   * @param distance                                  how far the object is from the ship, in
+   *                                                  meters.
+   * @param tier                                      the detail to draw the object with.
+   * @return the number of particles the object would draw with no budget.
+   */
+  static int getParticleDemand(double radius, SpaceShipSpace space,
+                               Pos absoluteDrawSphereRadiusBoundObjectCenter, double distance,
+                               LodTier tier) {
+    double radiusOfObjectOnDrawSphere = radiusOnDrawSphere(radius, distance);
+    switch (tier) {
+      case DOT -> {
+        return DotParticles.particleCount(space.getSpaceShipReference().getVelocity());
+      }
+      case IMPOSTOR -> {
+        return tier.particleCount(radiusOfObjectOnDrawSphere);
+      }
+      default -> {
+        int particleCount = FibonacciSphere.tier(tier.particleCount(radiusOfObjectOnDrawSphere));
+        SphereHorizon horizon = new SphereHorizon(absoluteDrawSphereRadiusBoundObjectCenter.add(
+            SpaceShipSpaceConstants.THEORETICAL_CENTER_OF_SHIP), radiusOfObjectOnDrawSphere);
+        return (int) Math.ceil(particleCount * horizon.visibleFraction());
+      }
+    }
+  }
+
+  /**
+   * Get the radius of an object on the surface of the 'draw sphere'.
+   */
+  private static double radiusOnDrawSphere(double radius, double distance) {
+    return radius * SpaceShipSpaceConstants.DRAW_ON_CIRCLE_RADIUS / distance;
+  }
+
+  /**
+   * Draws an object as a flat disc facing the ship: only its outline.
+   *
+   * @param objectCenterInWorldRelativeToShip the center of the object in the minecraft world,
+   *                                          relative to the center of the ship
+   * @param radiusOfObjectOnDrawSphereSurface the radius of the object on the surface of the
+   *                                          'draw sphere'
+   * @param particleCount                     the number of particles in the outline
+   * @param particleBudget                    the most particles to draw
+   * @param sink                              where to draw the particles
+   */
+  private static void calculateParticlePositionsImpostor(
+      Pos objectCenterInWorldRelativeToShip, double radiusOfObjectOnDrawSphereSurface,
+      int particleCount, int particleBudget, ParticleSink sink) {
+    Pos ship = SpaceShipSpaceConstants.THEORETICAL_CENTER_OF_SHIP;
+    double normalX = ship.x() - objectCenterInWorldRelativeToShip.x();
+    double normalY = ship.y() - objectCenterInWorldRelativeToShip.y();
+    double normalZ = ship.z() - objectCenterInWorldRelativeToShip.z();
+    double normalLength = Math.sqrt(normalX * normalX + normalY * normalY + normalZ * normalZ);
+    normalX /= normalLength;
+    normalY /= normalLength;
+    normalZ /= normalLength;
+
+    // two directions across the disc: one across the normal and the world's up (or x, if the
+    // object is straight above or below), and one across both of those
+    double acrossX;
+    double acrossY;
+    double acrossZ;
+    if (Math.abs(normalY) < 0.99) {
+      acrossX = -normalZ;
+      acrossY = 0;
+      acrossZ = normalX;
+    } else {
+      acrossX = 0;
+      acrossY = normalZ;
+      acrossZ = -normalY;
+    }
+    double acrossLength = Math.sqrt(acrossX * acrossX + acrossY * acrossY + acrossZ * acrossZ);
+    acrossX /= acrossLength;
+    acrossY /= acrossLength;
+    acrossZ /= acrossLength;
+    double otherX = normalY * acrossZ - normalZ * acrossY;
+    double otherY = normalZ * acrossX - normalX * acrossZ;
+    double otherZ = normalX * acrossY - normalY * acrossX;
+
+    // lay out fewer points rather than leaving a gap in the outline
+    int count = Math.min(particleCount, particleBudget);
+    double radius = radiusOfObjectOnDrawSphereSurface;
+    for (int i = 0; i < count; i++) {
+      double angle = 2 * Math.PI * i / count;
+      double cos = Math.cos(angle) * radius;
+      double sin = Math.sin(angle) * radius;
+      sink.particle(objectCenterInWorldRelativeToShip.x() + acrossX * cos + otherX * sin,
+          objectCenterInWorldRelativeToShip.y() + acrossY * cos + otherY * sin,
+          objectCenterInWorldRelativeToShip.z() + acrossZ * cos + otherZ * sin, 1);
+    }
+  }
+
+  /**
+   * Draws a spherical object in the minecraft world.
+   *
+   * @param objectCenterInWorldRelativeToShip the center of the object in the minecraft world,
+   *                                          relative to the center of the ship
+   * @param radiusOfObjectOnDrawSphereSurface the radius of the object on the surface of the
+   *                                          'draw sphere'
+   * @param particleCount                     the number of particles to lay out over the sphere,
+   *                                          before they're culled by the horizon
+   * @param particleBudget                    the most particles to draw
+   * @param sink                              where to draw the particles
+   */
+  private static void calculateParticlePositions3DBoundToDrawCircleRadius(
+      Pos objectCenterInWorldRelativeToShip, double radiusOfObjectOnDrawSphereSurface,
+      int particleCount, int particleBudget, ParticleSink sink) {
+    // the points of a unit sphere are shared, so this only has to scale and move them; if the
+    // budget is tight, lay out fewer of them rather than dropping some of the ones laid out
+    SphereHorizon horizon =
+        new SphereHorizon(objectCenterInWorldRelativeToShip, radiusOfObjectOnDrawSphereSurface);
+    int tier = FibonacciSphere.tierWithinBudget(particleCount, particleBudget,
+        horizon.visibleFraction());
+    double[] unitPoints = FibonacciSphere.unitPoints(tier);
+    double radius = radiusOfObjectOnDrawSphereSurface;
+    double centerX = objectCenterInWorldRelativeToShip.x();
+    double centerY = objectCenterInWorldRelativeToShip.y();
+    double centerZ = objectCenterInWorldRelativeToShip.z();
+
+    // draw the particles bound to the 'draw sphere' (we are given the center of the object for
+    // reference)
+    int drawn = 0;
+
+    for (int i = 0; i < tier; i++) {
+      double normalX = unitPoints[i * 3];
+      double normalY = unitPoints[i * 3 + 1];
+      double normalZ = unitPoints[i * 3 + 2];
+
+      // if the particle is on the far side of the object, the ship can't see it, so don't
+      // draw it
+      if (!horizon.isVisible(normalX, normalY, normalZ)) {
+        continue;
+      }
+      if (drawn == particleBudget) {
+        break;
+      }
+      sink.particle(centerX + normalX * radius, centerY + normalY * radius,
+          centerZ + normalZ * radius, 1);
+      drawn++;
+    }
+  }
+}
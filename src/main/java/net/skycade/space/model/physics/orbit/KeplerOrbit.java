@@ -0,0 +1,198 @@
+package net.skycade.space.model.physics.orbit;
+
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+
+/**
+ * A fixed Keplerian orbit, described by its orbital elements.
+ * <p>
+ * Bodies on such an orbit are "on rails": instead of being integrated every tick, their offset
+ * from the body they orbit is worked out in closed form from the simulation time, by solving
+ * Kepler's equation. That costs the same no matter how much time has passed, and nothing at all
+ * for bodies nobody looks at.
+ * <p>
+ * The reference plane is the sector's x-z plane (the y-axis is its normal), and angles are
+ * measured from the +x axis.
+ *
+ * @author Jacob Cohen
+ */
+public class KeplerOrbit {
+
+  /**
+   * The most Newton iterations used to solve Kepler's equation; it converges in 3-5 for all but
+   * the most eccentric orbits.
+   */
+  private static final int MAX_KEPLER_ITERATIONS = 16;
+
+  private final double semiMajorAxis;
+  private final double eccentricity;
+  private final double meanAnomalyAtEpoch;
+  private final double gravitationalParameter;
+
+  /**
+   * The mean motion (radians per second).
+   */
+  private final double meanMotion;
+
+  /**
+   * The semi-minor axis.
+   */
+  private final double semiMinorAxis;
+
+  /**
+   * The unit vector towards periapsis.
+   */
+  private final double periapsisX;
+  private final double periapsisY;
+  private final double periapsisZ;
+
+  /**
+   * The unit vector 90 degrees ahead of periapsis, in the orbital plane.
+   */
+  private final double perpendicularX;
+  private final double perpendicularY;
+  private final double perpendicularZ;
+
+  /**
+   * Constructor.
+   *
+   * @param semiMajorAxis            the semi-major axis, in meters.
+   * @param eccentricity             the eccentricity, in [0, 1).
+   * @param inclination              the inclination to the sector's x-z plane, in radians.
+   * @param longitudeOfAscendingNode the longitude of the ascending node, in radians.
+   * @param argumentOfPeriapsis      the argument of periapsis, in radians.
+   * @param meanAnomalyAtEpoch       the mean anomaly at simulation time 0, in radians.
+   * @param gravitationalParameter   G * (mass of the primary + mass of the body), in m^3/s^2.
+   */
+  public KeplerOrbit(double semiMajorAxis, double eccentricity, double inclination,
+                     double longitudeOfAscendingNode, double argumentOfPeriapsis,
+                     double meanAnomalyAtEpoch, double gravitationalParameter) {
+    if (semiMajorAxis <= 0) {
+      throw new IllegalArgumentException("The semi-major axis must be positive");
+    }
+    if (eccentricity < 0 || eccentricity >= 1) {
+      throw new IllegalArgumentException("Only elliptical orbits (0 <= e < 1) are supported");
+    }
+    if (gravitationalParameter <= 0) {
+      throw new IllegalArgumentException("The gravitational parameter must be positive");
+    }
+
+    this.semiMajorAxis = semiMajorAxis;
+    this.eccentricity = eccentricity;
+    this.meanAnomalyAtEpoch = meanAnomalyAtEpoch;
+    this.gravitationalParameter = gravitationalParameter;
+    this.meanMotion = Math.sqrt(gravitationalParameter / Math.pow(semiMajorAxis, 3));
+    this.semiMinorAxis = semiMajorAxis * Math.sqrt(1 - eccentricity * eccentricity);
+
+    double cosNode = Math.cos(longitudeOfAscendingNode);
+    double sinNode = Math.sin(longitudeOfAscendingNode);
+    double cosPeriapsis = Math.cos(argumentOfPeriapsis);
+    double sinPeriapsis = Math.sin(argumentOfPeriapsis);
+    double cosInclination = Math.cos(inclination);
+    double sinInclination = Math.sin(inclination);
+
+    // the usual perifocal frame, with the reference plane's normal (z in the textbooks) mapped
+    // onto the sector's y-axis
+    this.periapsisX = cosNode * cosPeriapsis - sinNode * sinPeriapsis * cosInclination;
+    this.periapsisZ = sinNode * cosPeriapsis + cosNode * sinPeriapsis * cosInclination;
+    this.periapsisY = sinPeriapsis * sinInclination;
+    this.perpendicularX = -cosNode * sinPeriapsis - sinNode * cosPeriapsis * cosInclination;
+    this.perpendicularZ = -sinNode * sinPeriapsis + cosNode * cosPeriapsis * cosInclination;
+    this.perpendicularY = cosPeriapsis * sinInclination;
+  }
+
+  /**
+   * A circular orbit around a primary.
+   *
+   * @param radius       the radius of the orbit, in meters.
+   * @param primaryMass  the mass of the body being orbited, in kilograms.
+   * @param inclination  the inclination to the sector's x-z plane, in radians.
+   * @param initialAngle where on the orbit the body is at simulation time 0, in radians.
+   * @return the orbit.
+   */
+  public static KeplerOrbit circular(double radius, double primaryMass, double inclination,
+                                     double initialAngle) {
+    return new KeplerOrbit(radius, 0, inclination, 0, 0, initialAngle,
+        PhysicsAndRenderingConstants.GRAVITATIONAL_CONSTANT * primaryMass);
+  }
+
+  /**
+   * Work out the body's offset from its primary, and its velocity relative to it, at the given
+   * simulation time.
+   *
+   * @param timeSeconds the simulation time, in seconds.
+   * @param out         receives the offset (x, y, z, in meters) followed by the velocity (x, y,
+   *                    z, in meters per second); must hold at least 6 values.
+   */
+  public void sample(double timeSeconds, double[] out) {
+    double meanAnomaly =
+        Math.IEEEremainder(meanAnomalyAtEpoch + meanMotion * timeSeconds, 2 * Math.PI);
+
+    // solve Kepler's equation (M = E - e sin E) for the eccentric anomaly with Newton's method
+    double eccentricAnomaly = eccentricity < 0.8 ? meanAnomaly : Math.copySign(Math.PI,
+        meanAnomaly);
+    for (int iteration = 0; iteration < MAX_KEPLER_ITERATIONS; iteration++) {
+      double error = eccentricAnomaly - eccentricity * Math.sin(eccentricAnomaly) - meanAnomaly;
+      eccentricAnomaly -= error / (1 - eccentricity * Math.cos(eccentricAnomaly));
+      if (Math.abs(error) < 1e-12) {
+        break;
+      }
+    }
+
+    double cosAnomaly = Math.cos(eccentricAnomaly);
+    double sinAnomaly = Math.sin(eccentricAnomaly);
+
+    // position in the orbital plane
+    double alongPeriapsis = semiMajorAxis * (cosAnomaly - eccentricity);
+    double alongPerpendicular = semiMinorAxis * sinAnomaly;
+
+    // velocity in the orbital plane
+    double distance = semiMajorAxis * (1 - eccentricity * cosAnomaly);
+    double speedFactor = Math.sqrt(gravitationalParameter * semiMajorAxis) / distance;
+    double velocityAlongPeriapsis = -speedFactor * sinAnomaly;
+    double velocityAlongPerpendicular =
+        speedFactor * Math.sqrt(1 - eccentricity * eccentricity) * cosAnomaly;
+
+    out[0] = alongPeriapsis * periapsisX + alongPerpendicular * perpendicularX;
+    out[1] = alongPeriapsis * periapsisY + alongPerpendicular * perpendicularY;
+    out[2] = alongPeriapsis * periapsisZ + alongPerpendicular * perpendicularZ;
+    out[3] = velocityAlongPeriapsis * periapsisX + velocityAlongPerpendicular * perpendicularX;
+    out[4] = velocityAlongPeriapsis * periapsisY + velocityAlongPerpendicular * perpendicularY;
+    out[5] = velocityAlongPeriapsis * periapsisZ + velocityAlongPerpendicular * perpendicularZ;
+  }
+
+  /**
+   * Get the semi-major axis.
+   *
+   * @return the semi-major axis, in meters.
+   */
+  public double getSemiMajorAxis() {
+    return semiMajorAxis;
+  }
+
+  /**
+   * Get the eccentricity.
+   *
+   * @return the eccentricity.
+   */
+  public double getEccentricity() {
+    return eccentricity;
+  }
+
+  /**
+   * Get the farthest the body ever gets from its primary.
+   *
+   * @return the apoapsis distance, in meters.
+   */
+  public double getApoapsisDistance() {
+    return semiMajorAxis * (1 + eccentricity);
+  }
+
+  /**
+   * Get the time a full orbit takes.
+   *
+   * @return the orbital period, in seconds.
+   */
+  public double getPeriodSeconds() {
+    return 2 * Math.PI / meanMotion;
+  }
+}
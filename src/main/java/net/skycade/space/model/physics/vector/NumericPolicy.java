@@ -0,0 +1,73 @@
+package net.skycade.space.model.physics.vector;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * The precision exact ({@link BigDecimal}) quantities are kept at.
+ * <p>
+ * Without a bound, every addition and multiplication can grow the number of digits a value
+ * carries, so state that is updated over and over (like a sector's floating origin) would get a
+ * little slower to work with every time. Each kind of quantity gets a tier instead: a number of
+ * significant digits, and a number of decimal places below which nothing is kept.
+ *
+ * @author Jacob Cohen
+ */
+public enum NumericPolicy {
+
+  /**
+   * Positions, in meters: enough digits for the whole universe, down to a micrometer.
+   */
+  POSITION(new MathContext(40, RoundingMode.HALF_EVEN), 6),
+
+  /**
+   * Velocities, accelerations and other vectors, down to a nanometer (per second).
+   */
+  VELOCITY(MathContext.DECIMAL128, 9),
+
+  /**
+   * Angles, in radians.
+   */
+  ANGLE(new MathContext(20, RoundingMode.HALF_EVEN), 18);
+
+  private final MathContext mathContext;
+  private final int maxScale;
+
+  NumericPolicy(MathContext mathContext, int maxScale) {
+    this.mathContext = mathContext;
+    this.maxScale = maxScale;
+  }
+
+  /**
+   * Get the math context for operations that can't be exact (division, roots, ...).
+   *
+   * @return the math context.
+   */
+  public MathContext mathContext() {
+    return mathContext;
+  }
+
+  /**
+   * Get the largest number of decimal places a value is kept at.
+   *
+   * @return the largest scale.
+   */
+  public int maxScale() {
+    return maxScale;
+  }
+
+  /**
+   * Bring a value within this tier's precision.
+   *
+   * @param value the value.
+   * @return the value, rounded if it had more digits than the tier allows.
+   */
+  public BigDecimal round(BigDecimal value) {
+    BigDecimal rounded = value.round(mathContext);
+    if (rounded.scale() > maxScale) {
+      rounded = rounded.setScale(maxScale, mathContext.getRoundingMode());
+    }
+    return rounded;
+  }
+}
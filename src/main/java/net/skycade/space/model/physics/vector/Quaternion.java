@@ -0,0 +1,118 @@
+package net.skycade.space.model.physics.vector;
+
+/**
+ * A rotation, as a unit quaternion.
+ * <p>
+ * Orientations are kept as the rotation from the sector's axes to the object's own axes (so for
+ * the ship, from the sector to what the ship sees). In the object's own axes, -z is forward, +x
+ * is right and -y is up; pitch turns around x, yaw around y and roll around z.
+ *
+ * @param w the scalar part.
+ * @param x the x part.
+ * @param y the y part.
+ * @param z the z part.
+ * @author Jacob Cohen
+ */
+public record Quaternion(double w, double x, double y, double z) {
+
+  public static final Quaternion IDENTITY = new Quaternion(1, 0, 0, 0);
+
+  /**
+   * Build the orientation for the given yaw, pitch and roll, applied in that order.
+   *
+   * @param pitch the pitch, in radians.
+   * @param yaw   the yaw, in radians.
+   * @param roll  the roll, in radians.
+   * @return the orientation.
+   */
+  public static Quaternion fromEuler(double pitch, double yaw, double roll) {
+    Quaternion yawRotation = new Quaternion(Math.cos(yaw / 2), 0, -Math.sin(yaw / 2), 0);
+    Quaternion pitchRotation = new Quaternion(Math.cos(pitch / 2), Math.sin(pitch / 2), 0, 0);
+    Quaternion rollRotation = new Quaternion(Math.cos(roll / 2), 0, 0, Math.sin(roll / 2));
+    return rollRotation.multiply(pitchRotation).multiply(yawRotation);
+  }
+
+  /**
+   * Build the orientation for the given yaw, pitch and roll, applied in that order.
+   *
+   * @param rotation the rotation (x: pitch, y: yaw, z: roll).
+   * @return the orientation.
+   */
+  public static Quaternion fromEuler(SectorLocalPoint rotation) {
+    return fromEuler(rotation.x(), rotation.y(), rotation.z());
+  }
+
+  /**
+   * Multiply this quaternion by another one; the result rotates by the other one first, then by
+   * this one.
+   *
+   * @param other the other quaternion.
+   * @return the product.
+   */
+  public Quaternion multiply(Quaternion other) {
+    return new Quaternion(w * other.w - x * other.x - y * other.y - z * other.z,
+        w * other.x + x * other.w + y * other.z - z * other.y,
+        w * other.y - x * other.z + y * other.w + z * other.x,
+        w * other.z + x * other.y - y * other.x + z * other.w);
+  }
+
+  /**
+   * Scale the quaternion back to unit length.
+   *
+   * @return the normalized quaternion, or the identity if this one is zero.
+   */
+  public Quaternion normalize() {
+    double length = Math.sqrt(w * w + x * x + y * y + z * z);
+    if (length == 0) {
+      return IDENTITY;
+    }
+    return new Quaternion(w / length, x / length, y / length, z / length);
+  }
+
+  /**
+   * Blend between this orientation and another one, along the shortest way round.
+   *
+   * @param other the other orientation.
+   * @param alpha 0 for this orientation, 1 for the other.
+   * @return the blended orientation.
+   */
+  public Quaternion nlerp(Quaternion other, double alpha) {
+    // q and -q are the same rotation, pick the one closest to this
+    double sign = w * other.w + x * other.x + y * other.y + z * other.z < 0 ? -1 : 1;
+    return new Quaternion(w + (sign * other.w - w) * alpha, x + (sign * other.x - x) * alpha,
+        y + (sign * other.y - y) * alpha, z + (sign * other.z - z) * alpha).normalize();
+  }
+
+  /**
+   * Write the rotation matrix of this orientation, row by row. Multiplying a direction in the
+   * sector by it gives the direction in the object's own axes.
+   *
+   * @param out receives the 9 entries of the matrix.
+   */
+  public void toRotationMatrix(double[] out) {
+    out[0] = 1 - 2 * (y * y + z * z);
+    out[1] = 2 * (x * y - w * z);
+    out[2] = 2 * (x * z + w * y);
+    out[3] = 2 * (x * y + w * z);
+    out[4] = 1 - 2 * (x * x + z * z);
+    out[5] = 2 * (y * z - w * x);
+    out[6] = 2 * (x * z - w * y);
+    out[7] = 2 * (y * z + w * x);
+    out[8] = 1 - 2 * (x * x + y * y);
+  }
+
+  /**
+   * Get the yaw, pitch and roll that give this orientation (see
+   * {@link #fromEuler(double, double, double)}). Only meant for display and old callers; the
+   * angles jump around near straight up and straight down.
+   *
+   * @return the rotation (x: pitch, y: yaw, z: roll).
+   */
+  public SectorLocalPos toEuler() {
+    double pitchSin = 2 * (y * z + w * x);
+    double pitch = Math.asin(Math.max(-1, Math.min(1, pitchSin)));
+    double yaw = Math.atan2(2 * (x * z - w * y), 1 - 2 * (x * x + y * y));
+    double roll = Math.atan2(-2 * (x * y - w * z), 1 - 2 * (x * x + z * z));
+    return new SectorLocalPos(pitch, yaw, roll);
+  }
+}
@@ -9,6 +9,21 @@ public record SectorContainedPos(BigDecimal x, BigDecimal y, BigDecimal z)
   public static final SectorContainedPos ZERO =
       new SectorContainedPos(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
 
+  /**
+   * The math context for operations that can't be exact.
+   */
+  private static final MathContext MATH_CONTEXT = NumericPolicy.POSITION.mathContext();
+
+  /**
+   * Keeps every component within the {@link NumericPolicy#POSITION} tier, so results of any
+   * operation on the vector stay bounded in size.
+   */
+  public SectorContainedPos {
+    x = NumericPolicy.POSITION.round(x);
+    y = NumericPolicy.POSITION.round(y);
+    z = NumericPolicy.POSITION.round(z);
+  }
+
   @Override
   public SectorContainedPos add(SectorContainedPoint other) {
     return new SectorContainedPos(x.add(other.x()), y.add(other.y()), z.add(other.z()));
@@ -28,8 +43,8 @@ public record SectorContainedPos(BigDecimal x, BigDecimal y, BigDecimal z)
 
   @Override
   public SectorContainedPos div(SectorContainedPoint other) {
-    return new SectorContainedPos(x.divide(other.x(), MathContext.DECIMAL128),
-        y.divide(other.y(), MathContext.DECIMAL128), z.divide(other.z(), MathContext.DECIMAL128));
+    return new SectorContainedPos(x.divide(other.x(), MATH_CONTEXT),
+        y.divide(other.y(), MATH_CONTEXT), z.divide(other.z(), MATH_CONTEXT));
   }
 
   @Override
@@ -49,8 +64,8 @@ public record SectorContainedPos(BigDecimal x, BigDecimal y, BigDecimal z)
 
   @Override
   public SectorContainedPos div(BigDecimal x, BigDecimal y, BigDecimal z) {
-    return new SectorContainedPos(this.x.divide(x, MathContext.DECIMAL128),
-        this.y.divide(y, MathContext.DECIMAL128), this.z.divide(z, MathContext.DECIMAL128));
+    return new SectorContainedPos(this.x.divide(x, MATH_CONTEXT),
+        this.y.divide(y, MATH_CONTEXT), this.z.divide(z, MATH_CONTEXT));
   }
 
   @Override
@@ -60,8 +75,8 @@ public record SectorContainedPos(BigDecimal x, BigDecimal y, BigDecimal z)
 
   @Override
   public SectorContainedPos div(BigDecimal other) {
-    return new SectorContainedPos(x.divide(other, MathContext.DECIMAL128),
-        y.divide(other, MathContext.DECIMAL128), z.divide(other, MathContext.DECIMAL128));
+    return new SectorContainedPos(x.divide(other, MATH_CONTEXT),
+        y.divide(other, MATH_CONTEXT), z.divide(other, MATH_CONTEXT));
   }
 
   @Override
@@ -76,9 +91,9 @@ public record SectorContainedPos(BigDecimal x, BigDecimal y, BigDecimal z)
       return ZERO;
     }
 
-    return new SectorContainedPos(x.divide(this.length(), MathContext.DECIMAL128),
-        y.divide(this.length(), MathContext.DECIMAL128),
-        z.divide(this.length(), MathContext.DECIMAL128));
+    return new SectorContainedPos(x.divide(this.length(), MATH_CONTEXT),
+        y.divide(this.length(), MATH_CONTEXT),
+        z.divide(this.length(), MATH_CONTEXT));
   }
 
   @Override
@@ -98,7 +113,7 @@ public record SectorContainedPos(BigDecimal x, BigDecimal y, BigDecimal z)
 
   @Override
   public BigDecimal length() {
-    return x.pow(2).add(y.pow(2)).add(z.pow(2)).sqrt(MathContext.DECIMAL128);
+    return x.pow(2).add(y.pow(2)).add(z.pow(2)).sqrt(MATH_CONTEXT);
   }
 
   public SectorContainedPos distance(BigDecimal x, BigDecimal y, BigDecimal z) {
@@ -122,7 +137,7 @@ public record SectorContainedPos(BigDecimal x, BigDecimal y, BigDecimal z)
    * @return the distance between this point and the given point.
    */
   public BigDecimal distance(SectorContainedPos other) {
-    return BigDecimal.valueOf(distanceSquared(other).sqrt(MathContext.DECIMAL128).doubleValue());
+    return BigDecimal.valueOf(distanceSquared(other).sqrt(MATH_CONTEXT).doubleValue());
   }
 
   public SectorContainedVec toVector() {
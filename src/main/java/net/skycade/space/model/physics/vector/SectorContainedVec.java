@@ -3,7 +3,6 @@ package net.skycade.space.model.physics.vector;
 import ch.obermuhlner.math.big.BigDecimalMath;
 import java.math.BigDecimal;
 import java.math.MathContext;
-import java.math.RoundingMode;
 
 public record SectorContainedVec(BigDecimal x, BigDecimal y, BigDecimal z)
     implements SectorContainedPoint {
@@ -11,6 +10,21 @@ public record SectorContainedVec(BigDecimal x, BigDecimal y, BigDecimal z)
   public static final SectorContainedVec ZERO =
       new SectorContainedVec(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
 
+  /**
+   * The math context for operations that can't be exact.
+   */
+  private static final MathContext MATH_CONTEXT = NumericPolicy.VELOCITY.mathContext();
+
+  /**
+   * Keeps every component within the {@link NumericPolicy#VELOCITY} tier, so results of any
+   * operation on the vector stay bounded in size.
+   */
+  public SectorContainedVec {
+    x = NumericPolicy.VELOCITY.round(x);
+    y = NumericPolicy.VELOCITY.round(y);
+    z = NumericPolicy.VELOCITY.round(z);
+  }
+
   @Override
   public SectorContainedVec add(SectorContainedPoint other) {
     return new SectorContainedVec(x.add(other.x()), y.add(other.y()), z.add(other.z()));
@@ -30,8 +44,8 @@ public record SectorContainedVec(BigDecimal x, BigDecimal y, BigDecimal z)
 
   @Override
   public SectorContainedVec div(SectorContainedPoint other) {
-    return new SectorContainedVec(x.divide(other.x(), RoundingMode.HALF_UP),
-        y.divide(other.y(), RoundingMode.HALF_UP), z.divide(other.z(), RoundingMode.HALF_UP));
+    return new SectorContainedVec(x.divide(other.x(), MATH_CONTEXT),
+        y.divide(other.y(), MATH_CONTEXT), z.divide(other.z(), MATH_CONTEXT));
   }
 
   @Override
@@ -51,8 +65,8 @@ public record SectorContainedVec(BigDecimal x, BigDecimal y, BigDecimal z)
 
   @Override
   public SectorContainedVec div(BigDecimal x, BigDecimal y, BigDecimal z) {
-    return new SectorContainedVec(this.x.divide(x, RoundingMode.HALF_UP),
-        this.y.divide(y, RoundingMode.HALF_UP), this.z.divide(z, RoundingMode.HALF_UP));
+    return new SectorContainedVec(this.x.divide(x, MATH_CONTEXT),
+        this.y.divide(y, MATH_CONTEXT), this.z.divide(z, MATH_CONTEXT));
   }
 
   @Override
@@ -62,8 +76,8 @@ public record SectorContainedVec(BigDecimal x, BigDecimal y, BigDecimal z)
 
   @Override
   public SectorContainedVec div(BigDecimal other) {
-    return new SectorContainedVec(x.divide(other, RoundingMode.HALF_UP),
-        y.divide(other, RoundingMode.HALF_UP), z.divide(other, RoundingMode.HALF_UP));
+    return new SectorContainedVec(x.divide(other, MATH_CONTEXT),
+        y.divide(other, MATH_CONTEXT), z.divide(other, MATH_CONTEXT));
   }
 
   @Override
@@ -73,8 +87,8 @@ public record SectorContainedVec(BigDecimal x, BigDecimal y, BigDecimal z)
 
   @Override
   public SectorContainedVec normalize() {
-    return new SectorContainedVec(x.divide(length(), RoundingMode.HALF_UP),
-        y.divide(length(), RoundingMode.HALF_UP), z.divide(length(), RoundingMode.HALF_UP));
+    return new SectorContainedVec(x.divide(length(), MATH_CONTEXT),
+        y.divide(length(), MATH_CONTEXT), z.divide(length(), MATH_CONTEXT));
   }
 
   @Override
@@ -94,21 +108,23 @@ public record SectorContainedVec(BigDecimal x, BigDecimal y, BigDecimal z)
 
   public BigDecimal horizontalDirection() {
     // use trigonometry to calculate the horizontal direction
-    return BigDecimalMath.atan2(x, z, MathContext.DECIMAL128);
+    return NumericPolicy.ANGLE.round(
+        BigDecimalMath.atan2(x, z, NumericPolicy.ANGLE.mathContext()));
   }
 
   public BigDecimal verticalDirection() {
     // use trigonometry to calculate the vertical direction
-    BigDecimal horizontalLength =
-        BigDecimalMath.sqrt(x.multiply(x).multiply(z.multiply(z)), MathContext.DECIMAL128);
-    return BigDecimalMath.atan2(y, horizontalLength, MathContext.DECIMAL128);
+    BigDecimal horizontalLength = BigDecimalMath.sqrt(x.multiply(x).add(z.multiply(z)),
+        MATH_CONTEXT);
+    return NumericPolicy.ANGLE.round(
+        BigDecimalMath.atan2(y, horizontalLength, NumericPolicy.ANGLE.mathContext()));
   }
 
   public BigDecimal projectOnto(SectorContainedVec other) {
     if (other.length().equals(BigDecimal.ZERO)) {
       return BigDecimal.ZERO;
     }
-    return this.dot(other).divide(other.length(), MathContext.DECIMAL128);
+    return this.dot(other).divide(other.length(), MATH_CONTEXT);
   }
 
   public BigDecimal dot(SectorContainedVec other) {
@@ -120,7 +136,8 @@ public record SectorContainedVec(BigDecimal x, BigDecimal y, BigDecimal z)
         (x.equals(BigDecimal.ZERO) && y.compareTo(BigDecimal.ZERO) < 0))) {
       return BigDecimal.ZERO;
     }
-    return BigDecimalMath.atan2(y, x, MathContext.DECIMAL128);
+    return NumericPolicy.ANGLE.round(
+        BigDecimalMath.atan2(y, x, NumericPolicy.ANGLE.mathContext()));
   }
 
   public BigDecimal phi() {
@@ -128,7 +145,8 @@ public record SectorContainedVec(BigDecimal x, BigDecimal y, BigDecimal z)
         (x.equals(BigDecimal.ZERO) && z.compareTo(BigDecimal.ZERO) < 0))) {
       return BigDecimal.ZERO;
     }
-    return BigDecimalMath.atan2(z, x, MathContext.DECIMAL128);
+    return NumericPolicy.ANGLE.round(
+        BigDecimalMath.atan2(z, x, NumericPolicy.ANGLE.mathContext()));
   }
 
   @Override
@@ -0,0 +1,51 @@
+package net.skycade.space.model.physics.vector;
+
+/**
+ * A point within a sector, stored as primitive doubles relative to the sector's floating
+ * local origin.
+ * <p>
+ * Unlike {@link SectorContainedPoint}, these are meant to be used in the physics and rendering
+ * hot paths; exact values only live at the sector/universe level.
+ *
+ * @author Jacob Cohen
+ */
+public sealed interface SectorLocalPoint permits SectorLocalPos, SectorLocalVec {
+
+  double x();
+
+  double y();
+
+  double z();
+
+  SectorLocalPoint add(SectorLocalPoint other);
+
+  SectorLocalPoint sub(SectorLocalPoint other);
+
+  SectorLocalPoint mul(SectorLocalPoint other);
+
+  SectorLocalPoint div(SectorLocalPoint other);
+
+  SectorLocalPoint add(double x, double y, double z);
+
+  SectorLocalPoint sub(double x, double y, double z);
+
+  SectorLocalPoint mul(double x, double y, double z);
+
+  SectorLocalPoint div(double x, double y, double z);
+
+  SectorLocalPoint mul(double other);
+
+  SectorLocalPoint div(double other);
+
+  SectorLocalPoint negate();
+
+  SectorLocalPoint normalize();
+
+  SectorLocalPoint withX(double x);
+
+  SectorLocalPoint withY(double y);
+
+  SectorLocalPoint withZ(double z);
+
+  double length();
+}
@@ -0,0 +1,131 @@
+package net.skycade.space.model.physics.vector;
+
+/**
+ * A position within a sector, relative to the sector's floating local origin.
+ *
+ * @param x the x coordinate, in meters.
+ * @param y the y coordinate, in meters.
+ * @param z the z coordinate, in meters.
+ * @author Jacob Cohen
+ */
+public record SectorLocalPos(double x, double y, double z) implements SectorLocalPoint {
+
+  public static final SectorLocalPos ZERO = new SectorLocalPos(0, 0, 0);
+
+  @Override
+  public SectorLocalPos add(SectorLocalPoint other) {
+    return new SectorLocalPos(x + other.x(), y + other.y(), z + other.z());
+  }
+
+  @Override
+  public SectorLocalPos sub(SectorLocalPoint other) {
+    return new SectorLocalPos(x - other.x(), y - other.y(), z - other.z());
+  }
+
+  @Override
+  public SectorLocalPos mul(SectorLocalPoint other) {
+    return new SectorLocalPos(x * other.x(), y * other.y(), z * other.z());
+  }
+
+  @Override
+  public SectorLocalPos div(SectorLocalPoint other) {
+    return new SectorLocalPos(x / other.x(), y / other.y(), z / other.z());
+  }
+
+  @Override
+  public SectorLocalPos add(double x, double y, double z) {
+    return new SectorLocalPos(this.x + x, this.y + y, this.z + z);
+  }
+
+  @Override
+  public SectorLocalPos sub(double x, double y, double z) {
+    return new SectorLocalPos(this.x - x, this.y - y, this.z - z);
+  }
+
+  @Override
+  public SectorLocalPos mul(double x, double y, double z) {
+    return new SectorLocalPos(this.x * x, this.y * y, this.z * z);
+  }
+
+  @Override
+  public SectorLocalPos div(double x, double y, double z) {
+    return new SectorLocalPos(this.x / x, this.y / y, this.z / z);
+  }
+
+  @Override
+  public SectorLocalPos mul(double other) {
+    return new SectorLocalPos(x * other, y * other, z * other);
+  }
+
+  @Override
+  public SectorLocalPos div(double other) {
+    return new SectorLocalPos(x / other, y / other, z / other);
+  }
+
+  @Override
+  public SectorLocalPos negate() {
+    return new SectorLocalPos(-x, -y, -z);
+  }
+
+  @Override
+  public SectorLocalPos normalize() {
+    double length = length();
+    // if the vector is zero, return zero
+    if (length == 0) {
+      return ZERO;
+    }
+    return new SectorLocalPos(x / length, y / length, z / length);
+  }
+
+  @Override
+  public SectorLocalPos withX(double x) {
+    return new SectorLocalPos(x, y, z);
+  }
+
+  @Override
+  public SectorLocalPos withY(double y) {
+    return new SectorLocalPos(x, y, z);
+  }
+
+  @Override
+  public SectorLocalPos withZ(double z) {
+    return new SectorLocalPos(x, y, z);
+  }
+
+  @Override
+  public double length() {
+    return Math.sqrt(x * x + y * y + z * z);
+  }
+
+  /**
+   * Returns the squared distance between this point and the given point.
+   *
+   * @param other the other point.
+   * @return the squared distance between this point and the given point.
+   */
+  public double distanceSquared(SectorLocalPoint other) {
+    double dx = x - other.x();
+    double dy = y - other.y();
+    double dz = z - other.z();
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  /**
+   * Returns the distance between this point and the given point.
+   *
+   * @param other the other point.
+   * @return the distance between this point and the given point.
+   */
+  public double distance(SectorLocalPoint other) {
+    return Math.sqrt(distanceSquared(other));
+  }
+
+  public SectorLocalVec toVector() {
+    return new SectorLocalVec(x, y, z);
+  }
+
+  @Override
+  public String toString() {
+    return "SectorLocalPos{" + "x=" + x + ", y=" + y + ", z=" + z + '}';
+  }
+}
@@ -0,0 +1,141 @@
+package net.skycade.space.model.physics.vector;
+
+/**
+ * A vector (velocity, acceleration, angular velocity, ...) within a sector.
+ *
+ * @param x the x component.
+ * @param y the y component.
+ * @param z the z component.
+ * @author Jacob Cohen
+ */
+public record SectorLocalVec(double x, double y, double z) implements SectorLocalPoint {
+
+  public static final SectorLocalVec ZERO = new SectorLocalVec(0, 0, 0);
+
+  @Override
+  public SectorLocalVec add(SectorLocalPoint other) {
+    return new SectorLocalVec(x + other.x(), y + other.y(), z + other.z());
+  }
+
+  @Override
+  public SectorLocalVec sub(SectorLocalPoint other) {
+    return new SectorLocalVec(x - other.x(), y - other.y(), z - other.z());
+  }
+
+  @Override
+  public SectorLocalVec mul(SectorLocalPoint other) {
+    return new SectorLocalVec(x * other.x(), y * other.y(), z * other.z());
+  }
+
+  @Override
+  public SectorLocalVec div(SectorLocalPoint other) {
+    return new SectorLocalVec(x / other.x(), y / other.y(), z / other.z());
+  }
+
+  @Override
+  public SectorLocalVec add(double x, double y, double z) {
+    return new SectorLocalVec(this.x + x, this.y + y, this.z + z);
+  }
+
+  @Override
+  public SectorLocalVec sub(double x, double y, double z) {
+    return new SectorLocalVec(this.x - x, this.y - y, this.z - z);
+  }
+
+  @Override
+  public SectorLocalVec mul(double x, double y, double z) {
+    return new SectorLocalVec(this.x * x, this.y * y, this.z * z);
+  }
+
+  @Override
+  public SectorLocalVec div(double x, double y, double z) {
+    return new SectorLocalVec(this.x / x, this.y / y, this.z / z);
+  }
+
+  @Override
+  public SectorLocalVec mul(double other) {
+    return new SectorLocalVec(x * other, y * other, z * other);
+  }
+
+  @Override
+  public SectorLocalVec div(double other) {
+    return new SectorLocalVec(x / other, y / other, z / other);
+  }
+
+  @Override
+  public SectorLocalVec negate() {
+    return new SectorLocalVec(-x, -y, -z);
+  }
+
+  @Override
+  public SectorLocalVec normalize() {
+    double length = length();
+    // if the vector is zero, return zero
+    if (length == 0) {
+      return ZERO;
+    }
+    return new SectorLocalVec(x / length, y / length, z / length);
+  }
+
+  @Override
+  public SectorLocalVec withX(double x) {
+    return new SectorLocalVec(x, y, z);
+  }
+
+  @Override
+  public SectorLocalVec withY(double y) {
+    return new SectorLocalVec(x, y, z);
+  }
+
+  @Override
+  public SectorLocalVec withZ(double z) {
+    return new SectorLocalVec(x, y, z);
+  }
+
+  public double horizontalDirection() {
+    // use trigonometry to calculate the horizontal direction
+    return Math.atan2(x, z);
+  }
+
+  public double verticalDirection() {
+    // use trigonometry to calculate the vertical direction
+    double horizontalLength = Math.sqrt(x * x + z * z);
+    return Math.atan2(y, horizontalLength);
+  }
+
+  public double projectOnto(SectorLocalVec other) {
+    double otherLength = other.length();
+    if (otherLength == 0) {
+      return 0;
+    }
+    return this.dot(other) / otherLength;
+  }
+
+  public double dot(SectorLocalVec other) {
+    return x * other.x + y * other.y + z * other.z;
+  }
+
+  public double theta() {
+    if (x != 0 || y == 0) {
+      return 0;
+    }
+    return Math.atan2(y, x);
+  }
+
+  public double phi() {
+    if (x != 0 || z == 0) {
+      return 0;
+    }
+    return Math.atan2(z, x);
+  }
+
+  @Override
+  public double length() {
+    return Math.sqrt(x * x + y * y + z * z);
+  }
+
+  @Override
+  public String toString() {
+    return "SectorLocalVec{" + "x=" + x + ", y=" + y + ", z=" + z + '}';
+  }
+}
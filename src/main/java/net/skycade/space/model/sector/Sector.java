@@ -1,8 +1,19 @@
 package net.skycade.space.model.sector;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+import net.skycade.space.model.physics.PhysicsObject;
+import net.skycade.space.model.physics.gravity.CrossoverGravitySolver;
+import net.skycade.space.model.physics.gravity.GravitySolver;
+import net.skycade.space.model.physics.vector.SectorContainedPos;
+import net.skycade.space.model.physics.vector.SectorLocalPoint;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.physics.vector.SectorLocalVec;
 import net.skycade.space.model.sector.contained.SectorContainedObject;
+import net.skycade.space.model.sector.contained.SectorStaticObject;
 
 /**
  * Represents a sector in the space game.
@@ -13,6 +24,11 @@ import net.skycade.space.model.sector.contained.SectorContainedObject;
  * it's a 3D space that was defined by the game's developers.
  * <p>
  * All sectors are SPHERICAL, and the radius of the sector is defined by the {@link #radius} constant.
+ * <p>
+ * Objects inside the sector keep their positions as doubles relative to the sector's floating
+ * {@link #localOrigin}. The origin itself is exact ({@link SectorContainedPos}, relative to the
+ * sector's center) and is shifted towards the ship as it travels, so double precision is always
+ * spent where it matters.
  *
  * @author Jacob Cohen
  */
@@ -30,12 +46,68 @@ public class Sector {
    */
   private final List<SectorContainedObject> containedObjects;
 
+  /**
+   * The physics state of the objects contained in this sector, stored column by column.
+   */
+  private final SectorBodyStore bodies;
+
+  /**
+   * The static objects contained in this sector, which have no body in {@link #bodies}.
+   */
+  private final List<SectorStaticObject> staticObjects;
+
+  /**
+   * The static objects contained in this sector that are part of the sky (see
+   * {@link SectorStaticObject#isCelestialBackground()}). They aren't in {@link #spatialIndex}.
+   */
+  private final List<SectorStaticObject> backgroundObjects;
+
+  /**
+   * Changes whenever {@link #backgroundObjects} do.
+   */
+  private long backgroundVersion;
+
+  /**
+   * Where the objects contained in this sector are, for finding the ones near a point. Objects
+   * that are part of the sky aren't in it.
+   */
+  private final SectorSpatialIndex spatialIndex;
+
+  /**
+   * The solver for the mutual gravity between the objects in this sector, or null for no gravity.
+   */
+  private GravitySolver gravitySolver;
+
+  /**
+   * Whether the gravity in {@link #bodies} may be out of date, e.g. because bodies were added or
+   * removed since it was last solved. Gravity is normally solved at the end of every step, for the
+   * next one, so bodies moved by hand in between get one step of the gravity from where they were.
+   */
+  private boolean gravityStale = true;
+
+  /**
+   * The work for a range of awake bodies in a step, kept so that a step doesn't create it again.
+   */
+  private final SectorPhysicsExecutor.RangeTask integrateRange = this::integrateRange;
+  private final SectorPhysicsExecutor.RangeTask finishRange = this::finishRange;
+
+  /**
+   * The fixed-timestep clock driving the sector's physics.
+   */
+  private final SectorClock clock;
+
   /**
    * The radius of the sector.
    * Meters.
    */
   private final BigDecimal radius;
 
+  /**
+   * The floating origin that contained objects' positions are relative to.
+   * Exact, relative to the center of the sector.
+   */
+  private SectorContainedPos localOrigin;
+
   /**
    * Constructor.
    *
@@ -48,6 +120,17 @@ public class Sector {
     this.position = position;
     this.containedObjects = containedObjects;
     this.radius = radius;
+    this.localOrigin = SectorContainedPos.ZERO;
+    this.bodies = new SectorBodyStore(16);
+    this.staticObjects = new ArrayList<>();
+    this.backgroundObjects = new ArrayList<>();
+    this.spatialIndex = new SectorSpatialIndex();
+    this.gravitySolver = new CrossoverGravitySolver();
+    this.clock = new SectorClock(PhysicsAndRenderingConstants.PHYSICS_DELAY_MILLIS,
+        PhysicsAndRenderingConstants.MAX_PHYSICS_SUBSTEPS);
+    for (SectorContainedObject object : containedObjects) {
+      this.track(object);
+    }
   }
 
   /**
@@ -75,6 +158,261 @@ public class Sector {
    */
   public void addContainedObject(SectorContainedObject object) {
     this.containedObjects.add(object);
+    this.track(object);
+  }
+
+  /**
+   * Start simulating an object that was added to this sector.
+   *
+   * @param object The object.
+   */
+  private void track(SectorContainedObject object) {
+    if (object instanceof SectorStaticObject staticObject) {
+      this.staticObjects.add(staticObject);
+      if (staticObject.isCelestialBackground()) {
+        this.backgroundObjects.add(staticObject);
+        this.backgroundVersion++;
+        return;
+      }
+    } else {
+      this.bodies.adopt(object);
+      this.gravityStale = true;
+    }
+    this.spatialIndex.add(object);
+  }
+
+  /**
+   * Remove an object from this sector. The object keeps its physics state.
+   *
+   * @param object The object to remove.
+   */
+  public void removeContainedObject(SectorContainedObject object) {
+    if (!this.containedObjects.remove(object)) {
+      return;
+    }
+    this.spatialIndex.remove(object);
+    if (object instanceof SectorStaticObject staticObject) {
+      this.staticObjects.remove(staticObject);
+      if (this.backgroundObjects.remove(staticObject)) {
+        this.backgroundVersion++;
+      }
+    } else {
+      object.detachFromBodyStore();
+      this.gravityStale = true;
+    }
+  }
+
+  /**
+   * Get the store holding the physics state of the objects contained in this sector. Static
+   * objects aren't in it.
+   *
+   * @return The body store.
+   */
+  public SectorBodyStore getBodies() {
+    return bodies;
+  }
+
+  /**
+   * Get the index of where the objects contained in this sector are. It's kept up to date by
+   * the physics step.
+   *
+   * @return The spatial index.
+   */
+  public SectorSpatialIndex getSpatialIndex() {
+    return spatialIndex;
+  }
+
+  /**
+   * Get the static objects contained in this sector that are part of the sky. They aren't in the
+   * {@link #getSpatialIndex() spatial index}.
+   *
+   * @return The background objects. Must not be modified.
+   */
+  public List<SectorStaticObject> getBackgroundObjects() {
+    return backgroundObjects;
+  }
+
+  /**
+   * Get a number that changes whenever the background objects do: when one is added or removed,
+   * or when they're all moved by a shift of the floating origin.
+   *
+   * @return The version of the background objects.
+   */
+  public long getBackgroundVersion() {
+    return backgroundVersion;
+  }
+
+  /**
+   * Get the solver for the mutual gravity between the objects in this sector.
+   *
+   * @return The gravity solver, or null if gravity is disabled.
+   */
+  public GravitySolver getGravitySolver() {
+    return gravitySolver;
+  }
+
+  /**
+   * Set the solver for the mutual gravity between the objects in this sector.
+   *
+   * @param gravitySolver The gravity solver, or null to disable gravity.
+   */
+  public void setGravitySolver(GravitySolver gravitySolver) {
+    this.gravitySolver = gravitySolver;
+    this.gravityStale = true;
+    if (gravitySolver == null) {
+      // clear whatever the previous solver left behind
+      Arrays.fill(bodies.column(SectorBodyStore.GRAVITY_X), 0);
+      Arrays.fill(bodies.column(SectorBodyStore.GRAVITY_Y), 0);
+      Arrays.fill(bodies.column(SectorBodyStore.GRAVITY_Z), 0);
+    }
+  }
+
+  /**
+   * Get the fixed-timestep clock driving the sector's physics.
+   *
+   * @return The sector's clock.
+   */
+  public SectorClock getClock() {
+    return clock;
+  }
+
+  /**
+   * Update the physics of every object in this sector, running as many fixed steps as the
+   * sector's {@link SectorClock} says are due.
+   */
+  public void tickPhysics() {
+    tickPhysics(System.currentTimeMillis());
+  }
+
+  /**
+   * Update the physics of every object in this sector, running as many fixed steps as the
+   * sector's {@link SectorClock} says are due at the given wall-clock time.
+   *
+   * @param nowMillis the current wall-clock time, in milliseconds.
+   */
+  void tickPhysics(long nowMillis) {
+    int steps = clock.advance(nowMillis);
+    long firstStep = clock.getSteps() - steps;
+    double stepSeconds = clock.getStepMillis() / 1000d;
+    for (int step = 0; step < steps; step++) {
+      bodies.setSimulationTimeSeconds((firstStep + step) * stepSeconds);
+      this.step((firstStep + step + 1) * stepSeconds);
+    }
+  }
+
+  /**
+   * Run a single fixed physics step.
+   * <p>
+   * Custom physics run object by object first, then the awake bodies are integrated in one pass
+   * over the body store (split across the physics workers for large sectors, see
+   * {@link SectorPhysicsExecutor}), using the gravity solved at the end of the step before. Then
+   * gravity is solved for where the bodies ended up, which lets integrators that need the gravity
+   * from both ends of the step finish it (see
+   * {@link net.skycade.space.model.physics.integrator.VelocityVerletIntegrator}), and is kept for
+   * the next step. Finally, the awake bodies are moved around in the {@link #spatialIndex}, and
+   * the ones that have been at rest for long enough are put to sleep. Sleeping bodies don't move,
+   * so they don't need to be, except for bodies on rails, which are always asleep: they're only
+   * moved when their primary is awake.
+   * <p>
+   * Bodies on rails are only placed when something reads them, except for those with a mass,
+   * which are placed before gravity is solved so that they pull from the right spot: by then the
+   * store's simulation time is the end of the step, and their primaries have been integrated.
+   *
+   * @param endTimeSeconds the simulation time at the end of the step.
+   */
+  private void step(double endTimeSeconds) {
+    // by object rather than by slot, since waking bodies up moves them around in the store
+    for (int i = 0; i < containedObjects.size(); i++) {
+      containedObjects.get(i).tickCustomPhysics();
+    }
+
+    if (gravitySolver != null && gravityStale) {
+      // nothing has solved gravity for where the bodies are now yet
+      solveGravity();
+    }
+
+    // large sectors are split across the physics workers; this returns once every body is done
+    int integratedCount = bodies.activeCount();
+    SectorPhysicsExecutor.forEachRange(0, integratedCount, integrateRange);
+    bodies.setSimulationTimeSeconds(endTimeSeconds);
+
+    if (gravitySolver != null) {
+      solveGravity();
+    }
+    // bodies woken up by the solve only join in from the next step, so they have nothing to
+    // finish; waking bodies up doesn't move the ones that were already awake
+    SectorPhysicsExecutor.forEachRange(0, integratedCount, finishRange);
+
+    // before putting bodies to sleep, so that the index has caught up with them by then
+    for (int slot = 0; slot < bodies.activeCount(); slot++) {
+      spatialIndex.update(bodies.objectAt(slot));
+    }
+    // bodies on rails sleep, but are indexed by their orbit around their primary, which may move
+    int[] flags = bodies.flags();
+    for (int slot = bodies.activeCount(); slot < bodies.size(); slot++) {
+      if ((flags[slot] & SectorBodyStore.FLAG_ON_RAILS) != 0
+          && bodies.objectAt(slot) instanceof PhysicsObject physicsObject
+          && orbitMoved(physicsObject)) {
+        spatialIndex.update(physicsObject);
+      }
+    }
+
+    bodies.sleepQuietBodies();
+  }
+
+  /**
+   * Check whether the orbit of an object on rails may have moved in this step, which is when the
+   * object at the root of its chain of primaries (the star of a moon, say) is awake.
+   */
+  private boolean orbitMoved(PhysicsObject object) {
+    SectorContainedObject primary = object.getOrbitPrimary();
+    while (primary instanceof PhysicsObject physicsObject && physicsObject.getOrbit() != null) {
+      primary = physicsObject.getOrbitPrimary();
+    }
+    return primary.getBodyStore() == bodies
+        && bodies.slotOf(primary.getBodyHandle()) < bodies.activeCount();
+  }
+
+  /**
+   * Integrate a range of awake bodies, keeping their state from before the step.
+   */
+  private void integrateRange(int fromSlot, int toSlot) {
+    bodies.snapshot(fromSlot, toSlot);
+    bodies.integrate(fromSlot, toSlot, 1);
+  }
+
+  /**
+   * Finish the step for a range of bodies that were integrated in it.
+   */
+  private void finishRange(int fromSlot, int toSlot) {
+    bodies.finish(fromSlot, toSlot, 1);
+  }
+
+  /**
+   * Solve gravity for where the bodies are at the store's simulation time, and wake the sleeping
+   * bodies it disturbs.
+   */
+  private void solveGravity() {
+    int[] flags = bodies.flags();
+    double[] mass = bodies.column(SectorBodyStore.MASS);
+    for (int slot = 0; slot < bodies.size(); slot++) {
+      if ((flags[slot] & SectorBodyStore.FLAG_ON_RAILS) != 0 && mass[slot] > 0
+          && bodies.objectAt(slot) instanceof PhysicsObject physicsObject) {
+        physicsObject.sampleOrbit();
+      }
+    }
+    gravitySolver.solve(bodies);
+    bodies.wakeDisturbed();
+    gravityStale = false;
+  }
+
+  /**
+   * Get the number of bodies in this sector that are awake, and thus part of the physics step.
+   *
+   * @return The number of awake bodies.
+   */
+  public int getActiveBodyCount() {
+    return bodies.activeCount();
   }
 
   /**
@@ -85,4 +423,62 @@ public class Sector {
   public BigDecimal getRadius() {
     return radius;
   }
+
+  /**
+   * Get the floating origin that contained objects' positions are relative to.
+   *
+   * @return The floating origin, relative to the center of the sector.
+   */
+  public SectorContainedPos getLocalOrigin() {
+    return localOrigin;
+  }
+
+  /**
+   * Convert an exact position (relative to the center of the sector) to a position relative to
+   * the floating origin.
+   *
+   * @param position The exact position.
+   * @return The position relative to the floating origin.
+   */
+  public SectorLocalPos toLocal(SectorContainedPos position) {
+    SectorContainedPos relative = position.sub(localOrigin);
+    return new SectorLocalPos(relative.x().doubleValue(), relative.y().doubleValue(),
+        relative.z().doubleValue());
+  }
+
+  /**
+   * Convert a position relative to the floating origin to an exact position (relative to the
+   * center of the sector).
+   *
+   * @param position The position relative to the floating origin.
+   * @return The exact position.
+   */
+  public SectorContainedPos toContained(SectorLocalPoint position) {
+    return localOrigin.add(BigDecimal.valueOf(position.x()), BigDecimal.valueOf(position.y()),
+        BigDecimal.valueOf(position.z()));
+  }
+
+  /**
+   * Shift the floating origin by the given offset, moving every contained object the opposite
+   * way so that their exact positions don't change.
+   *
+   * @param offset The offset to shift the origin by.
+   */
+  public void shiftLocalOrigin(SectorLocalVec offset) {
+    this.localOrigin = localOrigin.add(BigDecimal.valueOf(offset.x()),
+        BigDecimal.valueOf(offset.y()), BigDecimal.valueOf(offset.z()));
+    this.bodies.translate(-offset.x(), -offset.y(), -offset.z());
+    for (SectorStaticObject staticObject : staticObjects) {
+      staticObject.translate(-offset.x(), -offset.y(), -offset.z());
+    }
+    this.backgroundVersion++;
+    List<SectorContainedObject> indexedObjects = new ArrayList<>(containedObjects.size());
+    for (SectorContainedObject object : containedObjects) {
+      if (!(object instanceof SectorStaticObject staticObject)
+          || !staticObject.isCelestialBackground()) {
+        indexedObjects.add(object);
+      }
+    }
+    this.spatialIndex.rebuild(indexedObjects);
+  }
 }
@@ -0,0 +1,878 @@
+package net.skycade.space.model.sector;
+
+import java.util.Arrays;
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+import net.skycade.space.model.physics.integrator.SectorIntegrator;
+import net.skycade.space.model.physics.vector.Quaternion;
+import net.skycade.space.model.physics.vector.SectorLocalPoint;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.physics.vector.SectorLocalVec;
+import net.skycade.space.model.sector.contained.SectorContainedObject;
+
+/**
+ * Columnar (structure-of-arrays) storage for the physics state of the bodies in a sector.
+ * <p>
+ * Every quantity (position x, position y, ..., orientation w, ..., mass) is kept in its own
+ * primitive array, so the physics step can run over the whole sector in one tight loop instead
+ * of chasing pointers from object to object.
+ * <p>
+ * Bodies are referenced by a stable <i>handle</i>, which stays the same for as long as the body
+ * is in the store. Internally the columns are kept densely packed by <i>slot</i>; removing a body
+ * (or a body falling asleep or waking up) moves other bodies around, so slots are NOT stable and
+ * should only be used while iterating.
+ * <p>
+ * The gravity columns are written by the sector's
+ * {@link net.skycade.space.model.physics.gravity.GravitySolver} at the end of every step, for
+ * where the bodies ended up, and are added on top of the acceleration that was set on the body.
+ * <p>
+ * Orientations are unit quaternions (see {@link Quaternion}), spread over four columns. Angular
+ * velocities and accelerations are around the body's own pitch (x), yaw (y) and roll (z) axes.
+ * <p>
+ * The previous position/orientation columns hold the state before the last physics step, so the
+ * renderer can interpolate between the last two states. The matrix
+ * orientation columns hold the orientation each body's cached rotation matrix was built for (see
+ * {@link #getRotationMatrix(int)}).
+ * <p>
+ * Besides the columns, every body has a set of flags. Bodies flagged {@link #FLAG_ON_RAILS}
+ * follow a closed-form orbit and are skipped by the integrator; they're kept asleep, since their
+ * state is only worked out when it's read.
+ * <p>
+ * Bodies that have been at rest for a while are put to sleep ({@link #FLAG_ASLEEP}). The store
+ * keeps the awake bodies packed in front of the sleeping ones, so that the physics step only has
+ * to run over the first {@link #activeCount()} slots. Any change to a body's motion wakes it.
+ *
+ * @author Jacob Cohen
+ */
+public class SectorBodyStore {
+
+  public static final int POSITION_X = 0;
+  public static final int POSITION_Y = 1;
+  public static final int POSITION_Z = 2;
+  public static final int VELOCITY_X = 3;
+  public static final int VELOCITY_Y = 4;
+  public static final int VELOCITY_Z = 5;
+  public static final int ACCELERATION_X = 6;
+  public static final int ACCELERATION_Y = 7;
+  public static final int ACCELERATION_Z = 8;
+  public static final int ORIENTATION_W = 9;
+  public static final int ORIENTATION_X = 10;
+  public static final int ORIENTATION_Y = 11;
+  public static final int ORIENTATION_Z = 12;
+  public static final int ANGULAR_VELOCITY_X = 13;
+  public static final int ANGULAR_VELOCITY_Y = 14;
+  public static final int ANGULAR_VELOCITY_Z = 15;
+  public static final int ANGULAR_ACCELERATION_X = 16;
+  public static final int ANGULAR_ACCELERATION_Y = 17;
+  public static final int ANGULAR_ACCELERATION_Z = 18;
+  public static final int MASS = 19;
+  public static final int GRAVITY_X = 20;
+  public static final int GRAVITY_Y = 21;
+  public static final int GRAVITY_Z = 22;
+  public static final int PREVIOUS_POSITION_X = 23;
+  public static final int PREVIOUS_POSITION_Y = 24;
+  public static final int PREVIOUS_POSITION_Z = 25;
+  public static final int PREVIOUS_ORIENTATION_W = 26;
+  public static final int PREVIOUS_ORIENTATION_X = 27;
+  public static final int PREVIOUS_ORIENTATION_Y = 28;
+  public static final int PREVIOUS_ORIENTATION_Z = 29;
+  public static final int MATRIX_ORIENTATION_W = 30;
+  public static final int MATRIX_ORIENTATION_X = 31;
+  public static final int MATRIX_ORIENTATION_Y = 32;
+  public static final int MATRIX_ORIENTATION_Z = 33;
+
+  /**
+   * Flag for bodies that follow a {@link net.skycade.space.model.physics.orbit.KeplerOrbit}
+   * instead of being integrated.
+   */
+  public static final int FLAG_ON_RAILS = 1;
+
+  /**
+   * Flag for bodies that are at rest and are left out of the physics step.
+   */
+  public static final int FLAG_ASLEEP = 2;
+
+  /**
+   * The number of columns in the store.
+   */
+  public static final int COLUMN_COUNT = 34;
+
+  /**
+   * Converts the gravity columns (meters per second squared) to the units the integrator works
+   * in, where velocities are integrated once per physics tick (meters per tick squared).
+   */
+  public static final double GRAVITY_TO_TICK_UNITS =
+      Math.pow(PhysicsAndRenderingConstants.PHYSICS_DELAY_MILLIS / 1000d, 2);
+
+  /**
+   * The columns, indexed by column id and then by slot.
+   */
+  private final double[][] columns;
+
+  /**
+   * The flags of the bodies, indexed by slot.
+   */
+  private int[] flags;
+
+  /**
+   * The number of consecutive quiet steps of the bodies, indexed by slot.
+   */
+  private int[] quietSteps;
+
+  /**
+   * The integrators of the bodies, indexed by slot.
+   */
+  private SectorIntegrator[] integrators;
+
+  /**
+   * The cached rotation matrices of the bodies, indexed by slot; null until a body's matrix is
+   * first asked for.
+   */
+  private double[][] rotationMatrices;
+
+  /**
+   * The objects owning the bodies, indexed by slot.
+   */
+  private SectorContainedObject[] objects;
+
+  /**
+   * The handle of the body in each slot.
+   */
+  private int[] handleOfSlot;
+
+  /**
+   * The slot of each handle, or -1 if the handle isn't in use.
+   */
+  private int[] slotOfHandle;
+
+  /**
+   * Handles that have been released and can be handed out again.
+   */
+  private int[] freeHandles;
+
+  /**
+   * The number of handles in {@link #freeHandles}.
+   */
+  private int freeHandleCount;
+
+  /**
+   * The next never-used handle.
+   */
+  private int nextHandle;
+
+  /**
+   * The number of bodies in the store.
+   */
+  private int size;
+
+  /**
+   * The number of awake bodies, which fill the slots before the sleeping ones.
+   */
+  private int activeCount;
+
+  /**
+   * The simulation time the bodies' state is at, in seconds. Used to place bodies on rails.
+   */
+  private double simulationTimeSeconds;
+
+  /**
+   * Constructor.
+   *
+   * @param initialCapacity The initial number of bodies the store can hold without growing.
+   */
+  public SectorBodyStore(int initialCapacity) {
+    int capacity = Math.max(1, initialCapacity);
+    this.columns = new double[COLUMN_COUNT][capacity];
+    this.flags = new int[capacity];
+    this.quietSteps = new int[capacity];
+    this.integrators = new SectorIntegrator[capacity];
+    this.rotationMatrices = new double[capacity][];
+    this.objects = new SectorContainedObject[capacity];
+    this.handleOfSlot = new int[capacity];
+    this.slotOfHandle = new int[capacity];
+    this.freeHandles = new int[capacity];
+    Arrays.fill(slotOfHandle, -1);
+  }
+
+  /**
+   * Add a body to the store. Its state starts zeroed, and it starts awake.
+   *
+   * @param object The object owning the body.
+   * @return The handle of the new body.
+   */
+  public int add(SectorContainedObject object) {
+    ensureCapacity(size + 1);
+
+    int handle = freeHandleCount > 0 ? freeHandles[--freeHandleCount] : nextHandle++;
+    if (handle >= slotOfHandle.length) {
+      int oldLength = slotOfHandle.length;
+      slotOfHandle = Arrays.copyOf(slotOfHandle, oldLength * 2);
+      Arrays.fill(slotOfHandle, oldLength, slotOfHandle.length, -1);
+    }
+
+    int slot = size++;
+    for (double[] column : columns) {
+      column[slot] = 0;
+    }
+    columns[ORIENTATION_W][slot] = 1;
+    columns[PREVIOUS_ORIENTATION_W][slot] = 1;
+    flags[slot] = 0;
+    quietSteps[slot] = 0;
+    integrators[slot] = SectorIntegrator.SEMI_IMPLICIT_EULER;
+    // the matrix left here by a removed body (or one that moved to another store) isn't this one's
+    rotationMatrices[slot] = null;
+    objects[slot] = object;
+    handleOfSlot[slot] = handle;
+    slotOfHandle[handle] = slot;
+
+    // new bodies go at the end of the awake ones
+    swapSlots(slot, activeCount++);
+    return handle;
+  }
+
+  /**
+   * Move an object's body from the store it currently lives in (if any, see
+   * {@link SectorContainedObject#getBodyStore()}) into this store, keeping its state.
+   *
+   * @param object The object to move.
+   */
+  public void adopt(SectorContainedObject object) {
+    SectorBodyStore previousStore = object.getBodyStore();
+    int previousHandle = object.getBodyHandle();
+    if (previousStore == this) {
+      return;
+    }
+    if (previousStore == null) {
+      // a detached object brings its state along itself
+      object.attachToBodyStore(this, add(object));
+      return;
+    }
+
+    int handle = add(object);
+    int slot = slotOfHandle[handle];
+    int previousSlot = previousStore.slotOf(previousHandle);
+    for (int column = 0; column < COLUMN_COUNT; column++) {
+      columns[column][slot] = previousStore.columns[column][previousSlot];
+    }
+    // the body starts awake here, whatever it was doing before
+    flags[slot] = previousStore.flags[previousSlot] & ~FLAG_ASLEEP;
+    integrators[slot] = previousStore.integrators[previousSlot];
+    previousStore.remove(previousHandle);
+    object.attachToBodyStore(this, handle);
+  }
+
+  /**
+   * Remove a body from the store, releasing its handle.
+   *
+   * @param handle The handle of the body.
+   */
+  public void remove(int handle) {
+    int slot = slotOf(handle);
+
+    // keep the columns dense (and the awake bodies in front) by moving the body to the end of its
+    // group, and then to the very end
+    if (slot < activeCount) {
+      swapSlots(slot, --activeCount);
+      slot = activeCount;
+    }
+    int lastSlot = --size;
+    swapSlots(slot, lastSlot);
+    objects[lastSlot] = null;
+    slotOfHandle[handle] = -1;
+
+    if (freeHandleCount == freeHandles.length) {
+      freeHandles = Arrays.copyOf(freeHandles, freeHandles.length * 2);
+    }
+    freeHandles[freeHandleCount++] = handle;
+  }
+
+  /**
+   * Wake a body up, so it's part of the physics step again. Called whenever its motion changes.
+   *
+   * @param handle The handle of the body.
+   */
+  public void wake(int handle) {
+    int slot = slotOf(handle);
+    quietSteps[slot] = 0;
+    if (slot >= activeCount) {
+      flags[slot] &= ~FLAG_ASLEEP;
+      swapSlots(slot, activeCount++);
+    }
+  }
+
+  /**
+   * Wake every sleeping body that is being pulled on harder than
+   * {@link PhysicsAndRenderingConstants#SLEEP_GRAVITY_THRESHOLD}. Meant to be called right after
+   * gravity has been solved.
+   */
+  public void wakeDisturbed() {
+    double threshold = PhysicsAndRenderingConstants.SLEEP_GRAVITY_THRESHOLD;
+    double[] gravityX = columns[GRAVITY_X];
+    double[] gravityY = columns[GRAVITY_Y];
+    double[] gravityZ = columns[GRAVITY_Z];
+    for (int slot = activeCount; slot < size; slot++) {
+      if (Math.abs(gravityX[slot]) > threshold || Math.abs(gravityY[slot]) > threshold
+          || Math.abs(gravityZ[slot]) > threshold) {
+        quietSteps[slot] = 0;
+        flags[slot] &= ~FLAG_ASLEEP;
+        // the body in the first sleeping slot has already been checked, so it can take this one
+        swapSlots(slot, activeCount++);
+      }
+    }
+  }
+
+  /**
+   * Count another step for every awake body that is at rest, and put the ones that have been at
+   * rest for {@link PhysicsAndRenderingConstants#SLEEP_AFTER_QUIET_STEPS} steps to sleep. Meant
+   * to be called right after the bodies have been integrated.
+   * <p>
+   * Bodies on rails are put to sleep straight away, as they are: they're never integrated, and
+   * follow their orbit whether they're awake or not.
+   */
+  public void sleepQuietBodies() {
+    int slot = 0;
+    while (slot < activeCount) {
+      if ((flags[slot] & FLAG_ON_RAILS) != 0) {
+        flags[slot] |= FLAG_ASLEEP;
+        swapSlots(slot, --activeCount);
+        continue;
+      }
+      if (!isQuiet(slot)) {
+        quietSteps[slot] = 0;
+        slot++;
+        continue;
+      }
+      if (++quietSteps[slot] < PhysicsAndRenderingConstants.SLEEP_AFTER_QUIET_STEPS) {
+        slot++;
+        continue;
+      }
+
+      // settle the body exactly where it is
+      for (int column = VELOCITY_X; column <= VELOCITY_Z; column++) {
+        columns[column][slot] = 0;
+      }
+      for (int column = ANGULAR_VELOCITY_X; column <= ANGULAR_VELOCITY_Z; column++) {
+        columns[column][slot] = 0;
+      }
+      for (int axis = 0; axis < 3; axis++) {
+        columns[PREVIOUS_POSITION_X + axis][slot] = columns[POSITION_X + axis][slot];
+      }
+      for (int part = 0; part < 4; part++) {
+        columns[PREVIOUS_ORIENTATION_W + part][slot] = columns[ORIENTATION_W + part][slot];
+      }
+      flags[slot] |= FLAG_ASLEEP;
+
+      // the last awake body takes its slot, and gets checked next
+      swapSlots(slot, --activeCount);
+    }
+  }
+
+  /**
+   * Check whether the body in a slot is at rest.
+   *
+   * @param slot The slot.
+   * @return Whether the body is at rest.
+   */
+  private boolean isQuiet(int slot) {
+    double threshold = PhysicsAndRenderingConstants.SLEEP_MOTION_THRESHOLD;
+    for (int column = VELOCITY_X; column <= ACCELERATION_Z; column++) {
+      if (Math.abs(columns[column][slot]) > threshold) {
+        return false;
+      }
+    }
+    for (int column = ANGULAR_VELOCITY_X; column <= ANGULAR_ACCELERATION_Z; column++) {
+      if (Math.abs(columns[column][slot]) > threshold) {
+        return false;
+      }
+    }
+    double gravityThreshold = PhysicsAndRenderingConstants.SLEEP_GRAVITY_THRESHOLD;
+    for (int column = GRAVITY_X; column <= GRAVITY_Z; column++) {
+      if (Math.abs(columns[column][slot]) > gravityThreshold) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get the current slot of a body.
+   *
+   * @param handle The handle of the body.
+   * @return The slot of the body.
+   */
+  public int slotOf(int handle) {
+    int slot = handle < slotOfHandle.length ? slotOfHandle[handle] : -1;
+    if (slot < 0) {
+      throw new IllegalArgumentException("No body with handle " + handle + " in this store");
+    }
+    return slot;
+  }
+
+  /**
+   * Get the object owning the body in a slot.
+   *
+   * @param slot The slot.
+   * @return The object owning the body.
+   */
+  public SectorContainedObject objectAt(int slot) {
+    return objects[slot];
+  }
+
+  /**
+   * Get the number of bodies in the store.
+   *
+   * @return The number of bodies in the store.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Get the number of awake bodies in the store. They fill slots 0 up to (excluding) this.
+   *
+   * @return The number of awake bodies.
+   */
+  public int activeCount() {
+    return activeCount;
+  }
+
+  /**
+   * Get a raw column, indexed by slot.
+   * <p>
+   * Meant for batch passes over the whole store; the returned array is replaced when the store
+   * grows, so don't hold on to it across additions.
+   *
+   * @param column The column id.
+   * @return The column.
+   */
+  public double[] column(int column) {
+    return columns[column];
+  }
+
+  /**
+   * Get the raw flags, indexed by slot. The same caveats as for {@link #column(int)} apply.
+   *
+   * @return The flags.
+   */
+  public int[] flags() {
+    return flags;
+  }
+
+  /**
+   * Check whether a body has a flag set.
+   *
+   * @param handle The handle of the body.
+   * @param flag   The flag.
+   * @return Whether the flag is set.
+   */
+  public boolean hasFlag(int handle, int flag) {
+    return (flags[slotOf(handle)] & flag) != 0;
+  }
+
+  /**
+   * Set or clear a flag of a body.
+   *
+   * @param handle The handle of the body.
+   * @param flag   The flag.
+   * @param value  Whether the flag should be set.
+   */
+  public void setFlag(int handle, int flag, boolean value) {
+    int slot = slotOf(handle);
+    flags[slot] = value ? flags[slot] | flag : flags[slot] & ~flag;
+  }
+
+  /**
+   * Get the integrator of a body.
+   *
+   * @param handle The handle of the body.
+   * @return The integrator.
+   */
+  public SectorIntegrator getIntegrator(int handle) {
+    return integrators[slotOf(handle)];
+  }
+
+  /**
+   * Set the integrator of a body.
+   *
+   * @param handle     The handle of the body.
+   * @param integrator The integrator.
+   */
+  public void setIntegrator(int handle, SectorIntegrator integrator) {
+    integrators[slotOf(handle)] = integrator;
+  }
+
+  /**
+   * Get the rotation matrix of a body's current orientation (see
+   * {@link Quaternion#toRotationMatrix(double[])}). The matrix is cached with the body, and only
+   * rebuilt when the orientation has changed since it was last built.
+   *
+   * @param handle The handle of the body.
+   * @return The 9 entries of the matrix, row by row; don't modify them.
+   */
+  public double[] getRotationMatrix(int handle) {
+    int slot = slotOf(handle);
+    double w = columns[ORIENTATION_W][slot];
+    double x = columns[ORIENTATION_X][slot];
+    double y = columns[ORIENTATION_Y][slot];
+    double z = columns[ORIENTATION_Z][slot];
+    double[] matrix = rotationMatrices[slot];
+    if (matrix == null) {
+      matrix = new double[9];
+      rotationMatrices[slot] = matrix;
+    } else if (w == columns[MATRIX_ORIENTATION_W][slot] && x == columns[MATRIX_ORIENTATION_X][slot]
+        && y == columns[MATRIX_ORIENTATION_Y][slot] && z == columns[MATRIX_ORIENTATION_Z][slot]) {
+      return matrix;
+    }
+    new Quaternion(w, x, y, z).toRotationMatrix(matrix);
+    columns[MATRIX_ORIENTATION_W][slot] = w;
+    columns[MATRIX_ORIENTATION_X][slot] = x;
+    columns[MATRIX_ORIENTATION_Y][slot] = y;
+    columns[MATRIX_ORIENTATION_Z][slot] = z;
+    return matrix;
+  }
+
+  /**
+   * Get the simulation time the bodies' state is at.
+   *
+   * @return The simulation time, in seconds.
+   */
+  public double getSimulationTimeSeconds() {
+    return simulationTimeSeconds;
+  }
+
+  /**
+   * Set the simulation time the bodies' state is at. Set by the sector around every step.
+   *
+   * @param simulationTimeSeconds The simulation time, in seconds.
+   */
+  public void setSimulationTimeSeconds(double simulationTimeSeconds) {
+    this.simulationTimeSeconds = simulationTimeSeconds;
+  }
+
+  /**
+   * Get a single value of a body.
+   *
+   * @param column The column id.
+   * @param handle The handle of the body.
+   * @return The value.
+   */
+  public double get(int column, int handle) {
+    return columns[column][slotOf(handle)];
+  }
+
+  /**
+   * Set a single value of a body.
+   *
+   * @param column The column id.
+   * @param handle The handle of the body.
+   * @param value  The value.
+   */
+  public void set(int column, int handle, double value) {
+    columns[column][slotOf(handle)] = value;
+  }
+
+  /**
+   * Get three consecutive columns of a body as a position.
+   *
+   * @param firstColumn The column id of the x component.
+   * @param handle      The handle of the body.
+   * @return The position.
+   */
+  public SectorLocalPos getPos(int firstColumn, int handle) {
+    int slot = slotOf(handle);
+    return new SectorLocalPos(columns[firstColumn][slot], columns[firstColumn + 1][slot],
+        columns[firstColumn + 2][slot]);
+  }
+
+  /**
+   * Get three consecutive columns of a body as a vector.
+   *
+   * @param firstColumn The column id of the x component.
+   * @param handle      The handle of the body.
+   * @return The vector.
+   */
+  public SectorLocalVec getVec(int firstColumn, int handle) {
+    int slot = slotOf(handle);
+    return new SectorLocalVec(columns[firstColumn][slot], columns[firstColumn + 1][slot],
+        columns[firstColumn + 2][slot]);
+  }
+
+  /**
+   * Set three consecutive columns of a body.
+   *
+   * @param firstColumn The column id of the x component.
+   * @param handle      The handle of the body.
+   * @param value       The value.
+   */
+  public void set(int firstColumn, int handle, SectorLocalPoint value) {
+    int slot = slotOf(handle);
+    columns[firstColumn][slot] = value.x();
+    columns[firstColumn + 1][slot] = value.y();
+    columns[firstColumn + 2][slot] = value.z();
+  }
+
+  /**
+   * Move every body in the store by the given offset.
+   *
+   * @param x The x offset.
+   * @param y The y offset.
+   * @param z The z offset.
+   */
+  public void translate(double x, double y, double z) {
+    double[] positionX = columns[POSITION_X];
+    double[] positionY = columns[POSITION_Y];
+    double[] positionZ = columns[POSITION_Z];
+    double[] previousPositionX = columns[PREVIOUS_POSITION_X];
+    double[] previousPositionY = columns[PREVIOUS_POSITION_Y];
+    double[] previousPositionZ = columns[PREVIOUS_POSITION_Z];
+    for (int slot = 0; slot < size; slot++) {
+      positionX[slot] += x;
+      positionY[slot] += y;
+      positionZ[slot] += z;
+      previousPositionX[slot] += x;
+      previousPositionY[slot] += y;
+      previousPositionZ[slot] += z;
+    }
+  }
+
+  /**
+   * Remember the current position and orientation of the bodies in a range of slots as their
+   * previous state, before they're integrated.
+   *
+   * @param fromSlot The first slot (inclusive).
+   * @param toSlot   The last slot (exclusive).
+   */
+  public void snapshot(int fromSlot, int toSlot) {
+    int length = toSlot - fromSlot;
+    System.arraycopy(columns[POSITION_X], fromSlot, columns[PREVIOUS_POSITION_X], fromSlot, length);
+    System.arraycopy(columns[POSITION_Y], fromSlot, columns[PREVIOUS_POSITION_Y], fromSlot, length);
+    System.arraycopy(columns[POSITION_Z], fromSlot, columns[PREVIOUS_POSITION_Z], fromSlot, length);
+    for (int part = 0; part < 4; part++) {
+      System.arraycopy(columns[ORIENTATION_W + part], fromSlot,
+          columns[PREVIOUS_ORIENTATION_W + part], fromSlot, length);
+    }
+  }
+
+  /**
+   * Get the orientation of a body.
+   *
+   * @param firstColumn The column id of the w component ({@link #ORIENTATION_W} or
+   *                    {@link #PREVIOUS_ORIENTATION_W}).
+   * @param handle      The handle of the body.
+   * @return The orientation.
+   */
+  public Quaternion getQuaternion(int firstColumn, int handle) {
+    int slot = slotOf(handle);
+    return new Quaternion(columns[firstColumn][slot], columns[firstColumn + 1][slot],
+        columns[firstColumn + 2][slot], columns[firstColumn + 3][slot]);
+  }
+
+  /**
+   * Set the orientation of a body.
+   *
+   * @param firstColumn The column id of the w component ({@link #ORIENTATION_W} or
+   *                    {@link #PREVIOUS_ORIENTATION_W}).
+   * @param handle      The handle of the body.
+   * @param value       The orientation.
+   */
+  public void set(int firstColumn, int handle, Quaternion value) {
+    int slot = slotOf(handle);
+    columns[firstColumn][slot] = value.w();
+    columns[firstColumn + 1][slot] = value.x();
+    columns[firstColumn + 2][slot] = value.y();
+    columns[firstColumn + 3][slot] = value.z();
+  }
+
+  /**
+   * Get the orientation of a body, blended between its previous and current state.
+   *
+   * @param handle The handle of the body.
+   * @param alpha  0 for the previous state, 1 for the current state.
+   * @return The blended orientation.
+   */
+  public Quaternion getInterpolatedQuaternion(int handle, double alpha) {
+    return getQuaternion(PREVIOUS_ORIENTATION_W, handle)
+        .nlerp(getQuaternion(ORIENTATION_W, handle), alpha);
+  }
+
+  /**
+   * Turn the body in a slot by small angles around its own axes, keeping its orientation a unit
+   * quaternion. Used by the integrators, once per body per step.
+   *
+   * @param slot  The slot.
+   * @param pitch The angle to turn around the body's x-axis, in radians.
+   * @param yaw   The angle to turn around the body's y-axis, in radians.
+   * @param roll  The angle to turn around the body's z-axis, in radians.
+   */
+  public void rotate(int slot, double pitch, double yaw, double roll) {
+    if (pitch == 0 && yaw == 0 && roll == 0) {
+      return;
+    }
+    double[] orientationW = columns[ORIENTATION_W];
+    double[] orientationX = columns[ORIENTATION_X];
+    double[] orientationY = columns[ORIENTATION_Y];
+    double[] orientationZ = columns[ORIENTATION_Z];
+    double w = orientationW[slot];
+    double x = orientationX[slot];
+    double y = orientationY[slot];
+    double z = orientationZ[slot];
+
+    // (1, angles / 2) * q, to first order; yaw turns the view the other way round the y-axis
+    double a = pitch / 2;
+    double b = -yaw / 2;
+    double c = roll / 2;
+    double newW = w - a * x - b * y - c * z;
+    double newX = x + a * w + b * z - c * y;
+    double newY = y - a * z + b * w + c * x;
+    double newZ = z + a * y - b * x + c * w;
+
+    double inverseLength = 1 / Math.sqrt(newW * newW + newX * newX + newY * newY + newZ * newZ);
+    orientationW[slot] = newW * inverseLength;
+    orientationX[slot] = newX * inverseLength;
+    orientationY[slot] = newY * inverseLength;
+    orientationZ[slot] = newZ * inverseLength;
+  }
+
+  /**
+   * Get three consecutive columns of a body, interpolated between their previous and current
+   * state.
+   *
+   * @param firstColumn         The column id of the current x component.
+   * @param firstPreviousColumn The column id of the previous x component.
+   * @param handle              The handle of the body.
+   * @param alpha               0 for the previous state, 1 for the current state.
+   * @return The interpolated position.
+   */
+  public SectorLocalPos getInterpolatedPos(int firstColumn, int firstPreviousColumn, int handle,
+                                           double alpha) {
+    int slot = slotOf(handle);
+    double x = columns[firstPreviousColumn][slot];
+    double y = columns[firstPreviousColumn + 1][slot];
+    double z = columns[firstPreviousColumn + 2][slot];
+    return new SectorLocalPos(x + (columns[firstColumn][slot] - x) * alpha,
+        y + (columns[firstColumn + 1][slot] - y) * alpha,
+        z + (columns[firstColumn + 2][slot] - z) * alpha);
+  }
+
+  /**
+   * Integrate every body in the store.
+   *
+   * @param tickFraction The time step, as a fraction of a physics tick.
+   */
+  public void integrate(double tickFraction) {
+    integrate(0, size, tickFraction);
+  }
+
+  /**
+   * Integrate the bodies in a range of slots, updating their state in place. Bodies on rails are
+   * left alone.
+   * <p>
+   * Consecutive bodies using the same integrator are handed to it as one run.
+   *
+   * @param fromSlot     The first slot (inclusive).
+   * @param toSlot       The last slot (exclusive).
+   * @param tickFraction The time step, as a fraction of a physics tick.
+   */
+  public void integrate(int fromSlot, int toSlot, double tickFraction) {
+    forEachIntegratorRun(fromSlot, toSlot, tickFraction, false);
+  }
+
+  /**
+   * Finish the step for the bodies in a range of slots, once gravity has been solved for where
+   * {@link #integrate(int, int, double)} moved them (see
+   * {@link SectorIntegrator#finish(SectorBodyStore, int, int, double)}). Bodies on rails are left
+   * alone.
+   *
+   * @param fromSlot     The first slot (inclusive).
+   * @param toSlot       The last slot (exclusive).
+   * @param tickFraction The time step, as a fraction of a physics tick.
+   */
+  public void finish(int fromSlot, int toSlot, double tickFraction) {
+    forEachIntegratorRun(fromSlot, toSlot, tickFraction, true);
+  }
+
+  /**
+   * Hand runs of consecutive bodies using the same integrator to it, skipping bodies on rails.
+   */
+  private void forEachIntegratorRun(int fromSlot, int toSlot, double tickFraction,
+                                    boolean finish) {
+    int slot = fromSlot;
+    while (slot < toSlot) {
+      if ((flags[slot] & FLAG_ON_RAILS) != 0) {
+        // placed by their orbit, not by their velocity
+        slot++;
+        continue;
+      }
+
+      SectorIntegrator integrator = integrators[slot];
+      int runEnd = slot + 1;
+      while (runEnd < toSlot && integrators[runEnd] == integrator
+          && (flags[runEnd] & FLAG_ON_RAILS) == 0) {
+        runEnd++;
+      }
+      if (finish) {
+        integrator.finish(this, slot, runEnd, tickFraction);
+      } else {
+        integrator.integrate(this, slot, runEnd, tickFraction);
+      }
+      slot = runEnd;
+    }
+  }
+
+  /**
+   * Make sure the store can hold at least the given number of bodies.
+   *
+   * @param capacity The number of bodies.
+   */
+  private void ensureCapacity(int capacity) {
+    if (capacity <= objects.length) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, objects.length * 2);
+    for (int column = 0; column < COLUMN_COUNT; column++) {
+      columns[column] = Arrays.copyOf(columns[column], newCapacity);
+    }
+    flags = Arrays.copyOf(flags, newCapacity);
+    quietSteps = Arrays.copyOf(quietSteps, newCapacity);
+    integrators = Arrays.copyOf(integrators, newCapacity);
+    rotationMatrices = Arrays.copyOf(rotationMatrices, newCapacity);
+    objects = Arrays.copyOf(objects, newCapacity);
+    handleOfSlot = Arrays.copyOf(handleOfSlot, newCapacity);
+  }
+
+  /**
+   * Swap the bodies in two slots, keeping their handles pointing at them.
+   *
+   * @param first  The first slot.
+   * @param second The second slot.
+   */
+  private void swapSlots(int first, int second) {
+    if (first == second) {
+      return;
+    }
+    for (double[] column : columns) {
+      double value = column[first];
+      column[first] = column[second];
+      column[second] = value;
+    }
+    int firstFlags = flags[first];
+    flags[first] = flags[second];
+    flags[second] = firstFlags;
+    int firstQuietSteps = quietSteps[first];
+    quietSteps[first] = quietSteps[second];
+    quietSteps[second] = firstQuietSteps;
+    SectorIntegrator firstIntegrator = integrators[first];
+    integrators[first] = integrators[second];
+    integrators[second] = firstIntegrator;
+    double[] firstRotationMatrix = rotationMatrices[first];
+    rotationMatrices[first] = rotationMatrices[second];
+    rotationMatrices[second] = firstRotationMatrix;
+    SectorContainedObject firstObject = objects[first];
+    objects[first] = objects[second];
+    objects[second] = firstObject;
+    int firstHandle = handleOfSlot[first];
+    handleOfSlot[first] = handleOfSlot[second];
+    handleOfSlot[second] = firstHandle;
+    slotOfHandle[handleOfSlot[first]] = first;
+    slotOfHandle[handleOfSlot[second]] = second;
+  }
+}
@@ -0,0 +1,124 @@
+package net.skycade.space.model.sector;
+
+/**
+ * The fixed-timestep simulation clock of a sector.
+ * <p>
+ * Physics always advance in whole steps of {@link #stepMillis}, no matter how late the scheduler
+ * runs the physics task: wall-clock time is accumulated, and as many steps as are due (capped at
+ * {@link #maxSubSteps}) are run at once. That makes the simulation deterministic, and lets the
+ * renderer run at any rate by interpolating between the last two physics states (see
+ * {@link #getInterpolationAlpha(long)}).
+ *
+ * @author Jacob Cohen
+ */
+public class SectorClock {
+
+  /**
+   * The length of a physics step, in milliseconds.
+   */
+  private final long stepMillis;
+
+  /**
+   * The most steps a single {@link #advance(long)} will run. If the physics fall further behind
+   * than this, the rest of the backlog is dropped instead of trying to catch up forever.
+   */
+  private final int maxSubSteps;
+
+  /**
+   * The wall-clock time of the last {@link #advance(long)}, or -1 if the clock hasn't started.
+   */
+  private long lastAdvanceMillis = -1;
+
+  /**
+   * Wall-clock time that has passed but hasn't been simulated yet.
+   */
+  private long accumulatedMillis;
+
+  /**
+   * The number of steps simulated so far.
+   */
+  private long steps;
+
+  /**
+   * Constructor.
+   *
+   * @param stepMillis  the length of a physics step, in milliseconds.
+   * @param maxSubSteps the most steps a single advance will run.
+   */
+  public SectorClock(long stepMillis, int maxSubSteps) {
+    this.stepMillis = stepMillis;
+    this.maxSubSteps = maxSubSteps;
+  }
+
+  /**
+   * Advance the clock to the given wall-clock time.
+   * <p>
+   * The first call only starts the clock, so the first step doesn't see a huge time delta.
+   *
+   * @param nowMillis the current wall-clock time, in milliseconds.
+   * @return the number of physics steps to run now.
+   */
+  public int advance(long nowMillis) {
+    if (lastAdvanceMillis < 0) {
+      lastAdvanceMillis = nowMillis;
+      return 0;
+    }
+
+    accumulatedMillis += Math.max(0, nowMillis - lastAdvanceMillis);
+    lastAdvanceMillis = nowMillis;
+
+    long due = accumulatedMillis / stepMillis;
+    if (due > maxSubSteps) {
+      // too far behind, drop the backlog rather than spiralling
+      due = maxSubSteps;
+      accumulatedMillis %= stepMillis;
+    } else {
+      accumulatedMillis -= due * stepMillis;
+    }
+
+    steps += due;
+    return (int) due;
+  }
+
+  /**
+   * How far the given wall-clock time is between the previous and the current physics state.
+   *
+   * @param nowMillis the current wall-clock time, in milliseconds.
+   * @return 0 for the previous state, 1 for the current state, or anything in between.
+   */
+  public double getInterpolationAlpha(long nowMillis) {
+    if (lastAdvanceMillis < 0) {
+      return 1;
+    }
+    double alpha =
+        (accumulatedMillis + Math.max(0, nowMillis - lastAdvanceMillis)) / (double) stepMillis;
+    return Math.min(1, alpha);
+  }
+
+  /**
+   * Get the length of a physics step.
+   *
+   * @return the length of a physics step, in milliseconds.
+   */
+  public long getStepMillis() {
+    return stepMillis;
+  }
+
+  /**
+   * Get the number of steps simulated so far.
+   *
+   * @return the number of steps simulated so far.
+   */
+  public long getSteps() {
+    return steps;
+  }
+
+  /**
+   * Get the simulated time.
+   *
+   * @return the simulated time, in seconds.
+   */
+  public double getSimulationTimeSeconds() {
+    return steps * stepMillis / 1000d;
+  }
+}
@@ -0,0 +1,107 @@
+package net.skycade.space.model.sector;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+
+/**
+ * Splits work over a range of body slots across a shared fork-join pool.
+ * <p>
+ * Small ranges (below {@link PhysicsAndRenderingConstants#PARALLEL_PHYSICS_THRESHOLD}) run on the
+ * calling thread. Either way, {@link #forEachRange(int, int, RangeTask)} only returns once every
+ * part of the range is done, so callers can rely on the work being finished (e.g. before the
+ * render phase).
+ *
+ * @author Jacob Cohen
+ */
+public final class SectorPhysicsExecutor {
+
+  /**
+   * The pool shared by every sector.
+   */
+  private static final ForkJoinPool POOL =
+      new ForkJoinPool(PhysicsAndRenderingConstants.PHYSICS_WORKER_THREADS, pool -> {
+        ForkJoinWorkerThread thread =
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("sector-physics-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+      }, null, false);
+
+  private SectorPhysicsExecutor() {
+  }
+
+  /**
+   * Work over a range of slots.
+   */
+  @FunctionalInterface
+  public interface RangeTask {
+
+    /**
+     * Run the work for a range of slots.
+     *
+     * @param fromSlot the first slot (inclusive).
+     * @param toSlot   the last slot (exclusive).
+     */
+    void run(int fromSlot, int toSlot);
+  }
+
+  /**
+   * Run a task over a range of slots, in parallel if the range is large enough.
+   *
+   * @param fromSlot the first slot (inclusive).
+   * @param toSlot   the last slot (exclusive).
+   * @param task     the task.
+   */
+  public static void forEachRange(int fromSlot, int toSlot, RangeTask task) {
+    if (toSlot - fromSlot < PhysicsAndRenderingConstants.PARALLEL_PHYSICS_THRESHOLD) {
+      task.run(fromSlot, toSlot);
+      return;
+    }
+    POOL.invoke(new RangeAction(fromSlot, toSlot, chunkSize(toSlot - fromSlot), task));
+  }
+
+  /**
+   * Pick a chunk size that gives every worker a few chunks to balance the load with.
+   *
+   * @param count the number of slots.
+   * @return the chunk size.
+   */
+  private static int chunkSize(int count) {
+    int chunks = PhysicsAndRenderingConstants.PHYSICS_WORKER_THREADS * 4;
+    return Math.max(PhysicsAndRenderingConstants.PARALLEL_PHYSICS_CHUNK_SIZE,
+        (count + chunks - 1) / chunks);
+  }
+
+  /**
+   * Recursively halves a range until it's small enough to run directly.
+   */
+  private static final class RangeAction extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int fromSlot;
+    private final int toSlot;
+    private final int chunkSize;
+    private final RangeTask task;
+
+    private RangeAction(int fromSlot, int toSlot, int chunkSize, RangeTask task) {
+      this.fromSlot = fromSlot;
+      this.toSlot = toSlot;
+      this.chunkSize = chunkSize;
+      this.task = task;
+    }
+
+    @Override
+    protected void compute() {
+      if (toSlot - fromSlot <= chunkSize) {
+        task.run(fromSlot, toSlot);
+        return;
+      }
+      int middle = (fromSlot + toSlot) >>> 1;
+      invokeAll(new RangeAction(fromSlot, middle, chunkSize, task),
+          new RangeAction(middle, toSlot, chunkSize, task));
+    }
+  }
+}
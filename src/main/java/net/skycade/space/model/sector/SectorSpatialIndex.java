@@ -0,0 +1,620 @@
+package net.skycade.space.model.sector;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import net.skycade.space.model.physics.PhysicsObject;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.sector.contained.SectorContainedObject;
+
+/**
+ * A loose octree over the objects contained in a sector, to answer "what is near here" without
+ * looking at every object.
+ * <p>
+ * Every object is indexed by a bounding sphere, and is kept in the deepest node whose box holds
+ * the sphere's center and whose half size is at least the sphere's radius. Node boxes are
+ * "loose": they're treated as twice their size when queried, so an object never has to be split
+ * across nodes, and a moving object only has to be moved to another node once its center leaves
+ * its node's box.
+ * <p>
+ * Objects on rails are indexed by a sphere around their primary that holds their whole orbit, so
+ * they never have to be placed on their orbit just to be indexed. Objects outside the root box
+ * are kept in the root node, and are looked at by every query.
+ * <p>
+ * Like the body store, the tree lives in primitive arrays that are reused as objects come and go.
+ *
+ * @author Jacob Cohen
+ */
+public class SectorSpatialIndex {
+
+  /**
+   * The half size of the root node, in meters (about half a light year).
+   */
+  private static final double ROOT_HALF_SIZE = 0x1p52;
+
+  /**
+   * How deep the tree goes; the smallest nodes are about 270,000 km across.
+   */
+  private static final int MAX_DEPTH = 24;
+
+  private double[] nodeCenterX = new double[64];
+  private double[] nodeCenterY = new double[64];
+  private double[] nodeCenterZ = new double[64];
+  private double[] nodeHalfSize = new double[64];
+
+  /**
+   * The index of a node's first child (the 8 children are consecutive), or -1 for leaves.
+   */
+  private int[] nodeFirstChild = new int[64];
+
+  /**
+   * The parent of a node, or -1 for the root.
+   */
+  private int[] nodeParent = new int[64];
+
+  /**
+   * The depth of a node, 0 for the root.
+   */
+  private int[] nodeDepth = new int[64];
+
+  /**
+   * The first entry kept in a node, or -1.
+   */
+  private int[] nodeFirstEntry = new int[64];
+
+  /**
+   * The number of entries in a node and every node below it, so empty branches can be skipped.
+   */
+  private int[] nodeSubtreeCount = new int[64];
+
+  private int nodeCount;
+
+  private SectorContainedObject[] entryObject = new SectorContainedObject[64];
+  private double[] entryX = new double[64];
+  private double[] entryY = new double[64];
+  private double[] entryZ = new double[64];
+  private double[] entryRadius = new double[64];
+
+  /**
+   * The node an entry is kept in.
+   */
+  private int[] entryNode = new int[64];
+
+  /**
+   * The entries kept in the same node form a doubly linked list.
+   */
+  private int[] entryPrevious = new int[64];
+  private int[] entryNext = new int[64];
+
+  /**
+   * Entries that have been released and can be handed out again.
+   */
+  private int[] freeEntries = new int[64];
+  private int freeEntryCount;
+  private int nextEntry;
+
+  /**
+   * The entry of every indexed object.
+   */
+  private final Map<SectorContainedObject, Integer> entryOf = new IdentityHashMap<>();
+
+  /**
+   * Scratch space for working out bounding spheres.
+   */
+  private final double[] bounds = new double[4];
+
+  /**
+   * Scratch space for the traversals.
+   */
+  private int[] stack = new int[64];
+  private double[] heapDistance = new double[64];
+  private int[] heapItem = new int[64];
+
+  /**
+   * Constructor. Creates an empty index.
+   */
+  public SectorSpatialIndex() {
+    clear();
+  }
+
+  /**
+   * Get the number of indexed objects.
+   *
+   * @return the number of indexed objects.
+   */
+  public int size() {
+    return entryOf.size();
+  }
+
+  /**
+   * Add an object to the index, where it currently is.
+   *
+   * @param object the object.
+   */
+  public void add(SectorContainedObject object) {
+    if (entryOf.containsKey(object)) {
+      update(object);
+      return;
+    }
+    int entry = freeEntryCount > 0 ? freeEntries[--freeEntryCount] : newEntry();
+    entryObject[entry] = object;
+    entryOf.put(object, entry);
+    boundsOf(object);
+    entryX[entry] = bounds[0];
+    entryY[entry] = bounds[1];
+    entryZ[entry] = bounds[2];
+    entryRadius[entry] = bounds[3];
+    link(entry, findNode(bounds[0], bounds[1], bounds[2], bounds[3]));
+  }
+
+  /**
+   * Remove an object from the index.
+   *
+   * @param object the object.
+   */
+  public void remove(SectorContainedObject object) {
+    Integer entry = entryOf.remove(object);
+    if (entry == null) {
+      return;
+    }
+    unlink(entry);
+    entryObject[entry] = null;
+    if (freeEntryCount == freeEntries.length) {
+      freeEntries = Arrays.copyOf(freeEntries, freeEntries.length * 2);
+    }
+    freeEntries[freeEntryCount++] = entry;
+  }
+
+  /**
+   * Bring an object's entry up to date with where it is now. Cheap unless the object has left
+   * its node.
+   *
+   * @param object the object.
+   */
+  public void update(SectorContainedObject object) {
+    Integer boxedEntry = entryOf.get(object);
+    if (boxedEntry == null) {
+      return;
+    }
+    int entry = boxedEntry;
+    boundsOf(object);
+    double x = bounds[0];
+    double y = bounds[1];
+    double z = bounds[2];
+    double radius = bounds[3];
+    entryX[entry] = x;
+    entryY[entry] = y;
+    entryZ[entry] = z;
+    entryRadius[entry] = radius;
+
+    int node = entryNode[entry];
+    if (node == 0 ? findNode(x, y, z, radius) == 0
+        : insideBox(node, x, y, z) && radius <= nodeHalfSize[node]) {
+      // still fits where it is
+      return;
+    }
+    unlink(entry);
+    link(entry, findNode(x, y, z, radius));
+  }
+
+  /**
+   * Re-index every object from scratch, e.g. after the sector's floating origin has shifted.
+   *
+   * @param objects the objects to index.
+   */
+  public void rebuild(List<SectorContainedObject> objects) {
+    entryOf.clear();
+    Arrays.fill(entryObject, null);
+    freeEntryCount = 0;
+    nextEntry = 0;
+    clear();
+    for (int i = 0; i < objects.size(); i++) {
+      add(objects.get(i));
+    }
+  }
+
+  /**
+   * Find the objects whose bounding sphere reaches within a distance of a point.
+   *
+   * @param x      the x coordinate of the point.
+   * @param y      the y coordinate of the point.
+   * @param z      the z coordinate of the point.
+   * @param radius the distance.
+   * @param out    receives the objects, in no particular order.
+   */
+  public void queryRadius(double x, double y, double z, double radius,
+                          List<SectorContainedObject> out) {
+    int stackSize = 0;
+    stack[stackSize++] = 0;
+    while (stackSize > 0) {
+      int node = stack[--stackSize];
+      if (nodeSubtreeCount[node] == 0
+          || node != 0 && looseBoxDistance(node, x, y, z) > radius) {
+        continue;
+      }
+      for (int entry = nodeFirstEntry[node]; entry != -1; entry = entryNext[entry]) {
+        if (entryDistance(entry, x, y, z) <= radius) {
+          out.add(entryObject[entry]);
+        }
+      }
+      stackSize = pushChildren(node, stackSize);
+    }
+  }
+
+  /**
+   * Find the objects whose bounding sphere reaches into a cone, e.g. the ship's field of view.
+   *
+   * @param x           the x coordinate of the tip of the cone.
+   * @param y           the y coordinate of the tip of the cone.
+   * @param z           the z coordinate of the tip of the cone.
+   * @param directionX  the x component of the cone's direction (unit length).
+   * @param directionY  the y component of the cone's direction (unit length).
+   * @param directionZ  the z component of the cone's direction (unit length).
+   * @param halfAngle   the angle between the cone's direction and its side, in radians.
+   * @param maxDistance how far the cone reaches.
+   * @param out         receives the objects, in no particular order.
+   */
+  public void queryCone(double x, double y, double z, double directionX, double directionY,
+                        double directionZ, double halfAngle, double maxDistance,
+                        List<SectorContainedObject> out) {
+    double cos = Math.cos(halfAngle);
+    double sin = Math.sin(halfAngle);
+    int stackSize = 0;
+    stack[stackSize++] = 0;
+    while (stackSize > 0) {
+      int node = stack[--stackSize];
+      if (nodeSubtreeCount[node] == 0) {
+        continue;
+      }
+      if (node != 0) {
+        // the sphere around the node's loose box
+        double nodeRadius = 2 * nodeHalfSize[node] * Math.sqrt(3);
+        if (!sphereInCone(nodeCenterX[node] - x, nodeCenterY[node] - y, nodeCenterZ[node] - z,
+            nodeRadius, directionX, directionY, directionZ, cos, sin, maxDistance)) {
+          continue;
+        }
+      }
+      for (int entry = nodeFirstEntry[node]; entry != -1; entry = entryNext[entry]) {
+        if (sphereInCone(entryX[entry] - x, entryY[entry] - y, entryZ[entry] - z,
+            entryRadius[entry], directionX, directionY, directionZ, cos, sin, maxDistance)) {
+          out.add(entryObject[entry]);
+        }
+      }
+      stackSize = pushChildren(node, stackSize);
+    }
+  }
+
+  /**
+   * Find the objects whose bounding spheres are closest to a point.
+   *
+   * @param x     the x coordinate of the point.
+   * @param y     the y coordinate of the point.
+   * @param z     the z coordinate of the point.
+   * @param count the number of objects to find.
+   * @param out   receives the objects, closest first.
+   */
+  public void queryNearest(double x, double y, double z, int count,
+                           List<SectorContainedObject> out) {
+    // best-first search: nodes are keyed by the distance to their loose box, which no entry in
+    // them can be closer than, so entries come off the heap in order of distance
+    int heapSize = 0;
+    heapSize = heapPush(heapSize, 0, 0);
+    int found = 0;
+    while (heapSize > 0 && found < count) {
+      int item = heapItem[0];
+      heapSize = heapPop(heapSize);
+      if (item < 0) {
+        out.add(entryObject[-1 - item]);
+        found++;
+        continue;
+      }
+
+      int node = item;
+      if (nodeSubtreeCount[node] == 0) {
+        continue;
+      }
+      for (int entry = nodeFirstEntry[node]; entry != -1; entry = entryNext[entry]) {
+        heapSize = heapPush(heapSize, entryDistance(entry, x, y, z), -1 - entry);
+      }
+      int firstChild = nodeFirstChild[node];
+      if (firstChild != -1) {
+        for (int child = firstChild; child < firstChild + 8; child++) {
+          if (nodeSubtreeCount[child] > 0) {
+            heapSize = heapPush(heapSize, looseBoxDistance(child, x, y, z), child);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Work out the bounding sphere of an object into {@link #bounds}.
+   */
+  private void boundsOf(SectorContainedObject object) {
+    centerReachOf(object);
+    bounds[3] += object.getBoundingRadius();
+  }
+
+  /**
+   * Work out a sphere that holds the center of an object into {@link #bounds}: a single point
+   * for objects that move freely, and the whole orbit for objects on rails.
+   */
+  private void centerReachOf(SectorContainedObject object) {
+    if (object instanceof PhysicsObject physicsObject && physicsObject.getOrbit() != null) {
+      centerReachOf(physicsObject.getOrbitPrimary());
+      bounds[3] += physicsObject.getOrbit().getApoapsisDistance();
+      return;
+    }
+
+    SectorBodyStore store = object.getBodyStore();
+    if (store == null) {
+      SectorLocalPos position = object.getPosition();
+      bounds[0] = position.x();
+      bounds[1] = position.y();
+      bounds[2] = position.z();
+    } else {
+      // straight from the columns, without going through (and sampling) the object
+      int slot = store.slotOf(object.getBodyHandle());
+      bounds[0] = store.column(SectorBodyStore.POSITION_X)[slot];
+      bounds[1] = store.column(SectorBodyStore.POSITION_Y)[slot];
+      bounds[2] = store.column(SectorBodyStore.POSITION_Z)[slot];
+    }
+    bounds[3] = 0;
+  }
+
+  /**
+   * Find the node an object with the given bounding sphere belongs in, creating nodes as needed.
+   */
+  private int findNode(double x, double y, double z, double radius) {
+    int node = 0;
+    if (!insideBox(0, x, y, z)) {
+      return 0;
+    }
+    while (nodeDepth[node] < MAX_DEPTH && radius <= nodeHalfSize[node] / 2) {
+      if (nodeFirstChild[node] == -1) {
+        split(node);
+      }
+      node = nodeFirstChild[node] + octant(node, x, y, z);
+    }
+    return node;
+  }
+
+  /**
+   * Check whether a point is inside a node's (tight) box.
+   */
+  private boolean insideBox(int node, double x, double y, double z) {
+    double halfSize = nodeHalfSize[node];
+    return Math.abs(x - nodeCenterX[node]) <= halfSize
+        && Math.abs(y - nodeCenterY[node]) <= halfSize
+        && Math.abs(z - nodeCenterZ[node]) <= halfSize;
+  }
+
+  /**
+   * Get the distance from a point to a node's loose box (twice the size of its tight box).
+   */
+  private double looseBoxDistance(int node, double x, double y, double z) {
+    double looseHalfSize = 2 * nodeHalfSize[node];
+    double dx = Math.max(0, Math.abs(x - nodeCenterX[node]) - looseHalfSize);
+    double dy = Math.max(0, Math.abs(y - nodeCenterY[node]) - looseHalfSize);
+    double dz = Math.max(0, Math.abs(z - nodeCenterZ[node]) - looseHalfSize);
+    return Math.sqrt(dx * dx + dy * dy + dz * dz);
+  }
+
+  /**
+   * Get the distance from a point to an entry's bounding sphere (0 if the point is inside it).
+   */
+  private double entryDistance(int entry, double x, double y, double z) {
+    double dx = entryX[entry] - x;
+    double dy = entryY[entry] - y;
+    double dz = entryZ[entry] - z;
+    return Math.max(0, Math.sqrt(dx * dx + dy * dy + dz * dz) - entryRadius[entry]);
+  }
+
+  /**
+   * Check whether a sphere reaches into a cone. Errs on the side of yes for spheres just behind
+   * the tip of the cone.
+   *
+   * @param offsetX the x offset from the tip of the cone to the center of the sphere.
+   * @param offsetY the y offset from the tip of the cone to the center of the sphere.
+   * @param offsetZ the z offset from the tip of the cone to the center of the sphere.
+   */
+  private static boolean sphereInCone(double offsetX, double offsetY, double offsetZ,
+                                      double radius, double directionX, double directionY,
+                                      double directionZ, double cos, double sin,
+                                      double maxDistance) {
+    double along = offsetX * directionX + offsetY * directionY + offsetZ * directionZ;
+    if (along > maxDistance + radius) {
+      return false;
+    }
+    double distanceSquared = offsetX * offsetX + offsetY * offsetY + offsetZ * offsetZ;
+    if (distanceSquared <= radius * radius) {
+      return true;
+    }
+    double across = Math.sqrt(Math.max(0, distanceSquared - along * along));
+    // how far the center is outside the side of the cone
+    return across * cos - along * sin <= radius;
+  }
+
+  /**
+   * Push a node's non-empty children onto the traversal stack.
+   *
+   * @return the new stack size.
+   */
+  private int pushChildren(int node, int stackSize) {
+    int firstChild = nodeFirstChild[node];
+    if (firstChild == -1) {
+      return stackSize;
+    }
+    if (stackSize + 8 > stack.length) {
+      stack = Arrays.copyOf(stack, stack.length * 2);
+    }
+    for (int child = firstChild; child < firstChild + 8; child++) {
+      if (nodeSubtreeCount[child] > 0) {
+        stack[stackSize++] = child;
+      }
+    }
+    return stackSize;
+  }
+
+  /**
+   * Push an item onto the min-heap used by {@link #queryNearest}.
+   *
+   * @return the new heap size.
+   */
+  private int heapPush(int heapSize, double distance, int item) {
+    if (heapSize == heapItem.length) {
+      heapItem = Arrays.copyOf(heapItem, heapSize * 2);
+      heapDistance = Arrays.copyOf(heapDistance, heapSize * 2);
+    }
+    int index = heapSize;
+    while (index > 0) {
+      int parent = (index - 1) / 2;
+      if (heapDistance[parent] <= distance) {
+        break;
+      }
+      heapDistance[index] = heapDistance[parent];
+      heapItem[index] = heapItem[parent];
+      index = parent;
+    }
+    heapDistance[index] = distance;
+    heapItem[index] = item;
+    return heapSize + 1;
+  }
+
+  /**
+   * Remove the closest item from the min-heap used by {@link #queryNearest}.
+   *
+   * @return the new heap size.
+   */
+  private int heapPop(int heapSize) {
+    int last = heapSize - 1;
+    double distance = heapDistance[last];
+    int item = heapItem[last];
+    int index = 0;
+    while (true) {
+      int child = index * 2 + 1;
+      if (child >= last) {
+        break;
+      }
+      if (child + 1 < last && heapDistance[child + 1] < heapDistance[child]) {
+        child++;
+      }
+      if (distance <= heapDistance[child]) {
+        break;
+      }
+      heapDistance[index] = heapDistance[child];
+      heapItem[index] = heapItem[child];
+      index = child;
+    }
+    heapDistance[index] = distance;
+    heapItem[index] = item;
+    return last;
+  }
+
+  /**
+   * Reset the tree to just an empty root.
+   */
+  private void clear() {
+    nodeCount = 0;
+    newNode(0, 0, 0, ROOT_HALF_SIZE, -1, 0);
+  }
+
+  /**
+   * Give a leaf its 8 children.
+   */
+  private void split(int node) {
+    double quarterSize = nodeHalfSize[node] / 2;
+    int firstChild = nodeCount;
+    for (int octant = 0; octant < 8; octant++) {
+      newNode(nodeCenterX[node] + ((octant & 1) == 0 ? -quarterSize : quarterSize),
+          nodeCenterY[node] + ((octant & 2) == 0 ? -quarterSize : quarterSize),
+          nodeCenterZ[node] + ((octant & 4) == 0 ? -quarterSize : quarterSize), quarterSize,
+          node, nodeDepth[node] + 1);
+    }
+    nodeFirstChild[node] = firstChild;
+  }
+
+  /**
+   * Get the child of a node that a point falls in.
+   */
+  private int octant(int node, double x, double y, double z) {
+    return (x < nodeCenterX[node] ? 0 : 1) | (y < nodeCenterY[node] ? 0 : 2)
+        | (z < nodeCenterZ[node] ? 0 : 4);
+  }
+
+  private int newNode(double x, double y, double z, double halfSize, int parent, int depth) {
+    if (nodeCount == nodeHalfSize.length) {
+      int capacity = nodeCount * 2;
+      nodeCenterX = Arrays.copyOf(nodeCenterX, capacity);
+      nodeCenterY = Arrays.copyOf(nodeCenterY, capacity);
+      nodeCenterZ = Arrays.copyOf(nodeCenterZ, capacity);
+      nodeHalfSize = Arrays.copyOf(nodeHalfSize, capacity);
+      nodeFirstChild = Arrays.copyOf(nodeFirstChild, capacity);
+      nodeParent = Arrays.copyOf(nodeParent, capacity);
+      nodeDepth = Arrays.copyOf(nodeDepth, capacity);
+      nodeFirstEntry = Arrays.copyOf(nodeFirstEntry, capacity);
+      nodeSubtreeCount = Arrays.copyOf(nodeSubtreeCount, capacity);
+    }
+    int node = nodeCount++;
+    nodeCenterX[node] = x;
+    nodeCenterY[node] = y;
+    nodeCenterZ[node] = z;
+    nodeHalfSize[node] = halfSize;
+    nodeFirstChild[node] = -1;
+    nodeParent[node] = parent;
+    nodeDepth[node] = depth;
+    nodeFirstEntry[node] = -1;
+    nodeSubtreeCount[node] = 0;
+    return node;
+  }
+
+  private int newEntry() {
+    if (nextEntry == entryObject.length) {
+      int capacity = nextEntry * 2;
+      entryObject = Arrays.copyOf(entryObject, capacity);
+      entryX = Arrays.copyOf(entryX, capacity);
+      entryY = Arrays.copyOf(entryY, capacity);
+      entryZ = Arrays.copyOf(entryZ, capacity);
+      entryRadius = Arrays.copyOf(entryRadius, capacity);
+      entryNode = Arrays.copyOf(entryNode, capacity);
+      entryPrevious = Arrays.copyOf(entryPrevious, capacity);
+      entryNext = Arrays.copyOf(entryNext, capacity);
+    }
+    return nextEntry++;
+  }
+
+  /**
+   * Keep an entry in a node.
+   */
+  private void link(int entry, int node) {
+    entryNode[entry] = node;
+    entryPrevious[entry] = -1;
+    entryNext[entry] = nodeFirstEntry[node];
+    if (nodeFirstEntry[node] != -1) {
+      entryPrevious[nodeFirstEntry[node]] = entry;
+    }
+    nodeFirstEntry[node] = entry;
+    for (int parent = node; parent != -1; parent = nodeParent[parent]) {
+      nodeSubtreeCount[parent]++;
+    }
+  }
+
+  /**
+   * Take an entry out of its node.
+   */
+  private void unlink(int entry) {
+    int node = entryNode[entry];
+    if (entryPrevious[entry] != -1) {
+      entryNext[entryPrevious[entry]] = entryNext[entry];
+    } else {
+      nodeFirstEntry[node] = entryNext[entry];
+    }
+    if (entryNext[entry] != -1) {
+      entryPrevious[entryNext[entry]] = entryPrevious[entry];
+    }
+    for (int parent = node; parent != -1; parent = nodeParent[parent]) {
+      nodeSubtreeCount[parent]--;
+    }
+  }
+}
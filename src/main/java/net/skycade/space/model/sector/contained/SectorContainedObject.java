@@ -1,11 +1,14 @@
 package net.skycade.space.model.sector.contained;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import net.minestom.server.coordinate.Pos;
-import net.skycade.space.constants.PhysicsAndRenderingConstants;
-import net.skycade.space.model.physics.vector.SectorContainedPos;
-import net.skycade.space.model.physics.vector.SectorContainedVec;
+import net.skycade.space.model.physics.integrator.SectorIntegrator;
+import net.skycade.space.model.physics.vector.Quaternion;
+import net.skycade.space.model.physics.vector.SectorLocalPoint;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.physics.vector.SectorLocalVec;
+import net.skycade.space.model.sector.SectorBodyStore;
+import net.skycade.space.renderer.LodTier;
+import net.skycade.space.renderer.ParticleSink;
 import net.skycade.space.space.SpaceShipSpace;
 
 /**
@@ -14,60 +17,66 @@ import net.skycade.space.space.SpaceShipSpace;
  * This is used to represent objects that are contained within a sector, such as
  * a planet or any other static object that has a position within a sector.
  * <p>
- * The position of the object is represented by a {@link SectorContainedPos}, which is RELATIVE
- * to the sector, not the universe.
+ * The position of the object is represented by a {@link SectorLocalPos}, which is RELATIVE
+ * to the sector's floating local origin (see {@link net.skycade.space.model.sector.Sector}), not
+ * the universe. All physics state is kept in primitive doubles so that ticking and rendering
+ * don't allocate big-number objects.
  *
  * @author Jacob Cohen
  */
 public abstract class SectorContainedObject {
 
   /**
-   * The position of the object relative to the sector.
+   * The store holding the object's physics state, or null while the object is detached.
+   * <p>
+   * Objects that aren't in a sector are <i>detached</i>: their state is kept in
+   * {@link #detachedState} instead, and moved into the sector's store once they're added to it.
+   * Only a detached object that is ticked on its own (see {@link #tickPhysics()}) gets a store of
+   * its own.
    */
-  private SectorContainedPos position;
+  private SectorBodyStore bodyStore;
 
   /**
-   * The velocity of the object.
+   * The handle of the object's body in {@link #bodyStore}.
    */
-  private SectorContainedVec velocity;
+  private int bodyHandle;
 
   /**
-   * The acceleration of the object.
+   * The physics state of a detached object, one value per column of a {@link SectorBodyStore};
+   * null while the object is in a store.
    */
-  private SectorContainedVec acceleration;
+  private double[] detachedState;
 
   /**
-   * The rotation of the object.
+   * The flags of a detached object (see {@link SectorBodyStore#FLAG_ON_RAILS}).
    */
-  private SectorContainedPos rotation;
+  private int detachedFlags;
 
   /**
-   * The velocity of the rotation of the object.
+   * The integrator of a detached object.
    */
-  private SectorContainedVec angularVelocity;
+  private SectorIntegrator detachedIntegrator;
 
   /**
-   * The acceleration of the rotation of the object.
+   * Construct a {@link SectorContainedObject} without any physics state, for subclasses that keep
+   * their own (see {@link SectorStaticObject}).
    */
-  private SectorContainedVec angularAcceleration;
-
-  /**
-   * The time at which the object was last updated.
-   */
-  private long lastTick;
+  protected SectorContainedObject() {
+    this.bodyHandle = -1;
+  }
 
   /**
    * Construct a new {@link SectorContainedObject}.
    *
    * @param position the position of the object relative to the sector.
    */
-  public SectorContainedObject(SectorContainedPos position) {
-    this.position = position;
-    this.acceleration = SectorContainedVec.ZERO;
-    this.velocity = SectorContainedVec.ZERO;
-    this.rotation = SectorContainedPos.ZERO;
-    this.angularAcceleration = SectorContainedVec.ZERO;
-    this.angularVelocity = SectorContainedVec.ZERO;
+  public SectorContainedObject(SectorLocalPos position) {
+    this.bodyHandle = -1;
+    this.detachedState = new double[SectorBodyStore.COLUMN_COUNT];
+    this.detachedState[SectorBodyStore.ORIENTATION_W] = 1;
+    this.detachedState[SectorBodyStore.PREVIOUS_ORIENTATION_W] = 1;
+    this.detachedIntegrator = SectorIntegrator.SEMI_IMPLICIT_EULER;
+    this.setPosition(position);
   }
 
   /**
@@ -80,16 +89,197 @@ public abstract class SectorContainedObject {
    * @param angularVelocity     the velocity of the rotation of the object.
    * @param angularAcceleration the acceleration of the rotation of the object.
    */
-  public SectorContainedObject(SectorContainedPos position, SectorContainedVec velocity,
-                               SectorContainedVec acceleration, SectorContainedPos rotation,
-                               SectorContainedVec angularVelocity,
-                               SectorContainedVec angularAcceleration) {
-    this.position = position;
-    this.velocity = velocity;
-    this.acceleration = acceleration;
-    this.rotation = rotation;
-    this.angularVelocity = angularVelocity;
-    this.angularAcceleration = angularAcceleration;
+  public SectorContainedObject(SectorLocalPos position, SectorLocalVec velocity,
+                               SectorLocalVec acceleration, SectorLocalPos rotation,
+                               SectorLocalVec angularVelocity,
+                               SectorLocalVec angularAcceleration) {
+    this(position);
+    this.setVelocity(velocity);
+    this.setAcceleration(acceleration);
+    this.setRotation(rotation);
+    this.setAngularVelocity(angularVelocity);
+    this.setAngularAcceleration(angularAcceleration);
+  }
+
+  /**
+   * Get the store holding the object's physics state.
+   *
+   * @return the store holding the object's physics state, or null while the object is detached
+   *     (see {@link #bodyStore}) and for static objects.
+   */
+  public SectorBodyStore getBodyStore() {
+    return bodyStore;
+  }
+
+  /**
+   * Get the handle of the object's body in its store.
+   *
+   * @return the handle of the object's body, or -1 while the object isn't in a store.
+   */
+  public int getBodyHandle() {
+    return bodyHandle;
+  }
+
+  /**
+   * Point the object at its body in a new store. Only meant to be called by
+   * {@link SectorBodyStore#adopt(SectorContainedObject)}, after the state has been moved.
+   *
+   * @param bodyStore  the new store.
+   * @param bodyHandle the handle of the object's body in the new store.
+   */
+  public void attachToBodyStore(SectorBodyStore bodyStore, int bodyHandle) {
+    double[] state = this.detachedState;
+    this.bodyStore = bodyStore;
+    this.bodyHandle = bodyHandle;
+    this.detachedState = null;
+    if (state == null) {
+      return;
+    }
+
+    // coming from detached, the new body still has to be given the state
+    for (int column = 0; column < SectorBodyStore.COLUMN_COUNT; column++) {
+      bodyStore.set(column, bodyHandle, state[column]);
+    }
+    bodyStore.setFlag(bodyHandle, detachedFlags, true);
+    bodyStore.setIntegrator(bodyHandle, detachedIntegrator);
+    this.detachedIntegrator = null;
+  }
+
+  /**
+   * Take the object's state out of its store and detach it, releasing its body. Only meant to be
+   * called by the sector the object is being removed from.
+   */
+  public void detachFromBodyStore() {
+    if (bodyStore == null) {
+      return;
+    }
+    double[] state = new double[SectorBodyStore.COLUMN_COUNT];
+    for (int column = 0; column < SectorBodyStore.COLUMN_COUNT; column++) {
+      state[column] = bodyStore.get(column, bodyHandle);
+    }
+    this.detachedFlags = bodyStore.flags()[bodyStore.slotOf(bodyHandle)]
+        & ~SectorBodyStore.FLAG_ASLEEP;
+    this.detachedIntegrator = bodyStore.getIntegrator(bodyHandle);
+    this.detachedState = state;
+    bodyStore.remove(bodyHandle);
+    this.bodyStore = null;
+    this.bodyHandle = -1;
+  }
+
+  /**
+   * Get a single value of the object's state, without going through any of the accessors below.
+   *
+   * @param column the column id (see {@link SectorBodyStore}).
+   * @return the value.
+   */
+  protected double getStateValue(int column) {
+    return bodyStore != null ? bodyStore.get(column, bodyHandle) : detachedState[column];
+  }
+
+  /**
+   * Set a single value of the object's state, without waking it up.
+   *
+   * @param column the column id (see {@link SectorBodyStore}).
+   * @param value  the value.
+   */
+  protected void setStateValue(int column, double value) {
+    if (bodyStore != null) {
+      bodyStore.set(column, bodyHandle, value);
+    } else {
+      detachedState[column] = value;
+    }
+  }
+
+  /**
+   * Set or clear a flag of the object (see {@link SectorBodyStore#FLAG_ON_RAILS}).
+   *
+   * @param flag  the flag.
+   * @param value whether the flag should be set.
+   */
+  protected void setFlag(int flag, boolean value) {
+    if (bodyStore != null) {
+      bodyStore.setFlag(bodyHandle, flag, value);
+    } else {
+      detachedFlags = value ? detachedFlags | flag : detachedFlags & ~flag;
+    }
+  }
+
+  /**
+   * Wake the object up if it was asleep (see {@link SectorBodyStore#wake(int)}). Detached objects
+   * never sleep.
+   */
+  protected void wake() {
+    if (bodyStore != null) {
+      bodyStore.wake(bodyHandle);
+    }
+  }
+
+  /**
+   * Get the simulation time the object's state is at.
+   *
+   * @return the simulation time of the object's store, in seconds; 0 while it's detached.
+   */
+  protected double getSimulationTimeSeconds() {
+    return bodyStore != null ? bodyStore.getSimulationTimeSeconds() : 0;
+  }
+
+  /**
+   * Read three consecutive values of a detached object's state.
+   */
+  private SectorLocalPos detachedPos(int firstColumn) {
+    return new SectorLocalPos(detachedState[firstColumn], detachedState[firstColumn + 1],
+        detachedState[firstColumn + 2]);
+  }
+
+  /**
+   * Read three consecutive values of a detached object's state as a vector.
+   */
+  private SectorLocalVec detachedVec(int firstColumn) {
+    return new SectorLocalVec(detachedState[firstColumn], detachedState[firstColumn + 1],
+        detachedState[firstColumn + 2]);
+  }
+
+  /**
+   * Read four consecutive values of a detached object's state as an orientation.
+   */
+  private Quaternion detachedQuaternion(int firstColumn) {
+    return new Quaternion(detachedState[firstColumn], detachedState[firstColumn + 1],
+        detachedState[firstColumn + 2], detachedState[firstColumn + 3]);
+  }
+
+  /**
+   * Set three consecutive values of the object's state.
+   */
+  private void setPoint(int firstColumn, SectorLocalPoint value) {
+    if (bodyStore != null) {
+      bodyStore.set(firstColumn, bodyHandle, value);
+      return;
+    }
+    detachedState[firstColumn] = value.x();
+    detachedState[firstColumn + 1] = value.y();
+    detachedState[firstColumn + 2] = value.z();
+  }
+
+  /**
+   * Set four consecutive values of the object's state to an orientation.
+   */
+  private void setQuaternion(int firstColumn, Quaternion value) {
+    if (bodyStore != null) {
+      bodyStore.set(firstColumn, bodyHandle, value);
+      return;
+    }
+    detachedState[firstColumn] = value.w();
+    detachedState[firstColumn + 1] = value.x();
+    detachedState[firstColumn + 2] = value.y();
+    detachedState[firstColumn + 3] = value.z();
+  }
+
+  /**
+   * Get the vector in three consecutive values of the object's state.
+   */
+  private SectorLocalVec getVecState(int firstColumn) {
+    return bodyStore != null ? bodyStore.getVec(firstColumn, bodyHandle)
+        : detachedVec(firstColumn);
   }
 
   /**
@@ -97,17 +287,37 @@ public abstract class SectorContainedObject {
    *
    * @return the position of the object relative to the sector.
    */
-  public SectorContainedPos getPosition() {
-    return position;
+  public SectorLocalPos getPosition() {
+    return bodyStore != null ? bodyStore.getPos(SectorBodyStore.POSITION_X, bodyHandle)
+        : detachedPos(SectorBodyStore.POSITION_X);
   }
 
   /**
-   * Set the position of the object relative to the sector.
+   * Set the position of the object relative to the sector. Like every other change to the
+   * object's motion, this wakes the object up if it was asleep.
    *
    * @param position the position of the object relative to the sector.
    */
-  public void setPosition(SectorContainedPos position) {
-    this.position = position;
+  public void setPosition(SectorLocalPos position) {
+    setPoint(SectorBodyStore.POSITION_X, position);
+    wake();
+    // a new position is a teleport, don't interpolate from the old one
+    setPoint(SectorBodyStore.PREVIOUS_POSITION_X, position);
+  }
+
+  /**
+   * Get the position of the object, interpolated between the last two physics steps.
+   *
+   * @param alpha 0 for the position before the last step, 1 for the current position.
+   * @return the interpolated position of the object relative to the sector.
+   */
+  public SectorLocalPos getInterpolatedPosition(double alpha) {
+    if (bodyStore == null) {
+      SectorLocalPos previous = detachedPos(SectorBodyStore.PREVIOUS_POSITION_X);
+      return previous.add(detachedPos(SectorBodyStore.POSITION_X).sub(previous).mul(alpha));
+    }
+    return bodyStore.getInterpolatedPos(SectorBodyStore.POSITION_X,
+        SectorBodyStore.PREVIOUS_POSITION_X, bodyHandle, alpha);
   }
 
   /**
@@ -115,8 +325,8 @@ public abstract class SectorContainedObject {
    *
    * @return the velocity of the object.
    */
-  public SectorContainedVec getVelocity() {
-    return velocity;
+  public SectorLocalVec getVelocity() {
+    return getVecState(SectorBodyStore.VELOCITY_X);
   }
 
   /**
@@ -124,8 +334,9 @@ public abstract class SectorContainedObject {
    *
    * @param velocity the new velocity of the object.
    */
-  public void setVelocity(SectorContainedVec velocity) {
-    this.velocity = velocity;
+  public void setVelocity(SectorLocalVec velocity) {
+    setPoint(SectorBodyStore.VELOCITY_X, velocity);
+    wake();
   }
 
   /**
@@ -133,8 +344,8 @@ public abstract class SectorContainedObject {
    *
    * @return the acceleration of the object.
    */
-  public SectorContainedVec getAcceleration() {
-    return acceleration;
+  public SectorLocalVec getAcceleration() {
+    return getVecState(SectorBodyStore.ACCELERATION_X);
   }
 
   /**
@@ -142,35 +353,101 @@ public abstract class SectorContainedObject {
    *
    * @param acceleration the new acceleration of the object.
    */
-  public void setAcceleration(SectorContainedVec acceleration) {
-    this.acceleration = acceleration;
+  public void setAcceleration(SectorLocalVec acceleration) {
+    setPoint(SectorBodyStore.ACCELERATION_X, acceleration);
+    wake();
+  }
+
+  /**
+   * Get the orientation of the object.
+   *
+   * @return the orientation of the object.
+   */
+  public Quaternion getOrientation() {
+    return bodyStore != null ? bodyStore.getQuaternion(SectorBodyStore.ORIENTATION_W, bodyHandle)
+        : detachedQuaternion(SectorBodyStore.ORIENTATION_W);
+  }
+
+  /**
+   * Set the orientation of the object.
+   *
+   * @param orientation the orientation of the object.
+   */
+  public void setOrientation(Quaternion orientation) {
+    Quaternion normalized = orientation.normalize();
+    setQuaternion(SectorBodyStore.ORIENTATION_W, normalized);
+    // a new orientation is a teleport, don't interpolate from the old one
+    setQuaternion(SectorBodyStore.PREVIOUS_ORIENTATION_W, normalized);
+    wake();
   }
 
   /**
-   * Get the rotation of the ship.
+   * Get the orientation of the object, blended between the last two physics steps.
    *
-   * @return the rotation of the ship.
+   * @param alpha 0 for the orientation before the last step, 1 for the current orientation.
+   * @return the blended orientation of the object.
    */
-  public SectorContainedPos getRotation() {
-    return this.rotation;
+  public Quaternion getInterpolatedOrientation(double alpha) {
+    if (bodyStore == null) {
+      return detachedQuaternion(SectorBodyStore.PREVIOUS_ORIENTATION_W)
+          .nlerp(detachedQuaternion(SectorBodyStore.ORIENTATION_W), alpha);
+    }
+    return bodyStore.getInterpolatedQuaternion(bodyHandle, alpha);
   }
 
   /**
-   * Set the rotation of the ship.
+   * Get the rotation matrix of the object's current orientation (see
+   * {@link Quaternion#toRotationMatrix(double[])}). The matrix is cached in the object's body
+   * store (see {@link SectorBodyStore#getRotationMatrix(int)}), and only rebuilt when the
+   * orientation has changed since the last call. Detached objects build a new one every call.
    *
-   * @param rotation the rotation of the ship.
+   * @return the 9 entries of the matrix, row by row; don't modify them, they may be shared.
    */
-  public void setRotation(SectorContainedPos rotation) {
-    this.rotation = rotation;
+  public double[] getRotationMatrix() {
+    if (bodyStore == null) {
+      double[] matrix = new double[9];
+      detachedQuaternion(SectorBodyStore.ORIENTATION_W).toRotationMatrix(matrix);
+      return matrix;
+    }
+    return bodyStore.getRotationMatrix(bodyHandle);
   }
 
   /**
-   * Get the velocity of the rotation of the ship.
+   * Get the rotation of the ship, as yaw, pitch and roll worked out from its orientation.
+   *
+   * @return the rotation of the ship (x: pitch, y: yaw, z: roll).
+   */
+  public SectorLocalPos getRotation() {
+    return getOrientation().toEuler();
+  }
+
+  /**
+   * Set the rotation of the ship, as yaw, pitch and roll.
+   *
+   * @param rotation the rotation of the ship (x: pitch, y: yaw, z: roll).
+   */
+  public void setRotation(SectorLocalPos rotation) {
+    setOrientation(Quaternion.fromEuler(rotation));
+  }
+
+  /**
+   * Get the rotation of the ship, interpolated between the last two physics steps.
+   *
+   * @param alpha 0 for the rotation before the last step, 1 for the current rotation.
+   * @return the interpolated rotation of the ship (x: pitch, y: yaw, z: roll).
+   */
+  public SectorLocalPos getInterpolatedRotation(double alpha) {
+    return getInterpolatedOrientation(alpha).toEuler();
+  }
+
+  /**
+   * Get the velocity of the rotation of the ship, around its own pitch (x), yaw (y) and roll (z)
+   * axes.
    *
    * @return the velocity of the rotation of the ship.
    */
-  public SectorContainedVec getAngularVelocity() {
-    return this.angularVelocity;
+  public SectorLocalVec getAngularVelocity() {
+    return getVecState(SectorBodyStore.ANGULAR_VELOCITY_X);
   }
 
   /**
@@ -178,8 +455,9 @@ public abstract class SectorContainedObject {
    *
    * @param angularVelocity the velocity of the rotation of the ship.
    */
-  public void setAngularVelocity(SectorContainedVec angularVelocity) {
-    this.angularVelocity = angularVelocity;
+  public void setAngularVelocity(SectorLocalVec angularVelocity) {
+    setPoint(SectorBodyStore.ANGULAR_VELOCITY_X, angularVelocity);
+    wake();
   }
 
   /**
@@ -187,8 +465,8 @@ public abstract class SectorContainedObject {
    *
    * @return the acceleration of the rotation of the ship.
    */
-  public SectorContainedVec getAngularAcceleration() {
-    return this.angularAcceleration;
+  public SectorLocalVec getAngularAcceleration() {
+    return getVecState(SectorBodyStore.ANGULAR_ACCELERATION_X);
   }
 
   /**
@@ -196,19 +474,111 @@ public abstract class SectorContainedObject {
    *
    * @param angularAcceleration the acceleration of the rotation of the ship.
    */
-  public void setAngularAcceleration(SectorContainedVec angularAcceleration) {
-    this.angularAcceleration = angularAcceleration;
+  public void setAngularAcceleration(SectorLocalVec angularAcceleration) {
+    setPoint(SectorBodyStore.ANGULAR_ACCELERATION_X, angularAcceleration);
+    wake();
+  }
+
+  /**
+   * Get the radius of a sphere around the object's position that holds all of the object. Used
+   * to index the object in its sector's {@link net.skycade.space.model.sector.SectorSpatialIndex}.
+   *
+   * @return the bounding radius of the object, in meters; 0 for objects that are just a point.
+   */
+  public double getBoundingRadius() {
+    return 0;
+  }
+
+  /**
+   * Get the mass of the object.
+   *
+   * @return the mass of the object, in kilograms.
+   */
+  public double getMass() {
+    return getStateValue(SectorBodyStore.MASS);
+  }
+
+  /**
+   * Set the mass of the object. Objects with a mass pull on everything else in their sector.
+   *
+   * @param mass the mass of the object, in kilograms.
+   */
+  public void setMass(double mass) {
+    setStateValue(SectorBodyStore.MASS, mass);
+  }
+
+  /**
+   * Get the integrator advancing the object's state every physics step.
+   *
+   * @return the integrator.
+   */
+  public SectorIntegrator getIntegrator() {
+    return bodyStore != null ? bodyStore.getIntegrator(bodyHandle) : detachedIntegrator;
+  }
+
+  /**
+   * Set the integrator advancing the object's state every physics step. Defaults to
+   * {@link SectorIntegrator#SEMI_IMPLICIT_EULER}.
+   *
+   * @param integrator the integrator.
+   */
+  public void setIntegrator(SectorIntegrator integrator) {
+    if (bodyStore != null) {
+      bodyStore.setIntegrator(bodyHandle, integrator);
+    } else {
+      this.detachedIntegrator = integrator;
+    }
+  }
+
+  /**
+   * Get the acceleration currently caused by gravity, as last computed by the sector.
+   *
+   * @return the acceleration caused by gravity, in meters per second squared.
+   */
+  public SectorLocalVec getGravity() {
+    return getVecState(SectorBodyStore.GRAVITY_X);
+  }
+
+  /**
+   * Get how many particles the object would like to be drawn with this frame, before the
+   * renderer splits its particle budget between objects. Objects drawn with more than a single
+   * particle should override this.
+   *
+   * @param space                                     the spaceship space.
+   * @param absoluteDrawSphereRadiusBoundObjectCenter the absolute draw sphere radius bound object
+   *                                                  center position.
+   * @param distance                                  how far the object is from the ship in the
+   *                                                  frame being rendered, in meters.
+   * @param tier                                      the detail the renderer picked for the
+   *                                                  object this frame.
+   * @return the number of particles the object would draw with no budget.
+   */
+  public int getParticleDemand(SpaceShipSpace space,
+                               Pos absoluteDrawSphereRadiusBoundObjectCenter, double distance,
+                               LodTier tier) {
+    return 1;
   }
 
   /**
-   * Calculates the positions of points on the object positioned absolutely on the
-   * draw circle radius, but in 3D space.
+   * Draws the object: writes the positions of points on the object, positioned absolutely on
+   * the draw circle radius but in 3D space, into the frame being rendered.
+   * <p>
+   * Objects that can draw fewer points when the budget is tight should do so, rather than
+   * dropping some of their points, so that the same points are drawn from frame to frame.
    *
    * @param space                                     the spaceship space.
-   * @param absoluteDrawSphereRadiusBoundObjectCenter the absolute draw sphere radius bound object center position.
-   * @return the positions of points on the object positioned absolutely on the draw circle radius, but in 3D space
+   * @param absoluteDrawSphereRadiusBoundObjectCenter the absolute draw sphere radius bound object
+   *                                                  center position.
+   * @param distance                                  how far the object is from the ship in the
+   *                                                  frame being rendered, in meters.
+   * @param tier                                      the detail the renderer picked for the
+   *                                                  object this frame.
+   * @param particleBudget                            the most particles to draw.
+   * @param sink                                      where to draw the particles.
    */
-  public abstract Pos[] draw(SpaceShipSpace space, Pos absoluteDrawSphereRadiusBoundObjectCenter);
+  public abstract void draw(SpaceShipSpace space, Pos absoluteDrawSphereRadiusBoundObjectCenter,
+                            double distance, LodTier tier, int particleBudget,
+                            ParticleSink sink);
 
   /**
    * Updates the object's physics using custom rules.
@@ -216,81 +586,23 @@ public abstract class SectorContainedObject {
   public abstract void tickCustomPhysics();
 
   /**
-   * Update the object's position based on its velocity and acceleration.
+   * Advance the object by a single fixed physics step, based on its velocity and acceleration.
+   * <p>
+   * The state is updated in place, so ticking an object doesn't allocate anything. Objects in a
+   * sector are normally stepped all at once by {@link
+   * net.skycade.space.model.sector.Sector#tickPhysics()} instead, which also keeps the steps in
+   * line with the wall clock. A detached object is given a store of its own the first time it's
+   * ticked.
    */
   public void tickPhysics() {
     this.tickCustomPhysics();
 
-    long physicsTickDelayMillis = PhysicsAndRenderingConstants.PHYSICS_DELAY_MILLIS;
-
-    // tick the physics to be constant to meters per second using the physics tick delay
-    // as the time between ticks and "meters/second" as the unit of velocity
-    long currentTime = System.currentTimeMillis();
-    long timeSinceLastTick = currentTime - lastTick;
-
-    // calculate the velocity of the object in meters per second using the acceleration
-    // and the time since the last tick
-    BigDecimal velocityX = velocity.x().add(acceleration.x().multiply(
-        BigDecimal.valueOf(timeSinceLastTick)
-            .divide(BigDecimal.valueOf(physicsTickDelayMillis), 10, RoundingMode.HALF_UP)));
-    BigDecimal velocityY = velocity.y().add(acceleration.y().multiply(
-        BigDecimal.valueOf(timeSinceLastTick)
-            .divide(BigDecimal.valueOf(physicsTickDelayMillis), 10, RoundingMode.HALF_UP)));
-    BigDecimal velocityZ = velocity.z().add(acceleration.z().multiply(
-        BigDecimal.valueOf(timeSinceLastTick)
-            .divide(BigDecimal.valueOf(physicsTickDelayMillis), 10, RoundingMode.HALF_UP)));
-
-    this.setVelocity(new SectorContainedVec(velocityX, velocityY, velocityZ));
-
-    // calculate the position of the object in meters using the velocity and the time since
-    // the last tick
-    BigDecimal positionX = position.x().add(velocity.x().multiply(
-        BigDecimal.valueOf(timeSinceLastTick)
-            .divide(BigDecimal.valueOf(physicsTickDelayMillis), 10, RoundingMode.HALF_UP)));
-    BigDecimal positionY = position.y().add(velocity.y().multiply(
-        BigDecimal.valueOf(timeSinceLastTick)
-            .divide(BigDecimal.valueOf(physicsTickDelayMillis), 10, RoundingMode.HALF_UP)));
-    BigDecimal positionZ = position.z().add(velocity.z().multiply(
-        BigDecimal.valueOf(timeSinceLastTick)
-            .divide(BigDecimal.valueOf(physicsTickDelayMillis), 10, RoundingMode.HALF_UP)));
-
-    this.setPosition(new SectorContainedPos(positionX, positionY, positionZ));
-
-    // calculate the angular velocity of the object in radians per second using the angular
-    // acceleration and the time since the last tick
-    BigDecimal angularVelocityX = angularVelocity.x().add(angularAcceleration.y().multiply(
-        BigDecimal.valueOf(timeSinceLastTick)
-            .divide(BigDecimal.valueOf(physicsTickDelayMillis), 10, RoundingMode.HALF_UP)));
-    BigDecimal angularVelocityY = angularVelocity.y().add(angularAcceleration.y().multiply(
-        BigDecimal.valueOf(timeSinceLastTick)
-            .divide(BigDecimal.valueOf(physicsTickDelayMillis), 10, RoundingMode.HALF_UP)));
-    BigDecimal angularVelocityZ = angularVelocity.z().add(angularAcceleration.z().multiply(
-        BigDecimal.valueOf(timeSinceLastTick)
-            .divide(BigDecimal.valueOf(physicsTickDelayMillis), 10, RoundingMode.HALF_UP)));
-
-    this.setAngularVelocity(
-        new SectorContainedVec(angularVelocityX, angularVelocityY, angularVelocityZ));
-
-    // calculate the rotation of the object in radians using the angular velocity and the time
-    // since the last tick
-    BigDecimal rotationX = rotation.x().add(angularVelocity.x().multiply(
-        BigDecimal.valueOf(timeSinceLastTick)
-            .divide(BigDecimal.valueOf(physicsTickDelayMillis), 10, RoundingMode.HALF_UP)));
-    BigDecimal rotationY = rotation.y().add(angularVelocity.y().multiply(
-        BigDecimal.valueOf(timeSinceLastTick)
-            .divide(BigDecimal.valueOf(physicsTickDelayMillis), 10, RoundingMode.HALF_UP)));
-    BigDecimal rotationZ = rotation.z().add(angularVelocity.z().multiply(
-        BigDecimal.valueOf(timeSinceLastTick)
-            .divide(BigDecimal.valueOf(physicsTickDelayMillis), 10, RoundingMode.HALF_UP)));
-
-    this.setRotation(new SectorContainedPos(rotationX, rotationY, rotationZ));
-
-//    this.setVelocity(this.velocity.add(this.acceleration));
-//    this.setPosition(this.position.add(this.velocity));
-
-//    this.setAngularVelocity(this.angularVelocity.add(this.angularAcceleration));
-//    this.setRotation(this.rotation.add(this.angularVelocity));
-
-    this.lastTick = currentTime;
+    if (bodyStore == null) {
+      new SectorBodyStore(1).adopt(this);
+    }
+    int slot = bodyStore.slotOf(bodyHandle);
+    bodyStore.snapshot(slot, slot + 1);
+    bodyStore.integrate(slot, slot + 1, 1);
+    bodyStore.finish(slot, slot + 1, 1);
   }
 }
@@ -1,13 +1,14 @@
 package net.skycade.space.model.sector.contained;
 
-import java.math.BigDecimal;
 import java.time.Duration;
 import java.util.concurrent.atomic.AtomicReference;
 import net.minestom.server.coordinate.Pos;
 import net.minestom.server.timer.Task;
 import net.skycade.space.constants.PhysicsAndRenderingConstants;
-import net.skycade.space.model.physics.vector.SectorContainedPos;
-import net.skycade.space.model.physics.vector.SectorContainedVec;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.physics.vector.SectorLocalVec;
+import net.skycade.space.renderer.LodTier;
+import net.skycade.space.renderer.ParticleSink;
 import net.skycade.space.space.SpaceShipSpace;
 
 public class SectorSpaceShip extends SectorContainedObject {
@@ -17,7 +18,7 @@ public class SectorSpaceShip extends SectorContainedObject {
    *
    * @param position the position of the object relative to the sector.
    */
-  public SectorSpaceShip(SectorContainedPos position) {
+  public SectorSpaceShip(SectorLocalPos position) {
     super(position);
   }
 
@@ -32,17 +33,24 @@ public class SectorSpaceShip extends SectorContainedObject {
    * @param angularAcceleration the acceleration of the rotation of the object.
    */
 
-  public SectorSpaceShip(SectorContainedPos position, SectorContainedVec velocity,
-                         SectorContainedVec acceleration, SectorContainedPos rotation,
-                         SectorContainedVec angularVelocity,
-                         SectorContainedVec angularAcceleration) {
+  public SectorSpaceShip(SectorLocalPos position, SectorLocalVec velocity,
+                         SectorLocalVec acceleration, SectorLocalPos rotation,
+                         SectorLocalVec angularVelocity,
+                         SectorLocalVec angularAcceleration) {
     super(position, velocity, acceleration, rotation, angularVelocity, angularAcceleration);
   }
 
   @Override
-  public Pos[] draw(SpaceShipSpace space, Pos absoluteDrawSphereRadiusBoundObjectCenter) {
+  public void draw(SpaceShipSpace space, Pos absoluteDrawSphereRadiusBoundObjectCenter,
+                   double distance, LodTier tier, int particleBudget, ParticleSink sink) {
     // no-op, it's drawn using blocks already.
-    return new Pos[0];
+  }
+
+  @Override
+  public int getParticleDemand(SpaceShipSpace space,
+                               Pos absoluteDrawSphereRadiusBoundObjectCenter, double distance,
+                               LodTier tier) {
+    return 0;
   }
 
   @Override
@@ -58,67 +66,25 @@ public class SectorSpaceShip extends SectorContainedObject {
    * @param seconds   the duration of the thrust, in seconds.
    */
 
-  public void thrustForward(BigDecimal magnitude, double seconds, SpaceShipSpace space) {
+  public void thrustForward(double magnitude, double seconds, SpaceShipSpace space) {
     // add a force in the direction of the ship's rotation, with the given magnitude, for the given
     // duration.
-    AtomicReference<SectorContainedVec> previousAcceleration = new AtomicReference<>(null);
+    AtomicReference<SectorLocalVec> previousAcceleration = new AtomicReference<>(null);
 
     // create a task that repeats every physics tick delay, for the given duration.
     Task thrustTask = space.scheduler().buildTask(() -> {
-      // get the current rotation
-      SectorContainedPos currentRotation = this.getRotation();
-
       if (previousAcceleration.get() != null) {
         // remove the previous acceleration
         this.setAcceleration(this.getAcceleration().sub(previousAcceleration.get()));
       }
 
-      // rotation x: pitch, y: yaw, z: roll
-      // given the magnitude, we can calculate the x and y, and z components of the new acceleration.
-      // -z is forward, +z is backward.
-      // -x is left, +x is right.
-      // -y is up, +y is down.
-
-      // get the angle between the ship's rotation and the standard rotation (0, 0, 0).
-      // (uses trig)
-      BigDecimal yawAngle = currentRotation.y();
-      BigDecimal pitchAngle = currentRotation.x();
-
-
-      // push the angles between 0 and 2pi.
-      if (yawAngle.compareTo(BigDecimal.ZERO) < 0) {
-        yawAngle = yawAngle.add(BigDecimal.valueOf(2 * Math.PI));
-      }
-
-      // if it's greater than 2pi, subtract 2pi repeatedly until it's less than 2pi.
-      while (yawAngle.compareTo(BigDecimal.valueOf(2 * Math.PI)) >= 0) {
-        yawAngle = yawAngle.subtract(BigDecimal.valueOf(2 * Math.PI));
-      }
-
-      if (pitchAngle.compareTo(BigDecimal.ZERO) < 0) {
-        pitchAngle = pitchAngle.add(BigDecimal.valueOf(2 * Math.PI));
-      }
-
-      while (pitchAngle.compareTo(BigDecimal.valueOf(2 * Math.PI)) >= 0) {
-        pitchAngle = pitchAngle.subtract(BigDecimal.valueOf(2 * Math.PI));
-      }
-
-      // get the x, y, and z components of the acceleration in relation to the standard grid.
-
-      // x component
-      BigDecimal xComponent =
-          magnitude.multiply(BigDecimal.valueOf(Math.cos(yawAngle.doubleValue())))
-              .multiply(BigDecimal.valueOf(-1));
-      // y component
-      BigDecimal verticalComponent =
-          magnitude.multiply(BigDecimal.valueOf(Math.sin(pitchAngle.doubleValue())));
-      // z component
-      BigDecimal zComponent =
-          magnitude.multiply(BigDecimal.valueOf(Math.sin(yawAngle.doubleValue())))
-              .multiply(BigDecimal.valueOf(-1));
+      // -z is forward in the ship's own axes; the ship's forward direction in the sector is
+      // that, rotated back out of the ship's axes (the last row of its rotation matrix, negated)
+      double[] rotationMatrix = this.getRotationMatrix();
 
-      SectorContainedVec newAcceleration =
-          new SectorContainedVec(zComponent, verticalComponent, xComponent);
+      SectorLocalVec newAcceleration =
+          new SectorLocalVec(-magnitude * rotationMatrix[6], -magnitude * rotationMatrix[7],
+              -magnitude * rotationMatrix[8]);
 
       previousAcceleration.set(newAcceleration);
       this.setAcceleration(this.getAcceleration().add(newAcceleration));
@@ -0,0 +1,224 @@
+package net.skycade.space.model.sector.contained;
+
+import net.skycade.space.model.physics.integrator.SectorIntegrator;
+import net.skycade.space.model.physics.vector.Quaternion;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.physics.vector.SectorLocalVec;
+
+/**
+ * Represents an object that never moves on its own, like a distant background star.
+ * <p>
+ * Static objects only hold a position and a radius. They don't get a body in the sector's
+ * {@link net.skycade.space.model.sector.SectorBodyStore}, so they take no part in the physics
+ * step at all; the sector only moves them when its floating origin shifts. Their velocity,
+ * rotation and the like are always zero (or the identity), and they report the default
+ * integrator and no mass. Setting any of those does nothing, so code that handles any kind of
+ * object can treat a static one as a body that just happens to stand still.
+ *
+ * @author Jacob Cohen
+ */
+public abstract class SectorStaticObject extends SectorContainedObject {
+
+  /**
+   * The rotation matrix of every static object, shared between all of them; see
+   * {@link #getRotationMatrix()}.
+   */
+  private static final double[] IDENTITY_MATRIX = {1, 0, 0, 0, 1, 0, 0, 0, 1};
+
+  private double x;
+  private double y;
+  private double z;
+
+  private final double radius;
+
+  /**
+   * Construct a new {@link SectorStaticObject}.
+   *
+   * @param position the position of the object relative to the sector.
+   * @param radius   the radius of the object.
+   */
+  public SectorStaticObject(SectorLocalPos position, double radius) {
+    super();
+    this.x = position.x();
+    this.y = position.y();
+    this.z = position.z();
+    this.radius = radius;
+  }
+
+  /**
+   * Get the radius of the object.
+   *
+   * @return the radius of the object.
+   */
+  public double getRadius() {
+    return radius;
+  }
+
+  @Override
+  public double getBoundingRadius() {
+    return radius;
+  }
+
+  /**
+   * Whether the object is part of the sky: it's only ever seen from very far away, as a single
+   * dot. Such objects are kept out of the sector's spatial index, and the renderer bakes the
+   * distant ones into its skybox instead of drawing them one by one.
+   *
+   * @return whether the object is part of the sky.
+   */
+  public boolean isCelestialBackground() {
+    return false;
+  }
+
+  /**
+   * Move the object by the given offset. Used by the sector when its floating origin shifts.
+   *
+   * @param x the x offset.
+   * @param y the y offset.
+   * @param z the z offset.
+   */
+  public void translate(double x, double y, double z) {
+    this.x += x;
+    this.y += y;
+    this.z += z;
+  }
+
+  @Override
+  public SectorLocalPos getPosition() {
+    return new SectorLocalPos(x, y, z);
+  }
+
+  @Override
+  public void setPosition(SectorLocalPos position) {
+    this.x = position.x();
+    this.y = position.y();
+    this.z = position.z();
+  }
+
+  @Override
+  public SectorLocalPos getInterpolatedPosition(double alpha) {
+    return getPosition();
+  }
+
+  @Override
+  public SectorLocalVec getVelocity() {
+    return SectorLocalVec.ZERO;
+  }
+
+  /**
+   * Does nothing: static objects don't move.
+   */
+  @Override
+  public void setVelocity(SectorLocalVec velocity) {
+    // no-op
+  }
+
+  @Override
+  public SectorLocalVec getAcceleration() {
+    return SectorLocalVec.ZERO;
+  }
+
+  /**
+   * Does nothing: static objects don't move.
+   */
+  @Override
+  public void setAcceleration(SectorLocalVec acceleration) {
+    // no-op
+  }
+
+  @Override
+  public Quaternion getOrientation() {
+    return Quaternion.IDENTITY;
+  }
+
+  /**
+   * Does nothing: static objects don't rotate.
+   */
+  @Override
+  public void setOrientation(Quaternion orientation) {
+    // no-op
+  }
+
+  @Override
+  public Quaternion getInterpolatedOrientation(double alpha) {
+    return Quaternion.IDENTITY;
+  }
+
+  /**
+   * Get the rotation matrix of the object, which is always the identity.
+   *
+   * @return the identity matrix, shared by every static object; like for any other object, don't
+   *     modify it.
+   */
+  @Override
+  public double[] getRotationMatrix() {
+    return IDENTITY_MATRIX;
+  }
+
+  @Override
+  public SectorLocalVec getAngularVelocity() {
+    return SectorLocalVec.ZERO;
+  }
+
+  /**
+   * Does nothing: static objects don't rotate.
+   */
+  @Override
+  public void setAngularVelocity(SectorLocalVec angularVelocity) {
+    // no-op
+  }
+
+  @Override
+  public SectorLocalVec getAngularAcceleration() {
+    return SectorLocalVec.ZERO;
+  }
+
+  /**
+   * Does nothing: static objects don't rotate.
+   */
+  @Override
+  public void setAngularAcceleration(SectorLocalVec angularAcceleration) {
+    // no-op
+  }
+
+  @Override
+  public double getMass() {
+    return 0;
+  }
+
+  /**
+   * Does nothing: static objects have no mass.
+   */
+  @Override
+  public void setMass(double mass) {
+    // no-op
+  }
+
+  @Override
+  public SectorIntegrator getIntegrator() {
+    return SectorIntegrator.SEMI_IMPLICIT_EULER;
+  }
+
+  /**
+   * Does nothing: static objects aren't integrated.
+   */
+  @Override
+  public void setIntegrator(SectorIntegrator integrator) {
+    // no-op
+  }
+
+  @Override
+  public SectorLocalVec getGravity() {
+    return SectorLocalVec.ZERO;
+  }
+
+  @Override
+  public void tickCustomPhysics() {
+    // no-op
+  }
+
+  @Override
+  public void tickPhysics() {
+    // no-op
+  }
+}
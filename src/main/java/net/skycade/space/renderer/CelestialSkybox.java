@@ -0,0 +1,237 @@
+package net.skycade.space.renderer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.minestom.server.coordinate.Pos;
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.physics.vector.SectorLocalVec;
+import net.skycade.space.model.sector.Sector;
+import net.skycade.space.model.sector.contained.SectorStaticObject;
+import net.skycade.space.space.SpaceShipSpaceConstants;
+
+/**
+ * The distant background stars of a sector, baked into a set of directions on the sky.
+ * <p>
+ * Past {@link PhysicsAndRenderingConstants#SKYBOX_DISTANCE_METERS}, a background star is usually
+ * only a dot (see {@link LodTier#DOT}), and its direction from the ship barely changes as the
+ * ship travels. So instead of going through the spatial index, the view cone and the projection
+ * one by one, the directions of all of them are worked out once, from where the ship is, and
+ * every frame they're just rotated by the ship's orientation, and drawn as dots (see
+ * {@link DotParticles}) straight from where they end up. The directions are baked again once the
+ * ship has travelled far enough for the nearest baked star to have shifted (see
+ * {@link PhysicsAndRenderingConstants#SKYBOX_REBAKE_DISTANCE_RATIO}), or the background objects
+ * change.
+ * <p>
+ * Stars are baked from the biggest looking to the smallest, so when the budget doesn't stretch to
+ * all of them, the ones that stand out are the ones that get drawn. Background objects too close
+ * to be baked are left for the renderer to draw like any other object.
+ *
+ * @author Jacob Cohen
+ */
+class CelestialSkybox {
+
+  /**
+   * The directions of the baked stars from where they were baked, from the biggest looking star
+   * to the smallest, and their importance (see {@link ParticleBudgetAllocator}).
+   */
+  private double[] directionX = new double[0];
+  private double[] directionY = new double[0];
+  private double[] directionZ = new double[0];
+  private double[] importance = new double[0];
+  private int starCount;
+
+  /**
+   * The background objects too close to be baked.
+   */
+  private final List<SectorStaticObject> nearObjects = new ArrayList<>();
+
+  /**
+   * Where the ship was when the stars were baked, and the version of the background objects
+   * they were baked from (see {@link Sector#getBackgroundVersion()}).
+   */
+  private double bakedX;
+  private double bakedY;
+  private double bakedZ;
+  private long bakedVersion = -1;
+  private Sector bakedSector;
+
+  /**
+   * How far the ship can travel from where the stars were baked before they're baked again, in
+   * meters.
+   */
+  private double rebakeDistance;
+
+  /**
+   * This frame: where each baked star is on the 'draw sphere', which of them are in view (in
+   * order), and how important they are together.
+   */
+  private double[] drawX = new double[0];
+  private double[] drawY = new double[0];
+  private double[] drawZ = new double[0];
+  private int[] visible = new int[0];
+  private int visibleCount;
+  private double visibleImportance;
+
+  /**
+   * Scratch space for sorting the stars while baking.
+   */
+  private long[] order = new long[0];
+
+  /**
+   * Bake the stars again if the ship has travelled far enough since they were last baked, or the
+   * background objects have changed.
+   *
+   * @param sector the sector being rendered.
+   * @param eye    where the ship is.
+   */
+  void update(Sector sector, SectorLocalPos eye) {
+    double dx = eye.x() - bakedX;
+    double dy = eye.y() - bakedY;
+    double dz = eye.z() - bakedZ;
+    if (sector == bakedSector && sector.getBackgroundVersion() == bakedVersion
+        && dx * dx + dy * dy + dz * dz <= rebakeDistance * rebakeDistance) {
+      return;
+    }
+    bake(sector, eye);
+  }
+
+  private void bake(Sector sector, SectorLocalPos eye) {
+    List<SectorStaticObject> background = sector.getBackgroundObjects();
+    int capacity = background.size();
+    if (directionX.length < capacity) {
+      directionX = new double[capacity];
+      directionY = new double[capacity];
+      directionZ = new double[capacity];
+      importance = new double[capacity];
+      drawX = new double[capacity];
+      drawY = new double[capacity];
+      drawZ = new double[capacity];
+      visible = new int[capacity];
+      order = new long[capacity];
+    }
+
+    double bakeDistance = PhysicsAndRenderingConstants.SKYBOX_DISTANCE_METERS;
+    double rebakeRatio = PhysicsAndRenderingConstants.SKYBOX_REBAKE_DISTANCE_RATIO;
+    double nearestDistance = Double.POSITIVE_INFINITY;
+    nearObjects.clear();
+    int count = 0;
+    for (int i = 0; i < background.size(); i++) {
+      SectorStaticObject object = background.get(i);
+      SectorLocalPos position = object.getPosition();
+      double distance = position.distance(eye);
+      // only bake stars that are drawn as a dot from wherever the ship goes before the next bake,
+      // which is at most the rebake ratio of their own distance away
+      if (distance <= bakeDistance || !LodTier.isDot(object.getRadius()
+          * SpaceShipSpaceConstants.DRAW_ON_CIRCLE_RADIUS / (distance * (1 - rebakeRatio)))) {
+        nearObjects.add(object);
+        continue;
+      }
+      if (distance > PhysicsAndRenderingConstants.RENDER_DISTANCE_METERS) {
+        continue;
+      }
+      nearestDistance = Math.min(nearestDistance, distance);
+      // the smallest ratio first is the biggest looking star first; for positive floats, the
+      // bits sort the same way as the values
+      float ratio = (float) (distance / Math.max(object.getRadius(), Double.MIN_VALUE));
+      order[count++] = ((long) Float.floatToIntBits(ratio) << 32) | i;
+    }
+    Arrays.sort(order, 0, count);
+
+    for (int k = 0; k < count; k++) {
+      SectorStaticObject object = background.get((int) order[k]);
+      SectorLocalPos position = object.getPosition();
+      double dx = position.x() - eye.x();
+      double dy = position.y() - eye.y();
+      double dz = position.z() - eye.z();
+      double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+      directionX[k] = dx / distance;
+      directionY[k] = dy / distance;
+      directionZ[k] = dz / distance;
+      importance[k] = Math.max(SectorRenderer.MIN_IMPORTANCE,
+          object.getRadius() * SpaceShipSpaceConstants.DRAW_ON_CIRCLE_RADIUS / distance);
+    }
+    starCount = count;
+    // with nothing baked, still bake again every so often, in case the ship has come far enough
+    // for some of the near objects to be baked
+    rebakeDistance = (count > 0 ? nearestDistance : bakeDistance) * rebakeRatio;
+
+    bakedX = eye.x();
+    bakedY = eye.y();
+    bakedZ = eye.z();
+    bakedVersion = sector.getBackgroundVersion();
+    bakedSector = sector;
+  }
+
+  /**
+   * Get the background objects too close to be baked, which have to be drawn one by one.
+   *
+   * @param out receives the objects.
+   */
+  void addNearObjects(List<? super SectorStaticObject> out) {
+    out.addAll(nearObjects);
+  }
+
+  /**
+   * Rotate the baked stars into view for a frame, and work out which of them are in the cone in
+   * front of the ship.
+   *
+   * @param view         the view from the ship.
+   * @param cosHalfAngle the cosine of the half angle of the cone in front of the ship that's
+   *                     rendered.
+   */
+  void project(SectorViewTransform view, double cosHalfAngle) {
+    view.directionsToDrawSphere(directionX, directionY, directionZ, starCount, drawX, drawY,
+        drawZ);
+    // in the ship's axes, -z is forward
+    double minAlong = cosHalfAngle * SpaceShipSpaceConstants.DRAW_ON_CIRCLE_RADIUS;
+    visibleCount = 0;
+    visibleImportance = 0;
+    for (int i = 0; i < starCount; i++) {
+      if (-drawZ[i] >= minAlong) {
+        visible[visibleCount++] = i;
+        visibleImportance += importance[i];
+      }
+    }
+  }
+
+  /**
+   * Get how many particles the stars in view would like to be drawn with this frame.
+   *
+   * @param shipVelocity the velocity of the ship.
+   * @return the number of particles.
+   */
+  int getParticleDemand(SectorLocalVec shipVelocity) {
+    // every baked star is drawn as a dot, so they all ask for the same
+    long demand = (long) DotParticles.particleCount(shipVelocity) * visibleCount;
+    return (int) Math.min(Integer.MAX_VALUE, demand);
+  }
+
+  /**
+   * Get how important the stars in view are together, see {@link ParticleBudgetAllocator}.
+   *
+   * @return the importance of the stars in view.
+   */
+  double getImportance() {
+    return visibleImportance;
+  }
+
+  /**
+   * Draw the stars in view, the biggest looking first, until the budget runs out.
+   *
+   * @param shipVelocity   the velocity of the ship.
+   * @param particleBudget the most particles to draw.
+   * @param particles      the frame's particles.
+   */
+  void draw(SectorLocalVec shipVelocity, int particleBudget, FrameParticleBuffer particles) {
+    int end = particles.size() + particleBudget;
+    particles.allow(particleBudget);
+    Pos ship = SpaceShipSpaceConstants.THEORETICAL_CENTER_OF_SHIP;
+    for (int k = 0; k < visibleCount && particles.size() < end; k++) {
+      int i = visible[k];
+      DotParticles.draw(shipVelocity, drawX[i] + ship.x(), drawY[i] + ship.y(),
+          drawZ[i] + ship.z(), end - particles.size(), particles);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package net.skycade.space.renderer;
+
+import net.skycade.space.model.physics.vector.SectorLocalVec;
+
+/**
+ * The particles of an object drawn as a dot (see {@link LodTier#DOT}): a single particle, or a
+ * "hyperspace" line in the direction the ship is going once it's going fast enough.
+ * <p>
+ * Everything here only depends on the ship's velocity, so objects drawn as a dot, and the
+ * {@link CelestialSkybox} drawing thousands of them, can look the velocity up once per frame and
+ * write their particles from plain coordinates.
+ *
+ * @author Jacob Cohen
+ */
+public final class DotParticles {
+
+  /**
+   * The speed of the ship (in meters per second) above which dots are drawn as hyperspace lines.
+   */
+  private static final double HYPERSPACE_SPEED = 10792458;
+
+  private DotParticles() {
+  }
+
+  /**
+   * Get the number of particles a dot is drawn with.
+   *
+   * @param shipVelocity the velocity of the ship.
+   * @return the number of particles.
+   */
+  public static int particleCount(SectorLocalVec shipVelocity) {
+    double speed = shipVelocity.length();
+    if (speed > HYPERSPACE_SPEED) {
+      return hyperspaceParticleCount(speed);
+    }
+    return LodTier.DOT.particleCount(0);
+  }
+
+  /**
+   * Draw a dot.
+   *
+   * @param shipVelocity   the velocity of the ship.
+   * @param x              the x coordinate of the dot, in the world.
+   * @param y              the y coordinate of the dot, in the world.
+   * @param z              the z coordinate of the dot, in the world.
+   * @param particleBudget the most particles to draw.
+   * @param sink           where to draw the particles.
+   */
+  public static void draw(SectorLocalVec shipVelocity, double x, double y, double z,
+                          int particleBudget, ParticleSink sink) {
+    if (particleBudget <= 0) {
+      return;
+    }
+
+    // if the velocity is greater than the speed of light,
+    // draw "hyperspace" lines in the direction of the ship's velocity
+    double speed = shipVelocity.length();
+    if (speed > HYPERSPACE_SPEED) {
+      // todo: generate a line that is scaled based on the velocity of the ship
+      drawHyperspaceLine(shipVelocity, speed, x, y, z, particleBudget, sink);
+      return;
+    }
+
+    sink.particle(x, y, z, 1);
+  }
+
+  /**
+   * Get the number of particles in a hyperspace line.
+   *
+   * @param speed the speed of the ship.
+   * @return the number of particles.
+   */
+  private static int hyperspaceParticleCount(double speed) {
+    // calculate the length of the line based on the velocity of the ship
+    // e.g., speed of light = line length of 10 meters
+    double length = Math.min(speed * 10 / 299792458, 20);
+    return (int) (length / 0.2);
+  }
+
+  /**
+   * Draws a line in the direction of the ship's velocity, starting at the dot.
+   */
+  private static void drawHyperspaceLine(SectorLocalVec shipVelocity, double speed, double x,
+                                         double y, double z, int particleBudget,
+                                         ParticleSink sink) {
+    // theta = vertical angle
+    double theta = shipVelocity.theta();
+    // phi = horizontal angle
+    double phi = shipVelocity.phi();
+
+    // calculate the length of the line based on the velocity of the ship
+    // e.g., speed of light = line length of 10 meters
+    double length = Math.min(speed * 10 / 299792458, 20);
+
+    // keep in mind:
+    // top-down view:
+    // forwards: -z
+    //       -z
+    //       |
+    // -x  ------ +x
+    //       |
+    //       +z
+    //
+    double lineX = length * Math.sin(theta) * Math.cos(phi);
+    double lineY = length * Math.sin(theta) * Math.sin(phi);
+    double lineZ = length * Math.cos(theta);
+
+    // calculate the particle count based on the length of the line
+    int particleCount = Math.min(hyperspaceParticleCount(speed), particleBudget);
+    for (int i = 0; i < particleCount; i++) {
+      double delta = (double) i / particleCount;
+      sink.particle(x + lineX * delta, y + lineY * delta, z + lineZ * delta, 1);
+    }
+  }
+}
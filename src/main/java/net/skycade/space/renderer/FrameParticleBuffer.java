@@ -0,0 +1,111 @@
+package net.skycade.space.renderer;
+
+import java.util.Arrays;
+
+/**
+ * The particles of the frame being rendered, coordinate by coordinate, ready to be projected and
+ * sent. Objects write into it through {@link ParticleSink}.
+ * <p>
+ * The buffer only takes up to a limit, so an object that writes more particles than it was
+ * given just has the extra ones ignored. It's reused from frame to frame.
+ *
+ * @author Jacob Cohen
+ */
+class FrameParticleBuffer implements ParticleSink {
+
+  private double[] x = new double[0];
+  private double[] y = new double[0];
+  private double[] z = new double[0];
+  private int[] count = new int[0];
+
+  /**
+   * The number of particles in the buffer.
+   */
+  private int size;
+
+  /**
+   * The number of particles the buffer takes before ignoring any more.
+   */
+  private int limit;
+
+  /**
+   * Empty the buffer.
+   */
+  void clear() {
+    size = 0;
+    limit = 0;
+  }
+
+  /**
+   * Let the buffer take the given number of particles more than it holds now.
+   *
+   * @param particles the number of particles.
+   */
+  void allow(int particles) {
+    limit = size + particles;
+    if (x.length < limit) {
+      int capacity = Math.max(limit, x.length * 2);
+      x = Arrays.copyOf(x, capacity);
+      y = Arrays.copyOf(y, capacity);
+      z = Arrays.copyOf(z, capacity);
+      count = Arrays.copyOf(count, capacity);
+    }
+  }
+
+  @Override
+  public void particle(double x, double y, double z, int count) {
+    if (size == limit) {
+      return;
+    }
+    this.x[size] = x;
+    this.y[size] = y;
+    this.z[size] = z;
+    this.count[size] = count;
+    size++;
+  }
+
+  /**
+   * Get the number of particles in the buffer.
+   *
+   * @return the number of particles.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Get the x coordinates of the particles. Only the first {@link #size()} are in use.
+   *
+   * @return the x coordinates.
+   */
+  double[] x() {
+    return x;
+  }
+
+  /**
+   * Get the y coordinates of the particles. Only the first {@link #size()} are in use.
+   *
+   * @return the y coordinates.
+   */
+  double[] y() {
+    return y;
+  }
+
+  /**
+   * Get the z coordinates of the particles. Only the first {@link #size()} are in use.
+   *
+   * @return the z coordinates.
+   */
+  double[] z() {
+    return z;
+  }
+
+  /**
+   * Get how many particles to spawn at each spot. Only the first {@link #size()} are in use.
+   *
+   * @return the counts.
+   */
+  int[] count() {
+    return count;
+  }
+}
@@ -0,0 +1,112 @@
+package net.skycade.space.renderer;
+
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+
+/**
+ * How much detail an object is drawn with, depending on how big it looks from the ship: its
+ * radius on the 'draw sphere', in blocks.
+ * <p>
+ * Each tier covers the sizes up to its own upper bound, and costs a number of particles per block
+ * of radius. Tiers whose upper bound isn't above the one before them are never picked, which is
+ * how a tier is turned off. All of the bounds and costs are set in
+ * {@link PhysicsAndRenderingConstants}.
+ * <p>
+ * So that objects right at a bound don't flip between two tiers from frame to frame, an object
+ * only moves to another tier once it's past the bound by more than
+ * {@link PhysicsAndRenderingConstants#LOD_HYSTERESIS} (see {@link #select(LodTier, double)}).
+ *
+ * @author Jacob Cohen
+ */
+public enum LodTier {
+
+  /**
+   * A single particle (or the hyperspace streak of one).
+   */
+  DOT(PhysicsAndRenderingConstants.LOD_DOT_MAX_RADIUS, 0),
+
+  /**
+   * A flat disc facing the ship: just the outline of the object, without a sphere behind it.
+   */
+  IMPOSTOR(PhysicsAndRenderingConstants.LOD_IMPOSTOR_MAX_RADIUS,
+      PhysicsAndRenderingConstants.LOD_IMPOSTOR_PARTICLES_PER_BLOCK),
+
+  /**
+   * A sphere with few particles.
+   */
+  SPARSE(PhysicsAndRenderingConstants.LOD_SPARSE_MAX_RADIUS,
+      PhysicsAndRenderingConstants.LOD_SPARSE_PARTICLES_PER_BLOCK),
+
+  /**
+   * A sphere with many particles.
+   */
+  DENSE(Double.POSITIVE_INFINITY, PhysicsAndRenderingConstants.LOD_DENSE_PARTICLES_PER_BLOCK);
+
+  private static final LodTier[] TIERS = values();
+
+  private final double maxRadius;
+  private final double particlesPerBlock;
+
+  LodTier(double maxRadius, double particlesPerBlock) {
+    this.maxRadius = maxRadius;
+    this.particlesPerBlock = particlesPerBlock;
+  }
+
+  /**
+   * Get the number of particles an object of a given size is drawn with in this tier.
+   *
+   * @param apparentRadius the radius of the object on the 'draw sphere', in blocks.
+   * @return the number of particles, at least 1 and at most
+   *     {@link PhysicsAndRenderingConstants#LOD_MAX_PARTICLES}.
+   */
+  public int particleCount(double apparentRadius) {
+    if (this == DOT) {
+      return 1;
+    }
+    return (int) Math.max(1, Math.min(apparentRadius * particlesPerBlock,
+        PhysicsAndRenderingConstants.LOD_MAX_PARTICLES));
+  }
+
+  /**
+   * Pick the tier to draw an object with.
+   *
+   * @param current        the tier the object was drawn with last.
+   * @param apparentRadius the radius of the object on the 'draw sphere', in blocks.
+   * @return the tier to draw the object with now.
+   */
+  public static LodTier select(LodTier current, double apparentRadius) {
+    double hysteresis = 1 + PhysicsAndRenderingConstants.LOD_HYSTERESIS;
+    // only go up if the object would still be in the higher tier a bit smaller, and only go down
+    // if it would still be in the lower tier a bit bigger
+    LodTier up = of(apparentRadius / hysteresis);
+    if (up.ordinal() > current.ordinal()) {
+      return up;
+    }
+    LodTier down = of(apparentRadius * hysteresis);
+    if (down.ordinal() < current.ordinal()) {
+      return down;
+    }
+    return current;
+  }
+
+  /**
+   * Check whether an object is drawn as a dot, whatever tier it was drawn with last.
+   *
+   * @param apparentRadius the radius of the object on the 'draw sphere', in blocks.
+   * @return whether the object is drawn as a dot.
+   */
+  public static boolean isDot(double apparentRadius) {
+    return select(DENSE, apparentRadius) == DOT;
+  }
+
+  /**
+   * Get the tier an object of a given size is in, without hysteresis.
+   */
+  private static LodTier of(double apparentRadius) {
+    for (LodTier tier : TIERS) {
+      if (apparentRadius < tier.maxRadius) {
+        return tier;
+      }
+    }
+    return DENSE;
+  }
+}
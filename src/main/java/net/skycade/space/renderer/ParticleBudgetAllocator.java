@@ -0,0 +1,119 @@
+package net.skycade.space.renderer;
+
+import java.util.Arrays;
+
+/**
+ * Splits the frame's particle budget between the objects being drawn.
+ * <p>
+ * Each object asks for a number of particles (its demand) and has an importance (how big it
+ * looks from the ship). The budget is shared out in proportion to importance, but nobody gets
+ * more than they asked for; whatever an object doesn't need goes back into the pot for the
+ * others ("water filling"). Every object that asks for anything gets at least one particle while
+ * the budget lasts (a particle is held back for each of them before the others take their
+ * shares), so small and distant objects don't just vanish.
+ * <p>
+ * The split only depends on the demands and importances, not on the order objects come in, so
+ * it doesn't jump around from frame to frame.
+ *
+ * @author Jacob Cohen
+ */
+public class ParticleBudgetAllocator {
+
+  /**
+   * Scratch space for sorting the objects: the sort key in the high half, the index of the object
+   * in the low half.
+   */
+  private long[] order = new long[0];
+
+  /**
+   * Scratch space for the importance of every object from a point in the sorted order on.
+   */
+  private double[] importanceFrom = new double[0];
+
+  /**
+   * Split a budget between objects.
+   *
+   * @param importance how important each object is; must be positive.
+   * @param demand     how many particles each object asks for.
+   * @param count      the number of objects.
+   * @param budget     the number of particles to split.
+   * @param allocation receives how many particles each object may draw.
+   */
+  public void allocate(double[] importance, int[] demand, int count, int budget,
+                       int[] allocation) {
+    if (order.length < count) {
+      order = new long[count];
+    }
+    if (importanceFrom.length < count + 1) {
+      importanceFrom = new double[count + 1];
+    }
+
+    // go from the objects that need the least for their importance to those that need the most;
+    // the first ones are the ones that are fully satisfied, if any are
+    int asking = 0;
+    for (int i = 0; i < count; i++) {
+      if (demand[i] <= 0) {
+        allocation[i] = 0;
+        continue;
+      }
+      float ratio = (float) (demand[i] / importance[i]);
+      // for positive floats, the bits sort the same way as the values
+      order[asking++] = ((long) Float.floatToIntBits(ratio) << 32) | i;
+    }
+    Arrays.sort(order, 0, asking);
+    breakTies(importance, demand, asking);
+
+    // summed up in the sorted order, so the shares don't depend on the order objects came in
+    importanceFrom[asking] = 0;
+    for (int k = asking - 1; k >= 0; k--) {
+      importanceFrom[k] = importanceFrom[k + 1] + importance[(int) order[k]];
+    }
+
+    int remaining = budget;
+    for (int k = 0; k < asking; k++) {
+      int i = (int) order[k];
+      // the object's share of what's left, in proportion to its share of the importance left
+      double share = remaining * (importance[i] / importanceFrom[k]);
+      int granted = (int) Math.min(demand[i], Math.max(1, share));
+      // hold a particle back for every object after this one, while the budget lasts
+      int after = asking - k - 1;
+      granted = Math.min(granted, remaining > after ? remaining - after : Math.min(1, remaining));
+      allocation[i] = granted;
+      remaining -= granted;
+    }
+  }
+
+  /**
+   * Put objects whose sort keys are equal (their ratios are the same as floats) in the order of
+   * their exact ratios, and then of their importance, rather than the order they came in. Only
+   * objects that ask for exactly the same are left in the order they came in, and those can be
+   * swapped without changing anything.
+   */
+  private void breakTies(double[] importance, int[] demand, int count) {
+    // the keys are sorted already, so this only moves objects within runs of equal keys, and
+    // runs of identical objects (like distant dots) aren't moved at all
+    for (int k = 1; k < count; k++) {
+      long key = order[k];
+      int j = k - 1;
+      while (j >= 0 && (order[j] >>> 32) == (key >>> 32)
+          && comesAfter((int) order[j], (int) key, importance, demand)) {
+        order[j + 1] = order[j];
+        j--;
+      }
+      order[j + 1] = key;
+    }
+  }
+
+  /**
+   * Check whether an object goes after another one: it needs more for its importance, or needs
+   * as much but is less important.
+   */
+  private static boolean comesAfter(int i, int other, double[] importance, int[] demand) {
+    double ratio = demand[i] / importance[i];
+    double otherRatio = demand[other] / importance[other];
+    if (ratio != otherRatio) {
+      return ratio > otherRatio;
+    }
+    return importance[i] < importance[other];
+  }
+}
@@ -0,0 +1,268 @@
+package net.skycade.space.renderer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import net.minestom.server.entity.Player;
+import net.minestom.server.network.packet.server.CachedPacket;
+import net.minestom.server.network.packet.server.SendablePacket;
+import net.minestom.server.particle.Particle;
+import net.minestom.server.particle.ParticleCreator;
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+
+/**
+ * Turns the particles of a frame into packets, and sends them.
+ * <p>
+ * Particles are snapped to a fine grid (see
+ * {@link PhysicsAndRenderingConstants#PARTICLE_MERGE_RESOLUTION}), and particles that land on the
+ * same spot are sent as a single packet with a higher count. Packets are wrapped in
+ * {@link CachedPacket}s so they're only encoded once for every viewer, and a packet is reused as
+ * is if the frame before had the same particle at the same spot, which is most of them for
+ * anything that isn't moving across the sky. Each viewer then gets the whole frame in one go,
+ * or an evenly thinned out part of it if their {@link ViewerBandwidthGovernor} says they can't
+ * keep up.
+ *
+ * @author Jacob Cohen
+ */
+class ParticlePacketBatcher {
+
+  /**
+   * The number of bits per coordinate in a spot's key.
+   */
+  private static final int KEY_BITS = 21;
+
+  private static final long KEY_MASK = (1L << KEY_BITS) - 1;
+
+  /**
+   * Marks an empty slot in the tables; no spot has this key, since it's out of range.
+   */
+  private static final long EMPTY = -1;
+
+  /**
+   * The spots of this frame, as an open-addressing hash table: the key of each spot, how many
+   * particles are on it, and the order the spots were first drawn in.
+   */
+  private long[] keys = new long[0];
+  private int[] counts = new int[0];
+  private int[] order = new int[0];
+  private int size;
+
+  /**
+   * The spots sent last frame, as the same kind of table, along with the packet sent for each.
+   */
+  private long[] previousKeys = new long[0];
+  private int[] previousCounts = new int[0];
+  private SendablePacket[] previousPackets = new SendablePacket[0];
+
+  /**
+   * The packets sent for this frame's spots, by slot in {@link #keys}.
+   */
+  private SendablePacket[] packets = new SendablePacket[0];
+
+  /**
+   * The frame's packets, in order. Reused from frame to frame.
+   */
+  private final List<SendablePacket> frame = new ArrayList<>();
+
+  /**
+   * The frame's packets thinned out for a viewer that's behind. Reused from viewer to viewer.
+   */
+  private final List<SendablePacket> thinnedFrame = new ArrayList<>();
+
+  /**
+   * Keeps what's sent to each viewer within what they keep up with.
+   */
+  private final ViewerBandwidthGovernor governor;
+
+  /**
+   * Constructor.
+   *
+   * @param governor keeps what's sent to each viewer within what they keep up with.
+   */
+  ParticlePacketBatcher(ViewerBandwidthGovernor governor) {
+    this.governor = governor;
+  }
+
+  /**
+   * Start a new frame of up to the given number of particles.
+   *
+   * @param capacity the most particles the frame will have.
+   */
+  void begin(int capacity) {
+    // keep the table at most half full
+    int tableSize = Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1) * 2;
+    if (keys.length != tableSize) {
+      keys = new long[tableSize];
+      counts = new int[tableSize];
+      packets = new SendablePacket[tableSize];
+    }
+    if (order.length < capacity) {
+      order = new int[capacity];
+    }
+    Arrays.fill(keys, EMPTY);
+    size = 0;
+  }
+
+  /**
+   * Add a particle to the frame.
+   *
+   * @param x     the x coordinate of the particle.
+   * @param y     the y coordinate of the particle.
+   * @param z     the z coordinate of the particle.
+   * @param count how many particles to spawn there.
+   */
+  void add(double x, double y, double z, int count) {
+    long key = key(x, y, z);
+    int slot = find(keys, key);
+    if (keys[slot] == EMPTY) {
+      keys[slot] = key;
+      counts[slot] = 0;
+      order[size++] = slot;
+    }
+    counts[slot] += count;
+  }
+
+  /**
+   * Send the frame to every viewer, one batch each.
+   *
+   * @param viewers the players to send the frame to.
+   */
+  void flush(Collection<Player> viewers) {
+    frame.clear();
+    for (int i = 0; i < size; i++) {
+      int slot = order[i];
+      long key = keys[slot];
+      int count = counts[slot];
+
+      SendablePacket packet = null;
+      if (previousKeys.length > 0) {
+        int previousSlot = find(previousKeys, key);
+        if (previousKeys[previousSlot] == key && previousCounts[previousSlot] == count) {
+          packet = previousPackets[previousSlot];
+        }
+      }
+      if (packet == null) {
+        packet = new CachedPacket(ParticleCreator.createParticlePacket(Particle.FIREWORK,
+            coordinate(key >>> (KEY_BITS * 2)), coordinate(key >>> KEY_BITS),
+            coordinate(key), 0, 0, 0, count));
+      }
+      packets[slot] = packet;
+      frame.add(packet);
+    }
+
+    if (viewers != null) {
+      governor.beginFrame(viewers);
+      for (Player viewer : viewers) {
+        send(viewer);
+      }
+    }
+
+    // this frame's packets are the ones to reuse next frame
+    long[] swapKeys = previousKeys;
+    int[] swapCounts = previousCounts;
+    SendablePacket[] swapPackets = previousPackets;
+    previousKeys = keys;
+    previousCounts = counts;
+    previousPackets = packets;
+    keys = swapKeys;
+    counts = swapCounts;
+    packets = swapPackets;
+    // the packets can't be reused from any further back than last frame
+    Arrays.fill(packets, null);
+    size = 0;
+  }
+
+  /**
+   * Send the frame to a viewer, thinned out evenly if it's more than their connection keeps up
+   * with.
+   */
+  private void send(Player viewer) {
+    int budget = governor.packetBudget(viewer);
+    if (frame.isEmpty()) {
+      return;
+    }
+    if (budget >= frame.size()) {
+      viewer.sendPackets(frame);
+      governor.recordSent(viewer, frame.size(), 0);
+      return;
+    }
+    thin(frame, budget, thinnedFrame);
+    viewer.sendPackets(thinnedFrame);
+    governor.recordSent(viewer, budget, frame.size() - budget);
+  }
+
+  /**
+   * Pick an evenly spread part of a frame's packets.
+   *
+   * @param frame  the frame's packets.
+   * @param budget how many packets to pick; less than the frame has.
+   * @param out    receives the picked packets, in order; cleared first.
+   */
+  static void thin(List<SendablePacket> frame, int budget, List<SendablePacket> out) {
+    out.clear();
+    for (int i = 0; i < budget; i++) {
+      out.add(frame.get((int) ((long) i * frame.size() / budget)));
+    }
+  }
+
+  /**
+   * Get the packets of the frame sent last, in order. Only valid until the next frame gets its
+   * first particle.
+   *
+   * @return the packets.
+   */
+  List<SendablePacket> lastFrame() {
+    return frame;
+  }
+
+  /**
+   * Get how many particles a packet of the frame sent last spawns. Only valid until the next
+   * frame gets its first particle.
+   *
+   * @param index the index of the packet in {@link #lastFrame()}.
+   * @return the number of particles.
+   */
+  int lastFrameCount(int index) {
+    // the frame's table has become the previous one, but the order of its spots is still there
+    return previousCounts[order[index]];
+  }
+
+  /**
+   * Find the slot a key is in, or the empty slot it would go in.
+   */
+  private static int find(long[] table, long key) {
+    int mask = table.length - 1;
+    int slot = (int) (mix(key) & mask);
+    while (table[slot] != EMPTY && table[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Spread the bits of a key, so that nearby spots don't pile up in the table.
+   */
+  private static long mix(long key) {
+    key *= 0x9E3779B97F4A7C15L;
+    return key ^ (key >>> 32);
+  }
+
+  /**
+   * Get the key of the spot a particle is snapped to.
+   */
+  private static long key(double x, double y, double z) {
+    return (quantize(x) << (KEY_BITS * 2)) | (quantize(y) << KEY_BITS) | quantize(z);
+  }
+
+  private static long quantize(double coordinate) {
+    // offset so that negative coordinates fit in the unsigned bits
+    return (Math.round(coordinate * PhysicsAndRenderingConstants.PARTICLE_MERGE_RESOLUTION)
+        + (1L << (KEY_BITS - 1))) & KEY_MASK;
+  }
+
+  private static double coordinate(long key) {
+    return ((key & KEY_MASK) - (1L << (KEY_BITS - 1)))
+        / (double) PhysicsAndRenderingConstants.PARTICLE_MERGE_RESOLUTION;
+  }
+}
@@ -0,0 +1,68 @@
+package net.skycade.space.renderer;
+
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+
+/**
+ * Projects batches of particles from around the 'draw sphere' onto its flattened shell, the last
+ * step before they're sent to the players.
+ * <p>
+ * Each point p is scaled onto the draw sphere around the ship's theoretical center (which pops
+ * it out to the sphere), and then scaled onto it a second time (which squishes it flat), in
+ * place.
+ *
+ * @author Jacob Cohen
+ */
+public interface ParticleProjectionKernel {
+
+  /**
+   * Project a batch of particles in place.
+   *
+   * @param x     the x coordinates.
+   * @param y     the y coordinates.
+   * @param z     the z coordinates.
+   * @param count the number of particles, from the start of the arrays.
+   */
+  void project(double[] x, double[] y, double[] z, int count);
+
+  /**
+   * Pick the kernel to render with, and log which one it is: the vectorized one if it's enabled
+   * (see {@link PhysicsAndRenderingConstants#USE_VECTOR_PROJECTION}) and available (see
+   * {@link #vectorized()}), otherwise the scalar one.
+   *
+   * @return the kernel.
+   */
+  static ParticleProjectionKernel select() {
+    System.Logger logger = System.getLogger(ParticleProjectionKernel.class.getName());
+    if (PhysicsAndRenderingConstants.USE_VECTOR_PROJECTION) {
+      ParticleProjectionKernel vectorized = vectorized();
+      if (vectorized != null) {
+        logger.log(System.Logger.Level.INFO, "Projecting particles with the vectorized kernel");
+        return vectorized;
+      }
+      logger.log(System.Logger.Level.INFO, "Projecting particles with the scalar kernel: the "
+          + "vectorized one needs a -PvectorApi build, run with --add-modules "
+          + "jdk.incubator.vector");
+    } else {
+      logger.log(System.Logger.Level.INFO, "Projecting particles with the scalar kernel");
+    }
+    return new ScalarParticleProjectionKernel();
+  }
+
+  /**
+   * Get the vectorized kernel, if it's there: it's only built with {@code -PvectorApi}, and only
+   * runs if the JVM was started with the {@code jdk.incubator.vector} module. It's looked up by
+   * name, since it isn't always built.
+   *
+   * @return the vectorized kernel, or null if it can't be used.
+   */
+  static ParticleProjectionKernel vectorized() {
+    try {
+      return (ParticleProjectionKernel) Class.forName(
+              "net.skycade.space.renderer.VectorParticleProjectionKernel")
+          .getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError ignored) {
+      // the kernel wasn't built, or the vector module isn't there
+      return null;
+    }
+  }
+}
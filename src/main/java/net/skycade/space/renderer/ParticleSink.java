@@ -0,0 +1,23 @@
+package net.skycade.space.renderer;
+
+/**
+ * Where objects write their particles when they're drawn.
+ * <p>
+ * Particles go straight into the frame being rendered as plain coordinates, so drawing an object
+ * doesn't build up lists or allocate a position per particle.
+ *
+ * @author Jacob Cohen
+ */
+@FunctionalInterface
+public interface ParticleSink {
+
+  /**
+   * Add a particle to the frame.
+   *
+   * @param x     the x coordinate of the particle, in the world.
+   * @param y     the y coordinate of the particle, in the world.
+   * @param z     the z coordinate of the particle, in the world.
+   * @param count how many particles to spawn at that spot; more stand out more.
+   */
+  void particle(double x, double y, double z, int count);
+}
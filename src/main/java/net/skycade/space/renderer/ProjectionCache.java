@@ -0,0 +1,277 @@
+package net.skycade.space.renderer;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import net.minestom.server.coordinate.Pos;
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+import net.skycade.space.model.physics.vector.SectorLocalVec;
+import net.skycade.space.model.sector.contained.SectorContainedObject;
+
+/**
+ * Remembers how each object was drawn last, so objects that look the same as they did can be
+ * sent again without being drawn and projected again.
+ * <p>
+ * What an object looks like only depends on where it is on the 'draw sphere', how big it looks,
+ * its {@link LodTier}, and (for the hyperspace effect) the ship's velocity. An entry is reused as
+ * long as the tier is the same and none of the others moved by more than
+ * {@link PhysicsAndRenderingConstants#PROJECTION_CACHE_TOLERANCE} blocks since it was drawn,
+ * which is most far away objects on most frames while the ship isn't turning. Turning or moving
+ * the ship moves the objects on the 'draw sphere', so their entries are drawn again as soon as
+ * the difference would show.
+ * <p>
+ * The entries also remember the tier each object was drawn with, so the renderer can pick the
+ * next one with hysteresis (see {@link LodTier#select(LodTier, double)}). Every viewer has a cache
+ * of their own, so the same object can be drawn in different detail for different ships.
+ *
+ * @author Jacob Cohen
+ */
+class ProjectionCache {
+
+  /**
+   * The entries, by object. Objects that weren't drawn in a frame are forgotten.
+   */
+  private final Map<SectorContainedObject, Entry> entries = new IdentityHashMap<>();
+
+  /**
+   * The ship's velocity when the entries were drawn.
+   */
+  private double velocityX;
+  private double velocityY;
+  private double velocityZ;
+
+  /**
+   * The number of the frame being rendered.
+   */
+  private long frame;
+
+  /**
+   * Start a frame: forget every entry if the ship's velocity changed enough to change the
+   * hyperspace effect.
+   *
+   * @param shipVelocity the ship's velocity.
+   */
+  void beginFrame(SectorLocalVec shipVelocity) {
+    frame++;
+    double dx = shipVelocity.x() - velocityX;
+    double dy = shipVelocity.y() - velocityY;
+    double dz = shipVelocity.z() - velocityZ;
+    // the hyperspace lines are 10 blocks long at the speed of light
+    double change = Math.sqrt(dx * dx + dy * dy + dz * dz) * 10 / 299792458;
+    if (change > PhysicsAndRenderingConstants.PROJECTION_CACHE_TOLERANCE) {
+      for (Entry entry : entries.values()) {
+        entry.valid = false;
+      }
+      velocityX = shipVelocity.x();
+      velocityY = shipVelocity.y();
+      velocityZ = shipVelocity.z();
+    }
+  }
+
+  /**
+   * Get the entry of an object, and mark it as used this frame.
+   *
+   * @param object the object.
+   * @return the object's entry; {@link Entry#matches(Pos, double, LodTier)} says if it can be
+   *     reused.
+   */
+  Entry entry(SectorContainedObject object) {
+    Entry entry = entries.computeIfAbsent(object, o -> new Entry());
+    entry.frame = frame;
+    return entry;
+  }
+
+  /**
+   * End a frame: forget the objects that weren't drawn in it.
+   */
+  void endFrame() {
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().frame != frame) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * How an object was drawn last.
+   */
+  static final class Entry {
+
+    /**
+     * Whether the entry is worth comparing against at all.
+     */
+    private boolean valid;
+
+    /**
+     * The last frame the object was looked at in.
+     */
+    private long frame;
+
+    /**
+     * Where the object was drawn on the 'draw sphere', how far from the ship it was, and how big
+     * it looked.
+     */
+    private Pos center;
+    private double distance;
+    private double apparentRadius;
+
+    /**
+     * The detail the object was drawn with.
+     */
+    private LodTier tier = LodTier.DOT;
+
+    /**
+     * How many particles the object asked for.
+     */
+    private int demand;
+
+    /**
+     * How many particles the object was given, or -1 if its particles aren't stored (yet).
+     */
+    private int allocation = -1;
+
+    /**
+     * The object's particles after projection.
+     */
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private double[] z = new double[0];
+    private int[] count = new int[0];
+    private int size;
+
+    /**
+     * Check whether the object still looks the way it did when the entry was filled in.
+     *
+     * @param center         where the object is now on the 'draw sphere'.
+     * @param apparentRadius how big the object looks now, in blocks.
+     * @param tier           the detail the object is drawn with now.
+     * @return whether the entry can be reused.
+     */
+    boolean matches(Pos center, double apparentRadius, LodTier tier) {
+      if (!valid || tier != this.tier) {
+        return false;
+      }
+      double tolerance = PhysicsAndRenderingConstants.PROJECTION_CACHE_TOLERANCE;
+      double dx = center.x() - this.center.x();
+      double dy = center.y() - this.center.y();
+      double dz = center.z() - this.center.z();
+      return dx * dx + dy * dy + dz * dz <= tolerance * tolerance
+          && Math.abs(apparentRadius - this.apparentRadius) <= tolerance;
+    }
+
+    /**
+     * Fill the entry in for where the object is now, dropping its stored particles.
+     *
+     * @param center         where the object is on the 'draw sphere'.
+     * @param distance       how far the object is from the ship, in meters.
+     * @param apparentRadius how big the object looks, in blocks.
+     * @param tier           the detail the object is drawn with.
+     * @param demand         how many particles the object asks for.
+     */
+    void reset(Pos center, double distance, double apparentRadius, LodTier tier, int demand) {
+      this.valid = true;
+      this.center = center;
+      this.distance = distance;
+      this.apparentRadius = apparentRadius;
+      this.tier = tier;
+      this.demand = demand;
+      this.allocation = -1;
+    }
+
+    /**
+     * Get where the object was drawn on the 'draw sphere'.
+     *
+     * @return the center the entry was filled in with.
+     */
+    Pos center() {
+      return center;
+    }
+
+    /**
+     * Get how far the object was from the ship when it was drawn.
+     *
+     * @return the distance the entry was filled in with, in meters.
+     */
+    double distance() {
+      return distance;
+    }
+
+    /**
+     * Get the detail the object was drawn with last, which is where the next frame's tier is
+     * picked from.
+     *
+     * @return the tier the entry was filled in with.
+     */
+    LodTier tier() {
+      return tier;
+    }
+
+    /**
+     * Get how many particles the object asked for.
+     *
+     * @return the demand the entry was filled in with.
+     */
+    int demand() {
+      return demand;
+    }
+
+    /**
+     * Check whether the object's particles are stored for the number of particles it was given.
+     *
+     * @param allocation how many particles the object was given this frame.
+     * @return whether the stored particles can be sent as they are.
+     */
+    boolean hasParticles(int allocation) {
+      return this.allocation == allocation;
+    }
+
+    /**
+     * Store the object's projected particles.
+     *
+     * @param allocation how many particles the object was given.
+     * @param x          the x coordinates of the frame's particles.
+     * @param y          the y coordinates.
+     * @param z          the z coordinates.
+     * @param count      how many particles to spawn at each spot.
+     * @param from       the first of the object's particles.
+     * @param to         one past the last of the object's particles.
+     */
+    void store(int allocation, double[] x, double[] y, double[] z, int[] count, int from,
+               int to) {
+      size = to - from;
+      if (this.x.length < size) {
+        this.x = new double[size];
+        this.y = new double[size];
+        this.z = new double[size];
+        this.count = new int[size];
+      }
+      System.arraycopy(x, from, this.x, 0, size);
+      System.arraycopy(y, from, this.y, 0, size);
+      System.arraycopy(z, from, this.z, 0, size);
+      System.arraycopy(count, from, this.count, 0, size);
+      this.allocation = allocation;
+    }
+
+    /**
+     * Add the stored particles to a frame.
+     *
+     * @param batcher the frame's packet batcher.
+     */
+    void addTo(ParticlePacketBatcher batcher) {
+      for (int i = 0; i < size; i++) {
+        // every particle is drawn twice, so it stands out
+        batcher.add(x[i], y[i], z[i], count[i] * 2);
+      }
+    }
+
+    /**
+     * Get the number of particles stored.
+     *
+     * @return the number of particles.
+     */
+    int size() {
+      return size;
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package net.skycade.space.renderer;
+
+import net.skycade.space.space.SpaceShipSpaceConstants;
+
+/**
+ * The plain loop version of the {@link ParticleProjectionKernel}. Works everywhere, and gives
+ * exactly the same results as {@link VectorParticleProjectionKernel}.
+ *
+ * @author Jacob Cohen
+ */
+public class ScalarParticleProjectionKernel implements ParticleProjectionKernel {
+
+  @Override
+  public void project(double[] x, double[] y, double[] z, int count) {
+    projectRange(x, y, z, 0, count);
+  }
+
+  /**
+   * Project a range of a batch of particles in place.
+   *
+   * @param x    the x coordinates.
+   * @param y    the y coordinates.
+   * @param z    the z coordinates.
+   * @param from the first particle (inclusive).
+   * @param to   the last particle (exclusive).
+   */
+  static void projectRange(double[] x, double[] y, double[] z, int from, int to) {
+    double radius = SpaceShipSpaceConstants.DRAW_ON_CIRCLE_RADIUS;
+    double centerX = SpaceShipSpaceConstants.THEORETICAL_CENTER_OF_SHIP.x();
+    double centerY = SpaceShipSpaceConstants.THEORETICAL_CENTER_OF_SHIP.y();
+    double centerZ = SpaceShipSpaceConstants.THEORETICAL_CENTER_OF_SHIP.z();
+
+    for (int i = from; i < to; i++) {
+      // this particle position is in 3D relative to the surface of the 'draw sphere' (pops out)
+      double dx = x[i] - centerX;
+      double dy = y[i] - centerY;
+      double dz = z[i] - centerZ;
+      double scale = radius / Math.sqrt(dx * dx + dy * dy + dz * dz);
+      double poppedX = x[i] * scale;
+      double poppedY = y[i] * scale;
+      double poppedZ = z[i] * scale;
+
+      // this particle position is in 2D relative to the surface of the 'draw sphere' (squished)
+      dx = poppedX - centerX;
+      dy = poppedY - centerY;
+      dz = poppedZ - centerZ;
+      double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+      x[i] = poppedX * radius / distance;
+      y[i] = poppedY * radius / distance;
+      z[i] = poppedZ * radius / distance;
+    }
+  }
+}
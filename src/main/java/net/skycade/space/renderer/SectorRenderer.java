@@ -1,16 +1,11 @@
 package net.skycade.space.renderer;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import net.minestom.server.coordinate.Pos;
-import net.minestom.server.network.packet.server.play.ParticlePacket;
-import net.minestom.server.particle.Particle;
-import net.minestom.server.particle.ParticleCreator;
-import net.skycade.serverruntime.api.space.GameSpace;
-import net.skycade.space.model.physics.vector.SectorContainedPos;
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.physics.vector.SectorLocalVec;
 import net.skycade.space.model.sector.contained.SectorContainedObject;
 import net.skycade.space.model.sector.contained.SectorSpaceShip;
 import net.skycade.space.space.SpaceShipSpace;
@@ -18,6 +13,11 @@ import net.skycade.space.space.SpaceShipSpaceConstants;
 
 public class SectorRenderer {
 
+  /**
+   * The importance of objects too small to make out, so that they still get a particle.
+   */
+  static final double MIN_IMPORTANCE = 0.01;
+
   /**
    * The spaceship space.
    * <p>
@@ -29,6 +29,84 @@ public class SectorRenderer {
    */
   private final SpaceShipSpace space;
 
+  /**
+   * How far the frame being rendered is between the sector's last two physics states.
+   */
+  private double interpolationAlpha;
+
+  /**
+   * The cosine and sine of the half angle of the cone in front of the ship that's rendered.
+   */
+  private final double viewConeCos;
+  private final double viewConeSin;
+
+  /**
+   * The half angle of the cone in front of the ship that's rendered, in radians.
+   */
+  private final double viewConeHalfAngle;
+
+  /**
+   * The objects found near the ship this frame. Reused from frame to frame.
+   */
+  private final List<SectorContainedObject> visibleObjects = new ArrayList<>();
+
+  /**
+   * The objects being drawn this frame, and their entries in the {@link #projectionCache}, which
+   * say where on the 'draw sphere' and with what detail they're drawn.
+   */
+  private final List<SectorContainedObject> drawnObjects = new ArrayList<>();
+  private final List<ProjectionCache.Entry> drawEntries = new ArrayList<>();
+
+  /**
+   * How many particles each object being drawn would like, how important it is, and how many it
+   * gets.
+   */
+  private int[] particleDemand = new int[0];
+  private double[] particleImportance = new double[0];
+  private int[] particleAllocation = new int[0];
+
+  /**
+   * Where the particles of each object drawn from scratch this frame start and end in
+   * {@link #particles}; the start is -1 if its particles from an earlier frame are reused.
+   */
+  private int[] particleStart = new int[0];
+  private int[] particleEnd = new int[0];
+
+  /**
+   * Splits the particle budget between the objects being drawn.
+   */
+  private final ParticleBudgetAllocator budgetAllocator = new ParticleBudgetAllocator();
+
+  /**
+   * Turns the frame's particles into packets and sends them.
+   */
+  private final ParticlePacketBatcher packetBatcher;
+
+  /**
+   * Keeps the particle traffic sent to each player within what their connection keeps up with.
+   */
+  private final ViewerBandwidthGovernor bandwidthGovernor = new ViewerBandwidthGovernor();
+
+  /**
+   * Projects the particles onto the flattened 'draw sphere'.
+   */
+  private final ParticleProjectionKernel projectionKernel = ParticleProjectionKernel.select();
+
+  /**
+   * The particles drawn this frame, which objects write straight into.
+   */
+  private final FrameParticleBuffer particles = new FrameParticleBuffer();
+
+  /**
+   * How each object was drawn last, so objects that haven't changed aren't drawn again.
+   */
+  private final ProjectionCache projectionCache = new ProjectionCache();
+
+  /**
+   * The distant background stars, baked into directions on the sky.
+   */
+  private final CelestialSkybox skybox = new CelestialSkybox();
+
   /**
    * Constructs a new sector renderer.
    *
@@ -36,46 +114,181 @@ public class SectorRenderer {
    */
   public SectorRenderer(SpaceShipSpace space) {
     this.space = space;
+    this.packetBatcher = new ParticlePacketBatcher(bandwidthGovernor);
+    this.viewConeHalfAngle = Math.toRadians(
+        Math.min(180, Math.max(0, PhysicsAndRenderingConstants.VIEW_CONE_HALF_ANGLE_DEGREES)));
+    this.viewConeCos = Math.cos(viewConeHalfAngle);
+    this.viewConeSin = Math.sin(viewConeHalfAngle);
+  }
+
+  /**
+   * Get the governor keeping the particle traffic sent to each player in check, e.g. for its
+   * per-player metrics.
+   *
+   * @return the bandwidth governor.
+   */
+  public ViewerBandwidthGovernor getBandwidthGovernor() {
+    return bandwidthGovernor;
   }
 
   /**
    * Renders the sector around the spaceship.
    */
   public void render() {
-    List<Pos> particles = new ArrayList<>();
-    // loop through all the sectors objects in the sector
-    // and render them.
-    for (SectorContainedObject object : space.getSector().getContainedObjects()) {
+    // physics run on their own fixed step, so render in between the last two physics states
+    this.interpolationAlpha =
+        space.getSector().getClock().getInterpolationAlpha(System.currentTimeMillis());
+
+    // the ship's position and orientation only need to be looked at once per frame
+    SectorSpaceShip ship = space.getSpaceShipReference();
+    SectorLocalPos eye = ship.getInterpolatedPosition(interpolationAlpha);
+    SectorViewTransform view =
+        new SectorViewTransform(eye, ship.getInterpolatedOrientation(interpolationAlpha));
+
+    // only look at the objects within render distance in front of the ship, rather than every
+    // object in the sector
+    visibleObjects.clear();
+    boolean culling = viewConeHalfAngle < Math.PI;
+    if (culling) {
+      space.getSector().getSpatialIndex().queryCone(eye.x(), eye.y(), eye.z(),
+          view.getForwardX(), view.getForwardY(), view.getForwardZ(), viewConeHalfAngle,
+          PhysicsAndRenderingConstants.RENDER_DISTANCE_METERS, visibleObjects);
+    } else {
+      space.getSector().getSpatialIndex().queryRadius(eye.x(), eye.y(), eye.z(),
+          PhysicsAndRenderingConstants.RENDER_DISTANCE_METERS, visibleObjects);
+    }
+    // background stars aren't in the index: the distant ones are drawn from the skybox, and only
+    // the ones too close for it are drawn one by one
+    skybox.update(space.getSector(), eye);
+    skybox.addNearObjects(visibleObjects);
+
+    // work out where the objects in view are drawn, and how many particles each would like
+    SectorLocalVec shipVelocity = ship.getVelocity();
+    projectionCache.beginFrame(shipVelocity);
+    drawnObjects.clear();
+    drawEntries.clear();
+    ensureObjectCapacity(visibleObjects.size() + 1);
+    for (int i = 0; i < visibleObjects.size(); i++) {
+      SectorContainedObject object = visibleObjects.get(i);
       // render the object.
       if (object instanceof SectorSpaceShip) {
         // don't render the ship.
         continue;
       }
-      Pos absoluteDrawSphereRadiusBoundObjectCenter =
-          transformUniverseObjectPositionCenterToDrawSphereAbsolutePosition(object.getPosition());
-      Pos[] positions = object.draw(space, absoluteDrawSphereRadiusBoundObjectCenter);
-      particles.addAll(List.of(positions));
+      // the index only knows roughly where objects are (e.g. the whole orbit for objects on
+      // rails), so check against where they're actually drawn before drawing them
+      SectorLocalPos position = object.getInterpolatedPosition(interpolationAlpha);
+      if (culling && !view.isInViewCone(position, object.getBoundingRadius(), viewConeCos,
+          viewConeSin)) {
+        continue;
+      }
+      Pos absoluteDrawSphereRadiusBoundObjectCenter = view.toDrawSphere(position);
+      double distance = view.distance(position.x(), position.y(), position.z());
+      double apparentRadius =
+          object.getBoundingRadius() * SpaceShipSpaceConstants.DRAW_ON_CIRCLE_RADIUS / distance;
+
+      // this is the one place the object's level of detail is picked each frame; everything
+      // after this draws it with the tier that's stored with its entry
+      ProjectionCache.Entry entry = projectionCache.entry(object);
+      LodTier tier = LodTier.select(entry.tier(), apparentRadius);
+
+      // objects that have barely moved on the 'draw sphere' since they were last drawn are
+      // drawn where they were, so their particles can be reused
+      if (entry.matches(absoluteDrawSphereRadiusBoundObjectCenter, apparentRadius, tier)) {
+        absoluteDrawSphereRadiusBoundObjectCenter = entry.center();
+      } else {
+        entry.reset(absoluteDrawSphereRadiusBoundObjectCenter, distance, apparentRadius, tier,
+            object.getParticleDemand(space, absoluteDrawSphereRadiusBoundObjectCenter, distance,
+                tier));
+      }
+      int demand = entry.demand();
+      if (demand <= 0) {
+        continue;
+      }
+      int index = drawnObjects.size();
+      drawnObjects.add(object);
+      drawEntries.add(entry);
+      particleDemand[index] = demand;
+      // the bigger an object looks, the more of the budget it gets
+      particleImportance[index] = Math.max(MIN_IMPORTANCE, apparentRadius);
     }
-
-    Collections.shuffle(particles);
-
-    for (int i = 0; i < particles.size(); i++) {
-      Pos particle = particles.get(i);
-      int drawn = i * 2;
-
-      // if last element
-      if (i == particles.size() - 1 && drawn < 8000) {
-        drawParticle(space, translateDrawCircle3DPointToRadiusBoundPerspective2DPoint(particle),
-            2 * (8000 - drawn));
-        break;
+    projectionCache.endFrame();
+
+    // the skybox takes its share of the budget as if it were one more object, right after the
+    // others
+    int objectCount = drawnObjects.size();
+    skybox.project(view, culling ? viewConeCos : -1);
+    int skyboxDemand = skybox.getParticleDemand(shipVelocity);
+    particleDemand[objectCount] = skyboxDemand;
+    particleImportance[objectCount] = Math.max(MIN_IMPORTANCE, skybox.getImportance());
+
+    // split the budget between them, and only generate the particles that will be sent
+    budgetAllocator.allocate(particleImportance, particleDemand,
+        skyboxDemand > 0 ? objectCount + 1 : objectCount,
+        PhysicsAndRenderingConstants.PARTICLE_BUDGET, particleAllocation);
+    particles.clear();
+    int reusedCount = 0;
+    for (int i = 0; i < objectCount; i++) {
+      particleStart[i] = -1;
+      if (particleAllocation[i] == 0) {
+        continue;
       }
-
-      if (drawn >= 8000) {
-        break;
+      ProjectionCache.Entry entry = drawEntries.get(i);
+      if (entry.hasParticles(particleAllocation[i])) {
+        reusedCount += entry.size();
+        continue;
       }
+      // the buffer holds the object to what it was given
+      particleStart[i] = particles.size();
+      particles.allow(particleAllocation[i]);
+      drawnObjects.get(i).draw(space, entry.center(), entry.distance(), entry.tier(),
+          particleAllocation[i], particles);
+      particleEnd[i] = particles.size();
+    }
+    if (skyboxDemand > 0) {
+      skybox.draw(shipVelocity, particleAllocation[objectCount], particles);
+    }
+    int particleCount = particles.size();
+    double[] x = particles.x();
+    double[] y = particles.y();
+    double[] z = particles.z();
+    int[] count = particles.count();
+    projectionKernel.project(x, y, z, particleCount);
+
+    // every particle is drawn twice, so it stands out
+    packetBatcher.begin(particleCount + reusedCount);
+    for (int i = 0; i < particleCount; i++) {
+      packetBatcher.add(x[i], y[i], z[i], count[i] * 2);
+    }
+    for (int i = 0; i < objectCount; i++) {
+      if (particleAllocation[i] == 0) {
+        continue;
+      }
+      ProjectionCache.Entry entry = drawEntries.get(i);
+      if (particleStart[i] < 0) {
+        entry.addTo(packetBatcher);
+        continue;
+      }
+      // keep what was just drawn, for the frames to come
+      entry.store(particleAllocation[i], x, y, z, count, particleStart[i], particleEnd[i]);
+    }
+    packetBatcher.flush(space.getPlayers());
+  }
 
-      drawParticle(space, translateDrawCircle3DPointToRadiusBoundPerspective2DPoint(particle), 2);
+  /**
+   * Make sure the per-object buffers can hold the given number of objects.
+   *
+   * @param capacity the number of objects.
+   */
+  private void ensureObjectCapacity(int capacity) {
+    if (particleDemand.length >= capacity) {
+      return;
     }
+    particleDemand = new int[capacity];
+    particleImportance = new double[capacity];
+    particleAllocation = new int[capacity];
+    particleStart = new int[capacity];
+    particleEnd = new int[capacity];
   }
 
   private Pos randomPositionOnSurfaceOfSphere(double radius) {
@@ -89,137 +302,4 @@ public class SectorRenderer {
 
     return new Pos(x, y, z);
   }
-
-  /**
-   * Translates a point that is in 3 dimensional space around the draw circle radius
-   * to a point that is in 2 dimensional space, which is bound
-   * to the radius of the draw circle; making it 2D.
-   *
-   * @param drawCircleBound3DPoint the point to translate.
-   * @return the translated point.
-   */
-  private Pos translateDrawCircle3DPointToRadiusBoundPerspective2DPoint(
-      Pos drawCircleBound3DPoint) {
-
-    BigDecimal distanceFromShipToPointOn3DStarSurface = BigDecimal.valueOf(
-        drawCircleBound3DPoint.distance(SpaceShipSpaceConstants.THEORETICAL_CENTER_OF_SHIP));
-
-    // calculate the position of the particle on the 3D star that is centered around the surf
-    // of the 'draw sphere'
-    BigDecimal xOnDrawSphere = BigDecimal.valueOf(drawCircleBound3DPoint.x())
-        .multiply(SpaceShipSpaceConstants.DRAW_ON_CIRCLE_RADIUS)
-        .divide(distanceFromShipToPointOn3DStarSurface, 10, RoundingMode.HALF_UP);
-    BigDecimal yOnDrawSphere = BigDecimal.valueOf(drawCircleBound3DPoint.y())
-        .multiply(SpaceShipSpaceConstants.DRAW_ON_CIRCLE_RADIUS)
-        .divide(distanceFromShipToPointOn3DStarSurface, 10, RoundingMode.HALF_UP);
-    BigDecimal zOnDrawSphere = BigDecimal.valueOf(drawCircleBound3DPoint.z())
-        .multiply(SpaceShipSpaceConstants.DRAW_ON_CIRCLE_RADIUS)
-        .divide(distanceFromShipToPointOn3DStarSurface, 10, RoundingMode.HALF_UP);
-
-    // this particle position is in 3D relative to the surface of the 'draw sphere' (pops out)
-    Pos particlePos = new Pos(xOnDrawSphere.doubleValue(), yOnDrawSphere.doubleValue(),
-        zOnDrawSphere.doubleValue());
-
-    // this particle position is in 2D relative to the surface of the 'draw sphere' (squished)
-    return particlePos.mul(SpaceShipSpaceConstants.DRAW_ON_CIRCLE_RADIUS.doubleValue())
-        .div(particlePos.distance(SpaceShipSpaceConstants.THEORETICAL_CENTER_OF_SHIP));
-  }
-
-  /**
-   * Draws a particle at the specified position.
-   *
-   * @param space        the space to draw the particle in.
-   * @param minecraftPos the position to draw the particle at.
-   * @param count        the amount of particles to draw.
-   */
-  private void drawParticle(GameSpace space, Pos minecraftPos, int count) {
-    ParticlePacket particlePacket =
-        ParticleCreator.createParticlePacket(Particle.FIREWORK, minecraftPos.x(), minecraftPos.y(),
-            minecraftPos.z(), 0, 0, 0, count);
-    space.sendGroupedPacket(particlePacket);
-  }
-
-  /**
-   * Transforms a 'universal' position to a position that is relative to the origin of the world,
-   * from the perspective of the origin on the draw circle (the position is the center of the object,
-   * sitting on the draw sphere's radius).
-   *
-   * @param universeObjectPositionCenter the position to transform.
-   * @return the transformed position.
-   */
-  private Pos transformUniverseObjectPositionCenterToDrawSphereAbsolutePosition(
-      SectorContainedPos universeObjectPositionCenter) {
-    // objective: take the position of the object in the sector and convert it to a position
-    // on the surface of the 'draw sphere'
-    // then, calculate the radius of the object on the surface of the 'draw sphere'
-
-    SectorContainedPos shipPosition = space.getSpaceShipReference().getPosition();
-    SectorContainedPos shipRotation = space.getSpaceShipReference().getRotation();
-
-    BigDecimal drawSphereRadius = SpaceShipSpaceConstants.DRAW_ON_CIRCLE_RADIUS;
-    BigDecimal distanceFromShipToStar = universeObjectPositionCenter.distance(shipPosition);
-
-    // calculate the position of the object on the surface of the 'draw sphere'
-    // remember, the position of the object is constrained to the SURFACE of the 'draw sphere'
-    SectorContainedPos relativePosition = universeObjectPositionCenter.sub(shipPosition);
-
-    BigDecimal xOnDrawSphere = relativePosition.x().multiply(drawSphereRadius)
-        .divide(distanceFromShipToStar, 10, RoundingMode.HALF_UP);
-    BigDecimal yOnDrawSphere = relativePosition.y().multiply(drawSphereRadius)
-        .divide(distanceFromShipToStar, 10, RoundingMode.HALF_UP);
-    BigDecimal zOnDrawSphere = relativePosition.z().multiply(drawSphereRadius)
-        .divide(distanceFromShipToStar, 10, RoundingMode.HALF_UP);
-
-    // rotate everything on the surface of the 'draw sphere' by the rotation of the ship
-    // this is so that the ship can rotate and the objects will rotate with it,
-    // we need trigonometry for this since we will use yaw, pitch and roll
-    // top-down view:
-    // forwards: -z
-    //       -z
-    //       |
-    // -x  ------ +x
-    //       |
-    //       +z
-    //
-
-    // yaw: rotation around the y-axis
-    // pitch: rotation around the x-axis
-    // roll: rotation around the z-axis
-
-    // yaw
-    BigDecimal yaw = shipRotation.y();
-    BigDecimal yawCos = BigDecimal.valueOf(Math.cos(yaw.doubleValue()));
-    BigDecimal yawSin = BigDecimal.valueOf(Math.sin(yaw.doubleValue()));
-
-    BigDecimal xOnDrawSphereYaw =
-        xOnDrawSphere.multiply(yawCos).subtract(zOnDrawSphere.multiply(yawSin));
-    BigDecimal zOnDrawSphereYaw =
-        xOnDrawSphere.multiply(yawSin).add(zOnDrawSphere.multiply(yawCos));
-
-    // pitch
-    BigDecimal pitch = shipRotation.x();
-    BigDecimal pitchCos = BigDecimal.valueOf(Math.cos(pitch.doubleValue()));
-    BigDecimal pitchSin = BigDecimal.valueOf(Math.sin(pitch.doubleValue()));
-
-    BigDecimal yOnDrawSpherePitch =
-        yOnDrawSphere.multiply(pitchCos).subtract(zOnDrawSphereYaw.multiply(pitchSin));
-    BigDecimal zOnDrawSpherePitch =
-        yOnDrawSphere.multiply(pitchSin).add(zOnDrawSphereYaw.multiply(pitchCos));
-
-    // roll
-    BigDecimal roll = shipRotation.z();
-    BigDecimal rollCos = BigDecimal.valueOf(Math.cos(roll.doubleValue()));
-    BigDecimal rollSin = BigDecimal.valueOf(Math.sin(roll.doubleValue()));
-
-    BigDecimal xOnDrawSphereRoll =
-        xOnDrawSphereYaw.multiply(rollCos).subtract(yOnDrawSpherePitch.multiply(rollSin));
-    BigDecimal yOnDrawSphereRoll =
-        xOnDrawSphereYaw.multiply(rollSin).add(yOnDrawSpherePitch.multiply(rollCos));
-
-    // now we have the position of the object on the surface of the 'draw sphere' and the radius
-    // of the object on the surface of the 'draw sphere'
-    // we can now draw the object
-    return new Pos(xOnDrawSphereRoll.doubleValue(), yOnDrawSphereRoll.doubleValue(),
-        zOnDrawSpherePitch.doubleValue());
-  }
 }
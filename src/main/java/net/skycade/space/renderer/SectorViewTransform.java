@@ -0,0 +1,218 @@
+package net.skycade.space.renderer;
+
+import net.minestom.server.coordinate.Pos;
+import net.skycade.space.model.physics.vector.Quaternion;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.space.SpaceShipSpaceConstants;
+
+/**
+ * The view from the ship for a single frame: where the ship is, and the rotation matrix for its
+ * orientation (from the sector's axes to the ship's, where -z is forward).
+ * <p>
+ * Built once per frame, so projecting an object onto the 'draw sphere' is a handful of
+ * multiply-adds on doubles instead of a fresh round of trigonometry per object.
+ *
+ * @author Jacob Cohen
+ */
+public class SectorViewTransform {
+
+  /**
+   * The position of the ship.
+   */
+  private final double eyeX;
+  private final double eyeY;
+  private final double eyeZ;
+
+  /**
+   * The rotation matrix, row by row.
+   */
+  private final double m00;
+  private final double m01;
+  private final double m02;
+  private final double m10;
+  private final double m11;
+  private final double m12;
+  private final double m20;
+  private final double m21;
+  private final double m22;
+
+  /**
+   * Constructor.
+   *
+   * @param eye         the position of the ship.
+   * @param orientation the orientation of the ship.
+   */
+  public SectorViewTransform(SectorLocalPos eye, Quaternion orientation) {
+    this.eyeX = eye.x();
+    this.eyeY = eye.y();
+    this.eyeZ = eye.z();
+
+    // no trigonometry needed, the matrix falls straight out of the quaternion
+    double[] matrix = new double[9];
+    orientation.toRotationMatrix(matrix);
+    this.m00 = matrix[0];
+    this.m01 = matrix[1];
+    this.m02 = matrix[2];
+    this.m10 = matrix[3];
+    this.m11 = matrix[4];
+    this.m12 = matrix[5];
+    this.m20 = matrix[6];
+    this.m21 = matrix[7];
+    this.m22 = matrix[8];
+  }
+
+  /**
+   * Get the x coordinate of the ship.
+   *
+   * @return the x coordinate of the ship.
+   */
+  public double getEyeX() {
+    return eyeX;
+  }
+
+  /**
+   * Get the y coordinate of the ship.
+   *
+   * @return the y coordinate of the ship.
+   */
+  public double getEyeY() {
+    return eyeY;
+  }
+
+  /**
+   * Get the z coordinate of the ship.
+   *
+   * @return the z coordinate of the ship.
+   */
+  public double getEyeZ() {
+    return eyeZ;
+  }
+
+  /**
+   * Get the x component of the direction the ship is facing, in the sector's axes.
+   *
+   * @return the x component of the unit forward vector.
+   */
+  public double getForwardX() {
+    // the ship's -z axis, which is the (negated) last row of the rotation
+    return -m20;
+  }
+
+  /**
+   * Get the y component of the direction the ship is facing, in the sector's axes.
+   *
+   * @return the y component of the unit forward vector.
+   */
+  public double getForwardY() {
+    return -m21;
+  }
+
+  /**
+   * Get the z component of the direction the ship is facing, in the sector's axes.
+   *
+   * @return the z component of the unit forward vector.
+   */
+  public double getForwardZ() {
+    return -m22;
+  }
+
+  /**
+   * Check whether a sphere reaches into the cone in front of the ship.
+   *
+   * @param position     the center of the sphere.
+   * @param radius       the radius of the sphere.
+   * @param cosHalfAngle the cosine of the angle between the ship's forward direction and the
+   *                     side of the cone.
+   * @param sinHalfAngle the sine of that angle.
+   * @return whether any of the sphere is inside the cone.
+   */
+  public boolean isInViewCone(SectorLocalPos position, double radius, double cosHalfAngle,
+                              double sinHalfAngle) {
+    double dx = position.x() - eyeX;
+    double dy = position.y() - eyeY;
+    double dz = position.z() - eyeZ;
+    double distanceSquared = dx * dx + dy * dy + dz * dz;
+    if (distanceSquared <= radius * radius) {
+      // the ship is inside it
+      return true;
+    }
+    // in the ship's axes, -z is forward and x and y are across
+    double along = -(m20 * dx + m21 * dy + m22 * dz);
+    double across = Math.sqrt(Math.max(0, distanceSquared - along * along));
+    // how far the center is outside the side of the cone
+    return across * cosHalfAngle - along * sinHalfAngle <= radius;
+  }
+
+  /**
+   * Get the distance from the ship to a point.
+   *
+   * @param x the x coordinate of the point.
+   * @param y the y coordinate of the point.
+   * @param z the z coordinate of the point.
+   * @return the distance from the ship.
+   */
+  public double distance(double x, double y, double z) {
+    double dx = x - eyeX;
+    double dy = y - eyeY;
+    double dz = z - eyeZ;
+    return Math.sqrt(dx * dx + dy * dy + dz * dz);
+  }
+
+  /**
+   * Project a point in the sector onto the surface of the 'draw sphere', as seen from the ship.
+   *
+   * @param x the x coordinate of the point.
+   * @param y the y coordinate of the point.
+   * @param z the z coordinate of the point.
+   * @return the point on the draw sphere, relative to the origin of the world.
+   */
+  public Pos toDrawSphere(double x, double y, double z) {
+    double dx = x - eyeX;
+    double dy = y - eyeY;
+    double dz = z - eyeZ;
+
+    // the rotation keeps lengths, so scaling onto the sphere can happen after rotating
+    double scale = SpaceShipSpaceConstants.DRAW_ON_CIRCLE_RADIUS
+        / Math.sqrt(dx * dx + dy * dy + dz * dz);
+    return new Pos((m00 * dx + m01 * dy + m02 * dz) * scale,
+        (m10 * dx + m11 * dy + m12 * dz) * scale,
+        (m20 * dx + m21 * dy + m22 * dz) * scale);
+  }
+
+  /**
+   * Project directions in the sector onto the surface of the 'draw sphere', as seen from the
+   * ship. Only the ship's orientation matters for a direction, not where the ship is, so this is
+   * a single rotation per direction.
+   *
+   * @param x     the x components of the (unit) directions.
+   * @param y     the y components of the directions.
+   * @param z     the z components of the directions.
+   * @param count the number of directions.
+   * @param outX  receives the x coordinates of the points on the draw sphere, relative to the
+   *              origin of the world.
+   * @param outY  receives the y coordinates.
+   * @param outZ  receives the z coordinates.
+   */
+  public void directionsToDrawSphere(double[] x, double[] y, double[] z, int count,
+                                     double[] outX, double[] outY, double[] outZ) {
+    double scale = SpaceShipSpaceConstants.DRAW_ON_CIRCLE_RADIUS;
+    for (int i = 0; i < count; i++) {
+      double dx = x[i];
+      double dy = y[i];
+      double dz = z[i];
+      outX[i] = (m00 * dx + m01 * dy + m02 * dz) * scale;
+      outY[i] = (m10 * dx + m11 * dy + m12 * dz) * scale;
+      outZ[i] = (m20 * dx + m21 * dy + m22 * dz) * scale;
+    }
+  }
+
+  /**
+   * Project a point in the sector onto the surface of the 'draw sphere', as seen from the ship.
+   *
+   * @param position the point.
+   * @return the point on the draw sphere, relative to the origin of the world.
+   */
+  public Pos toDrawSphere(SectorLocalPos position) {
+    return toDrawSphere(position.x(), position.y(), position.z());
+  }
+}
@@ -0,0 +1,58 @@
+package net.skycade.space.renderer;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+import net.skycade.space.space.SpaceShipSpaceConstants;
+
+/**
+ * The SIMD version of the {@link ParticleProjectionKernel}, using the JDK's (incubating) Vector
+ * API to project as many particles per instruction as the CPU allows.
+ * <p>
+ * Every lane does the same operations in the same order as
+ * {@link ScalarParticleProjectionKernel}, so the two give exactly the same results. Only built
+ * with {@code -PvectorApi}, and needs the JVM to be started with
+ * {@code --add-modules jdk.incubator.vector}.
+ *
+ * @author Jacob Cohen
+ */
+public class VectorParticleProjectionKernel implements ParticleProjectionKernel {
+
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+  @Override
+  public void project(double[] x, double[] y, double[] z, int count) {
+    double radius = SpaceShipSpaceConstants.DRAW_ON_CIRCLE_RADIUS;
+    double centerX = SpaceShipSpaceConstants.THEORETICAL_CENTER_OF_SHIP.x();
+    double centerY = SpaceShipSpaceConstants.THEORETICAL_CENTER_OF_SHIP.y();
+    double centerZ = SpaceShipSpaceConstants.THEORETICAL_CENTER_OF_SHIP.z();
+
+    int vectorEnd = SPECIES.loopBound(count);
+    for (int i = 0; i < vectorEnd; i += SPECIES.length()) {
+      DoubleVector pointX = DoubleVector.fromArray(SPECIES, x, i);
+      DoubleVector pointY = DoubleVector.fromArray(SPECIES, y, i);
+      DoubleVector pointZ = DoubleVector.fromArray(SPECIES, z, i);
+
+      // pop out onto the 'draw sphere'
+      DoubleVector dx = pointX.sub(centerX);
+      DoubleVector dy = pointY.sub(centerY);
+      DoubleVector dz = pointZ.sub(centerZ);
+      DoubleVector scale = DoubleVector.broadcast(SPECIES, radius)
+          .div(dx.mul(dx).add(dy.mul(dy)).add(dz.mul(dz)).sqrt());
+      DoubleVector poppedX = pointX.mul(scale);
+      DoubleVector poppedY = pointY.mul(scale);
+      DoubleVector poppedZ = pointZ.mul(scale);
+
+      // squish flat
+      dx = poppedX.sub(centerX);
+      dy = poppedY.sub(centerY);
+      dz = poppedZ.sub(centerZ);
+      DoubleVector distance = dx.mul(dx).add(dy.mul(dy)).add(dz.mul(dz)).sqrt();
+      poppedX.mul(radius).div(distance).intoArray(x, i);
+      poppedY.mul(radius).div(distance).intoArray(y, i);
+      poppedZ.mul(radius).div(distance).intoArray(z, i);
+    }
+
+    // whatever doesn't fill a full vector
+    ScalarParticleProjectionKernel.projectRange(x, y, z, vectorEnd, count);
+  }
+}
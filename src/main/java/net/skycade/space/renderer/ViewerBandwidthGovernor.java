@@ -0,0 +1,192 @@
+package net.skycade.space.renderer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import net.minestom.server.entity.Player;
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+
+/**
+ * Keeps the particle traffic sent to each viewer within what their connection keeps up with.
+ * <p>
+ * Every viewer has their own budget of particle packets per frame, which adapts the way TCP's
+ * congestion window does (additive increase, multiplicative decrease): while packets don't back
+ * up, the budget grows by a fixed step every frame, up to the byte limit; as soon as they do, it's
+ * halved. A lagging client is then sent fewer particles, rather than being sent more than it can
+ * take until its connection drops.
+ * <p>
+ * The runtime doesn't expose how much is queued on a connection, so the backlog is measured by
+ * how far the viewer's latency has risen above the lowest latency seen for them: packets that
+ * are stuck in a queue make the keep-alives stuck behind them late too.
+ * <p>
+ * The latency is only measured when the viewer answers a keep-alive, so the budget can only back
+ * off once per keep-alive interval: a connection that backs up in between is sent the full budget
+ * until the next keep-alive shows it. That delay is the main weakness of using the latency as a
+ * stand-in for the backlog. The latency also reads 0 until the first keep-alive is answered,
+ * which isn't a measurement, so viewers aren't held back (or given a baseline) until then.
+ *
+ * @author Jacob Cohen
+ */
+public class ViewerBandwidthGovernor {
+
+  /**
+   * The state of each viewer, by UUID.
+   */
+  private final Map<UUID, ViewerState> viewers = new HashMap<>();
+
+  /**
+   * Scratch space for forgetting viewers that have left.
+   */
+  private final Set<UUID> present = new HashSet<>();
+
+  /**
+   * Start a frame: forget viewers that are no longer around.
+   *
+   * @param currentViewers the viewers this frame is sent to.
+   */
+  void beginFrame(Collection<Player> currentViewers) {
+    present.clear();
+    for (Player viewer : currentViewers) {
+      present.add(viewer.getUuid());
+    }
+    viewers.keySet().retainAll(present);
+  }
+
+  /**
+   * Work out how many particle packets a viewer may be sent this frame.
+   *
+   * @param viewer the viewer.
+   * @return the most particle packets to send the viewer.
+   */
+  int packetBudget(Player viewer) {
+    ViewerState state = viewers.computeIfAbsent(viewer.getUuid(), uuid -> new ViewerState());
+    state.update(viewer.getLatency());
+    return state.packetBudget();
+  }
+
+  /**
+   * Record what was actually sent to a viewer this frame.
+   *
+   * @param viewer  the viewer.
+   * @param sent    the particle packets sent.
+   * @param skipped the particle packets held back.
+   */
+  void recordSent(Player viewer, int sent, int skipped) {
+    ViewerState state = viewers.get(viewer.getUuid());
+    if (state != null) {
+      state.packetsSent += sent;
+      state.packetsSkipped += skipped;
+    }
+  }
+
+  /**
+   * Get how much particle traffic a viewer is being sent.
+   *
+   * @param viewer the UUID of the viewer.
+   * @return the viewer's metrics, or null if nothing has been sent to them.
+   */
+  public ViewerBandwidthMetrics getMetrics(UUID viewer) {
+    ViewerState state = viewers.get(viewer);
+    return state == null ? null : state.toMetrics();
+  }
+
+  /**
+   * Get how much particle traffic every viewer is being sent.
+   *
+   * @return the metrics of every viewer, by UUID.
+   */
+  public Map<UUID, ViewerBandwidthMetrics> getAllMetrics() {
+    Map<UUID, ViewerBandwidthMetrics> metrics = new HashMap<>();
+    viewers.forEach((uuid, state) -> metrics.put(uuid, state.toMetrics()));
+    return metrics;
+  }
+
+  /**
+   * The budget of a single viewer.
+   */
+  static final class ViewerState {
+
+    /**
+     * The most particle packets per frame any viewer is sent.
+     */
+    private static final double MAX_PACKETS =
+        (double) PhysicsAndRenderingConstants.MAX_PARTICLE_BYTES_PER_VIEWER_FRAME
+            / PhysicsAndRenderingConstants.ESTIMATED_PARTICLE_PACKET_BYTES;
+
+    /**
+     * How quickly the baseline follows the latency back up, per frame, so that a viewer whose
+     * route got slower for good isn't seen as backed up forever (about a minute).
+     */
+    private static final double BASELINE_RECOVERY_RATE = 1 / 1200d;
+
+    private double packetBudget = MAX_PACKETS;
+    private int latencyMillis = -1;
+    private double baselineLatencyMillis = Double.MAX_VALUE;
+    private long packetsSent;
+    private long packetsSkipped;
+
+    /**
+     * Move the budget on by a frame.
+     *
+     * @param latency the viewer's latency as the runtime reports it, in milliseconds.
+     */
+    void update(int latency) {
+      if (latency <= 0) {
+        if (latencyMillis < 0) {
+          // no keep-alive answered yet, so nothing to back off from; a baseline of 0 would
+          // also make any real latency look like a backlog later on
+          increaseBudget();
+          return;
+        }
+        latency = latencyMillis;
+      }
+      // the latency is only measured every so often, so only back off once per measurement
+      boolean newMeasurement = latency != latencyMillis;
+      latencyMillis = latency;
+      if (latency < baselineLatencyMillis) {
+        baselineLatencyMillis = latency;
+      } else {
+        baselineLatencyMillis += (latency - baselineLatencyMillis) * BASELINE_RECOVERY_RATE;
+      }
+
+      if (backlogMillis() > PhysicsAndRenderingConstants.VIEWER_BACKLOG_THRESHOLD_MILLIS) {
+        if (newMeasurement) {
+          packetBudget = Math.max(
+              PhysicsAndRenderingConstants.MIN_PARTICLE_PACKETS_PER_VIEWER_FRAME,
+              packetBudget * PhysicsAndRenderingConstants.VIEWER_BUDGET_DECREASE_FACTOR);
+        }
+      } else {
+        increaseBudget();
+      }
+    }
+
+    /**
+     * Get how many particle packets the viewer may be sent this frame.
+     *
+     * @return the budget, in packets.
+     */
+    int packetBudget() {
+      return (int) packetBudget;
+    }
+
+    private void increaseBudget() {
+      packetBudget = Math.min(MAX_PACKETS,
+          packetBudget + PhysicsAndRenderingConstants.VIEWER_BUDGET_INCREASE_PACKETS);
+    }
+
+    private int backlogMillis() {
+      return latencyMillis < 0 ? 0 : (int) (latencyMillis - baselineLatencyMillis);
+    }
+
+    ViewerBandwidthMetrics toMetrics() {
+      int packets = (int) packetBudget;
+      return new ViewerBandwidthMetrics(packets,
+          packets * PhysicsAndRenderingConstants.ESTIMATED_PARTICLE_PACKET_BYTES, latencyMillis,
+          latencyMillis < 0 ? -1 : (int) baselineLatencyMillis, backlogMillis(), packetsSent,
+          packetsSkipped);
+    }
+  }
+}
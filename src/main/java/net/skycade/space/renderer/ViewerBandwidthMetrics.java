@@ -0,0 +1,22 @@
+package net.skycade.space.renderer;
+
+/**
+ * A snapshot of how much particle traffic a viewer is being sent, see
+ * {@link ViewerBandwidthGovernor}.
+ *
+ * @param packetBudget          the most particle packets the viewer is sent per frame right now.
+ * @param byteBudget            the same budget, in (estimated) bytes.
+ * @param latencyMillis         the viewer's latency as last seen, or -1 if they haven't answered
+ *                              a keep-alive yet.
+ * @param baselineLatencyMillis the lowest latency seen for the viewer, i.e. with nothing queued,
+ *                              or -1 if they haven't answered a keep-alive yet.
+ * @param backlogMillis         how far the latency is above the baseline; the estimated time
+ *                              packets spend queued up for the viewer.
+ * @param packetsSent           the particle packets sent to the viewer in total.
+ * @param packetsSkipped        the particle packets held back from the viewer in total.
+ * @author Jacob Cohen
+ */
+public record ViewerBandwidthMetrics(int packetBudget, int byteBudget, int latencyMillis,
+                                     int baselineLatencyMillis, int backlogMillis,
+                                     long packetsSent, long packetsSkipped) {
+}
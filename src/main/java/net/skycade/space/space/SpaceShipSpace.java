@@ -19,11 +19,11 @@ import net.skycade.space.constants.PhysicsAndRenderingConstants;
 import net.skycade.space.model.dimension.SpaceDimension;
 import net.skycade.space.model.distance.LightYear;
 import net.skycade.space.model.physics.object.SectorPlanet;
-import net.skycade.space.model.physics.object.SectorStar;
+import net.skycade.space.model.physics.object.SectorStaticStar;
 import net.skycade.space.model.physics.vector.SectorContainedPos;
-import net.skycade.space.model.physics.vector.SectorContainedVec;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.physics.vector.SectorLocalVec;
 import net.skycade.space.model.sector.Sector;
-import net.skycade.space.model.sector.contained.SectorContainedObject;
 import net.skycade.space.model.sector.contained.SectorSpaceShip;
 import net.skycade.space.renderer.SectorRenderer;
 import net.skycade.space.sector.PredefinedEmptySpaceSector;
@@ -72,8 +72,8 @@ public class SpaceShipSpace extends GameSpace {
     super(UUID.randomUUID(), SpaceDimension.INSTANCE);
     this.sectorRenderer = new SectorRenderer(this);
     this.sector = new PredefinedEmptySpaceSector();
-    this.spaceShipReference = new SectorSpaceShip(
-        new SectorContainedPos(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
+    this.spaceShipReference = new SectorSpaceShip(SectorLocalPos.ZERO);
+    this.sector.addContainedObject(this.spaceShipReference);
   }
 
   private long lastTick = System.currentTimeMillis();
@@ -128,7 +128,9 @@ public class SpaceShipSpace extends GameSpace {
             new SectorContainedPos(xLightYear.toMeters(), yLightYear.toMeters(),
                 zLightYear.toMeters());
 
-        SectorStar randomStar = new SectorStar(randomStarPos, new BigDecimal("1737400"));
+        // background stars never move, so they don't need any physics state
+        SectorStaticStar randomStar =
+            new SectorStaticStar(this.sector.toLocal(randomStarPos), 1737400);
 
         // add the star to the sector
         this.sector.addContainedObject(randomStar);
@@ -168,39 +170,39 @@ public class SpaceShipSpace extends GameSpace {
         .executionType(ExecutionType.SYNC).schedule();
 
     scheduler().buildTask(() -> {
-          for (SectorContainedObject containedObject : this.sector.getContainedObjects()) {
-            containedObject.tickPhysics();
+          this.sector.tickPhysics();
+
+          // keep the floating origin close to the ship
+          SectorLocalPos shipPosition = this.spaceShipReference.getPosition();
+          if (shipPosition.length()
+              > PhysicsAndRenderingConstants.FLOATING_ORIGIN_SHIFT_DISTANCE) {
+            this.sector.shiftLocalOrigin(shipPosition.toVector());
           }
-          this.spaceShipReference.tickPhysics();
         }).repeat(Duration.ofMillis(PhysicsAndRenderingConstants.PHYSICS_DELAY_MILLIS))
         .executionType(ExecutionType.SYNC).schedule();
 
     scheduler().buildTask(() -> {
       scheduler().buildTask(() -> {
         this.spaceShipReference.setAcceleration(
-            new SectorContainedVec(BigDecimal.ZERO, BigDecimal.ZERO, new BigDecimal("-80000000")));
+            new SectorLocalVec(0, 0, -80000000));
       }).schedule();
 
       scheduler().buildTask(() -> {
         this.spaceShipReference.setAcceleration(
-            new SectorContainedVec(BigDecimal.ZERO, BigDecimal.ZERO, new BigDecimal("80000000")));
+            new SectorLocalVec(0, 0, 80000000));
       }).delay(Duration.ofSeconds(3)).schedule();
 
       scheduler().buildTask(() -> {
-        SectorPlanet planet = new SectorPlanet(this.spaceShipReference.getPosition()
-            .sub(BigDecimal.ZERO, BigDecimal.ZERO, new BigDecimal("10000000")),
-            new BigDecimal("1737400"));
+        SectorPlanet planet =
+            new SectorPlanet(this.spaceShipReference.getPosition().sub(0, 0, 10000000), 1737400);
         // add the planet to the sector
         this.sector.addContainedObject(planet);
 
-        this.spaceShipReference.setAcceleration(
-            new SectorContainedVec(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
-        this.spaceShipReference.setVelocity(
-            new SectorContainedVec(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
-        this.spaceShipReference.thrustForward(new BigDecimal("500"), 5, this);
+        this.spaceShipReference.setAcceleration(SectorLocalVec.ZERO);
+        this.spaceShipReference.setVelocity(SectorLocalVec.ZERO);
+        this.spaceShipReference.thrustForward(500, 5, this);
                 this.spaceShipReference.setAngularVelocity(
-            new SectorContainedVec(new BigDecimal(Math.PI / 2000), new BigDecimal(Math.PI / 2000),
-                new BigDecimal(Math.PI / 2000)));
+            new SectorLocalVec(Math.PI / 2000, Math.PI / 2000, Math.PI / 2000));
       }).delay(Duration.ofSeconds(6)).schedule();
 
     }).delay(Duration.ofSeconds(3)).schedule();
@@ -339,4 +341,13 @@ public class SpaceShipSpace extends GameSpace {
   public SectorSpaceShip getSpaceShipReference() {
     return this.spaceShipReference;
   }
+
+  /**
+   * Gets the sector renderer.
+   *
+   * @return the sector renderer
+   */
+  public SectorRenderer getSectorRenderer() {
+    return this.sectorRenderer;
+  }
 }
@@ -1,6 +1,5 @@
 package net.skycade.space.space;
 
-import java.math.BigDecimal;
 import net.minestom.server.coordinate.Pos;
 
 public class SpaceShipSpaceConstants {
@@ -19,11 +18,11 @@ public class SpaceShipSpaceConstants {
    * The radius of the ship.
    * In meters.
    */
-  public static final BigDecimal SHIP_RADIUS = new BigDecimal(10);
+  public static final double SHIP_RADIUS = 10;
 
   /**
    * The radius of the circle at which any objects will be drawn.
    * In meters.
    */
-  public static final BigDecimal DRAW_ON_CIRCLE_RADIUS = new BigDecimal(50);
+  public static final double DRAW_ON_CIRCLE_RADIUS = 50;
 }
@@ -0,0 +1,90 @@
+package net.skycade.space.model.physics.gravity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import net.skycade.space.model.physics.object.SectorPlanet;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.sector.SectorBodyStore;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks {@link BarnesHutGravitySolver} against the exact pairwise sum of
+ * {@link DirectGravitySolver}.
+ *
+ * @author Jacob Cohen
+ */
+class BarnesHutGravitySolverTest {
+
+  @Test
+  void cloudIsCloseToTheExactSum() {
+    SectorBodyStore bodies = new SectorBodyStore(1000);
+    Random random = new Random(1);
+    for (int i = 0; i < 1000; i++) {
+      add(bodies, random.nextGaussian() * 1e12, random.nextGaussian() * 1e12,
+          random.nextGaussian() * 1e12, 1e24 + random.nextDouble() * 1e26);
+    }
+
+    double error = meanRelativeError(bodies, new BarnesHutGravitySolver(0.7, 1000),
+        new DirectGravitySolver(1000));
+
+    assertTrue(error < 0.02, "mean relative error " + error);
+  }
+
+  @Test
+  void bodyDoesNotPullOnItself() {
+    // with a huge opening angle, every node the body isn't in is taken as a whole
+    SectorBodyStore bodies = new SectorBodyStore(3);
+    add(bodies, 0, 0, 0, 1e24);
+    add(bodies, 1e9, 0, 0, 1e26);
+    add(bodies, 0, 2e9, 0, 1e25);
+
+    double error = meanRelativeError(bodies, new BarnesHutGravitySolver(100, 1000),
+        new DirectGravitySolver(1000));
+
+    assertEquals(0, error, 1e-12);
+  }
+
+  @Test
+  void bodiesInTheSameDeepestLeafPullOnEachOther() {
+    // a few millimeters apart in a tree that's light years across: they share a leaf
+    SectorBodyStore bodies = new SectorBodyStore(4);
+    add(bodies, 0, 0, 0, 1e24);
+    add(bodies, 0.002, 0, 0, 2e24);
+    add(bodies, 0, 0.002, 0.001, 3e24);
+    add(bodies, 1e16, 0, 0, 1e30);
+
+    double error = meanRelativeError(bodies, new BarnesHutGravitySolver(0.7, 1e-6),
+        new DirectGravitySolver(1e-6));
+
+    assertEquals(0, error, 1e-9);
+  }
+
+  private static void add(SectorBodyStore bodies, double x, double y, double z, double mass) {
+    bodies.adopt(new SectorPlanet(new SectorLocalPos(x, y, z), 1, mass));
+  }
+
+  private static double meanRelativeError(SectorBodyStore bodies, GravitySolver approximate,
+                                          GravitySolver exact) {
+    approximate.solve(bodies);
+    double[] approximateX = bodies.column(SectorBodyStore.GRAVITY_X).clone();
+    double[] approximateY = bodies.column(SectorBodyStore.GRAVITY_Y).clone();
+    double[] approximateZ = bodies.column(SectorBodyStore.GRAVITY_Z).clone();
+    exact.solve(bodies);
+    double[] exactX = bodies.column(SectorBodyStore.GRAVITY_X);
+    double[] exactY = bodies.column(SectorBodyStore.GRAVITY_Y);
+    double[] exactZ = bodies.column(SectorBodyStore.GRAVITY_Z);
+
+    double sum = 0;
+    for (int slot = 0; slot < bodies.size(); slot++) {
+      double dx = approximateX[slot] - exactX[slot];
+      double dy = approximateY[slot] - exactY[slot];
+      double dz = approximateZ[slot] - exactZ[slot];
+      double length = Math.sqrt(exactX[slot] * exactX[slot] + exactY[slot] * exactY[slot]
+          + exactZ[slot] * exactZ[slot]);
+      sum += Math.sqrt(dx * dx + dy * dy + dz * dz) / length;
+    }
+    return sum / bodies.size();
+  }
+}
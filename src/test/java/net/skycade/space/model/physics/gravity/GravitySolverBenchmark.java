@@ -0,0 +1,103 @@
+package net.skycade.space.model.physics.gravity;
+
+import java.util.Random;
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+import net.skycade.space.model.physics.object.SectorPlanet;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.sector.SectorBodyStore;
+
+/**
+ * Times {@link BarnesHutGravitySolver} against {@link DirectGravitySolver} on a Gaussian cloud of
+ * bodies, and measures how far the Barnes-Hut pull is off from the exact one. It's not a test:
+ * run it by hand, with the body counts to try as arguments, to pick
+ * {@link PhysicsAndRenderingConstants#GRAVITY_DIRECT_MAX_BODIES} or an opening angle.
+ *
+ * @author Jacob Cohen
+ */
+public final class GravitySolverBenchmark {
+
+  /**
+   * The spread of the cloud, in meters.
+   */
+  private static final double SPREAD = 1e12;
+
+  /**
+   * How many times each solver is run before it's timed, and how many runs are timed.
+   */
+  private static final int WARMUP_RUNS = 20;
+  private static final int TIMED_RUNS = 10;
+
+  private GravitySolverBenchmark() {
+  }
+
+  public static void main(String[] args) {
+    int[] counts = args.length == 0
+        ? new int[] {250, 500, 1000, 2000, 3000, 5000, 20000}
+        : new int[args.length];
+    for (int i = 0; i < args.length; i++) {
+      counts[i] = Integer.parseInt(args[i]);
+    }
+
+    System.out.printf("%8s %12s %12s %16s%n", "bodies", "barnes-hut", "direct", "mean rel. error");
+    for (int count : counts) {
+      SectorBodyStore bodies = cloud(count, new Random(count));
+      double barnesHut = time(new BarnesHutGravitySolver(), bodies);
+      double[][] approximate = gravity(bodies);
+      double direct = time(new DirectGravitySolver(), bodies);
+      double[][] exact = gravity(bodies);
+      System.out.printf("%8d %9.2f ms %9.2f ms %15.2f%%%n", count, barnesHut, direct,
+          meanRelativeError(approximate, exact, count) * 100);
+    }
+  }
+
+  /**
+   * Make a Gaussian cloud of planets of random sizes.
+   */
+  private static SectorBodyStore cloud(int count, Random random) {
+    SectorBodyStore bodies = new SectorBodyStore(count);
+    for (int i = 0; i < count; i++) {
+      SectorLocalPos position = new SectorLocalPos(random.nextGaussian() * SPREAD,
+          random.nextGaussian() * SPREAD, random.nextGaussian() * SPREAD);
+      bodies.adopt(new SectorPlanet(position, 1e6 + random.nextDouble() * 6e7));
+    }
+    return bodies;
+  }
+
+  /**
+   * Get the average time one solve takes, in milliseconds.
+   */
+  private static double time(GravitySolver solver, SectorBodyStore bodies) {
+    for (int run = 0; run < WARMUP_RUNS; run++) {
+      solver.solve(bodies);
+    }
+    long start = System.nanoTime();
+    for (int run = 0; run < TIMED_RUNS; run++) {
+      solver.solve(bodies);
+    }
+    return (System.nanoTime() - start) / 1e6 / TIMED_RUNS;
+  }
+
+  /**
+   * Copy the gravity the last solve left in the store.
+   */
+  private static double[][] gravity(SectorBodyStore bodies) {
+    return new double[][] {
+        bodies.column(SectorBodyStore.GRAVITY_X).clone(),
+        bodies.column(SectorBodyStore.GRAVITY_Y).clone(),
+        bodies.column(SectorBodyStore.GRAVITY_Z).clone()
+    };
+  }
+
+  private static double meanRelativeError(double[][] approximate, double[][] exact, int size) {
+    double sum = 0;
+    for (int slot = 0; slot < size; slot++) {
+      double dx = approximate[0][slot] - exact[0][slot];
+      double dy = approximate[1][slot] - exact[1][slot];
+      double dz = approximate[2][slot] - exact[2][slot];
+      double length = Math.sqrt(exact[0][slot] * exact[0][slot] + exact[1][slot] * exact[1][slot]
+          + exact[2][slot] * exact[2][slot]);
+      sum += Math.sqrt(dx * dx + dy * dy + dz * dz) / length;
+    }
+    return sum / size;
+  }
+}
@@ -0,0 +1,89 @@
+package net.skycade.space.model.physics.vector;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that exact vectors that are updated over and over stay within their
+ * {@link NumericPolicy} tier, however long a session runs.
+ *
+ * @author Jacob Cohen
+ */
+class NumericPolicySoakTest {
+
+  private static final int OPERATIONS = 1_000_000;
+
+  /**
+   * How many operations go by between working out the angles of a vector.
+   */
+  private static final int ANGLE_INTERVAL = 100;
+
+  /**
+   * A physics tick, in seconds.
+   */
+  private static final BigDecimal TICK = new BigDecimal("0.05");
+
+  private final Random random = new Random(42);
+
+  @Test
+  void positionsAndVelocitiesStayWithinTheirTiers() {
+    SectorContainedPos position = new SectorContainedPos(new BigDecimal("1.5e20"),
+        new BigDecimal("-3e12"), BigDecimal.ZERO);
+    SectorContainedVec velocity = new SectorContainedVec(BigDecimal.ONE, BigDecimal.ONE,
+        BigDecimal.ONE);
+    for (int i = 0; i < OPERATIONS; i++) {
+      // drag and thrust, with operands that carry far more digits than the tiers keep
+      SectorContainedVec thrust = new SectorContainedVec(nextOperand(), nextOperand(),
+          nextOperand());
+      velocity = velocity.mul(new BigDecimal("0.999999")).add(thrust.mul(TICK));
+      position = position.add(velocity.mul(TICK));
+      if (i % 1000 == 0) {
+        // the occasional inexact operation
+        velocity = velocity.div(new BigDecimal("3"));
+        position = position.div(new BigDecimal("7")).mul(new BigDecimal("7"));
+      }
+    }
+
+    assertWithin(NumericPolicy.POSITION, position.x(), position.y(), position.z());
+    assertWithin(NumericPolicy.VELOCITY, velocity.x(), velocity.y(), velocity.z());
+  }
+
+  @Test
+  void anglesStayWithinTheirTier() {
+    SectorContainedVec velocity = new SectorContainedVec(BigDecimal.ONE, BigDecimal.ONE,
+        BigDecimal.ONE);
+    for (int i = 0; i < OPERATIONS; i++) {
+      SectorContainedVec thrust = new SectorContainedVec(nextOperand(), nextOperand(),
+          nextOperand());
+      velocity = velocity.add(thrust.mul(TICK));
+      if (i % ANGLE_INTERVAL != 0) {
+        continue;
+      }
+      // the arbitrary precision arc tangents are slow, so only every so often
+      assertWithin(NumericPolicy.ANGLE, velocity.horizontalDirection(),
+          velocity.verticalDirection());
+      // theta and phi are only worked out for vectors without an x component
+      SectorContainedVec acrossX = velocity.withX(BigDecimal.ZERO);
+      assertWithin(NumericPolicy.ANGLE, acrossX.theta(), acrossX.phi());
+    }
+  }
+
+  /**
+   * Get a random value with a full double's worth of digits.
+   */
+  private BigDecimal nextOperand() {
+    return BigDecimal.valueOf(random.nextDouble() - 0.5);
+  }
+
+  private static void assertWithin(NumericPolicy policy, BigDecimal... values) {
+    for (BigDecimal value : values) {
+      assertTrue(value.scale() <= policy.maxScale(),
+          policy + " scale " + value.scale() + " of " + value);
+      assertTrue(value.precision() <= policy.mathContext().getPrecision(),
+          policy + " precision " + value.precision() + " of " + value);
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package net.skycade.space.model.sector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+import net.skycade.space.model.physics.gravity.BarnesHutGravitySolver;
+import net.skycade.space.model.physics.gravity.CrossoverGravitySolver;
+import net.skycade.space.model.physics.gravity.GravitySolver;
+import net.skycade.space.model.physics.integrator.SectorIntegrator;
+import net.skycade.space.model.physics.object.SectorPlanet;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.physics.vector.SectorLocalVec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that whole sector steps don't allocate: custom physics, integration, gravity, sleeping
+ * and the spatial index included.
+ *
+ * @author Jacob Cohen
+ */
+class SectorAllocationTest {
+
+  private static final int BODIES = 300;
+
+  private static final int TICKS = 1000;
+
+  private static final int ROUNDS = 3;
+
+  private final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private Sector sector;
+
+  private long nowMillis;
+
+  @BeforeEach
+  void setUp() {
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    sector = new Sector(SectorPosition.EMPTY_SPACE, new ArrayList<>(), new BigDecimal("1e15"));
+    for (int i = 0; i < BODIES; i++) {
+      SectorPlanet planet =
+          new SectorPlanet(new SectorLocalPos(i * 1e7, (i % 7) * 1e6, (i % 3) * 1e6), 1000, 1e20);
+      // a few bodies at rest, which gravity keeps waking up, and a mix of integrators
+      if (i % 10 != 0) {
+        planet.setVelocity(new SectorLocalVec(1, 2, 3));
+      }
+      if (i % 2 == 0) {
+        planet.setIntegrator(SectorIntegrator.VELOCITY_VERLET);
+      }
+      sector.addContainedObject(planet);
+    }
+  }
+
+  @Test
+  void steppingWithDirectGravityDoesNotAllocate() {
+    assertStepsDoNotAllocate(new CrossoverGravitySolver());
+  }
+
+  @Test
+  void steppingWithBarnesHutGravityDoesNotAllocate() {
+    assertStepsDoNotAllocate(new BarnesHutGravitySolver());
+  }
+
+  private void assertStepsDoNotAllocate(GravitySolver gravitySolver) {
+    sector.setGravitySolver(gravitySolver);
+    // start the clock, then let the JIT settle before measuring
+    sector.tickPhysics(nowMillis);
+    tick(TICKS);
+
+    long overhead = allocatedBytes() - allocatedBytes();
+    long allocated = 0;
+    // the JIT can still recompile (and rematerialize a few objects it had optimized away) while
+    // the tree's shape changes, so give it a few rounds to settle
+    for (int round = 0; round < ROUNDS; round++) {
+      long before = allocatedBytes();
+      tick(TICKS);
+      allocated = allocatedBytes() - before - overhead;
+      if (allocated == 0) {
+        break;
+      }
+    }
+
+    assertEquals(0, allocated, "bytes allocated over " + TICKS + " steps");
+  }
+
+  private void tick(int ticks) {
+    for (int tick = 0; tick < ticks; tick++) {
+      nowMillis += PhysicsAndRenderingConstants.PHYSICS_DELAY_MILLIS;
+      sector.tickPhysics(nowMillis);
+    }
+  }
+
+  private long allocatedBytes() {
+    return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
@@ -0,0 +1,93 @@
+package net.skycade.space.model.sector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import net.skycade.space.model.physics.object.SectorPlanet;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.physics.vector.SectorLocalVec;
+import net.skycade.space.model.sector.contained.SectorContainedObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that stepping bodies doesn't allocate: their state is updated in place.
+ *
+ * @author Jacob Cohen
+ */
+class SectorBodyStoreAllocationTest {
+
+  private static final int BODIES = 1000;
+
+  private static final int TICKS = 1000;
+
+  private final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private SectorBodyStore store;
+
+  private final List<SectorContainedObject> objects = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    store = new SectorBodyStore(BODIES);
+    for (int i = 0; i < BODIES; i++) {
+      SectorPlanet planet = new SectorPlanet(new SectorLocalPos(i * 1e7, 0, 0), 1000);
+      planet.setVelocity(new SectorLocalVec(1, 2, 3));
+      planet.setAcceleration(new SectorLocalVec(0.1, 0, -0.1));
+      planet.setAngularVelocity(new SectorLocalVec(0, 0.01, 0));
+      store.adopt(planet);
+      objects.add(planet);
+    }
+  }
+
+  @Test
+  void integratingTheStoreDoesNotAllocate() {
+    // let the JIT settle before measuring
+    tickStore(TICKS);
+
+    long overhead = allocatedBytes() - allocatedBytes();
+    long before = allocatedBytes();
+    tickStore(TICKS);
+    long allocated = allocatedBytes() - before - overhead;
+
+    assertEquals(0, allocated, "bytes allocated over " + TICKS + " ticks");
+  }
+
+  @Test
+  void tickingObjectsDoesNotAllocate() {
+    tickObjects(TICKS);
+
+    long overhead = allocatedBytes() - allocatedBytes();
+    long before = allocatedBytes();
+    tickObjects(TICKS);
+    long allocated = allocatedBytes() - before - overhead;
+
+    assertEquals(0, allocated, "bytes allocated over " + TICKS + " ticks");
+  }
+
+  private void tickStore(int ticks) {
+    for (int tick = 0; tick < ticks; tick++) {
+      store.snapshot(0, store.activeCount());
+      store.integrate(0, store.activeCount(), 1);
+    }
+  }
+
+  private void tickObjects(int ticks) {
+    for (int tick = 0; tick < ticks; tick++) {
+      for (int i = 0; i < objects.size(); i++) {
+        objects.get(i).tickPhysics();
+      }
+    }
+  }
+
+  private long allocatedBytes() {
+    return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
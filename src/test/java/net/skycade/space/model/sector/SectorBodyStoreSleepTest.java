@@ -0,0 +1,217 @@
+package net.skycade.space.model.sector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+import net.skycade.space.model.physics.object.SectorPlanet;
+import net.skycade.space.model.physics.object.SectorStar;
+import net.skycade.space.model.physics.orbit.KeplerOrbit;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.physics.vector.SectorLocalVec;
+import net.skycade.space.model.sector.contained.SectorContainedObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that bodies at rest are put to sleep, that anything disturbing them wakes them up again,
+ * and that the slot swaps this takes never mix bodies up.
+ *
+ * @author Jacob Cohen
+ */
+class SectorBodyStoreSleepTest {
+
+  private static final int BODIES = 100;
+
+  private static final int QUIET_STEPS = PhysicsAndRenderingConstants.SLEEP_AFTER_QUIET_STEPS;
+
+  private SectorBodyStore store;
+
+  private final List<SectorContainedObject> objects = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    store = new SectorBodyStore(BODIES);
+    for (int i = 0; i < BODIES; i++) {
+      SectorPlanet planet = new SectorPlanet(new SectorLocalPos(i, 0, 0), 1, i + 1);
+      store.adopt(planet);
+      objects.add(planet);
+    }
+  }
+
+  @Test
+  void bodiesAtRestFallAsleepAfterEnoughQuietSteps() {
+    // every other body keeps moving
+    for (int i = 0; i < BODIES; i += 2) {
+      objects.get(i).setVelocity(new SectorLocalVec(1, 0, 0));
+    }
+
+    step(QUIET_STEPS - 1);
+    assertEquals(BODIES, store.activeCount(), "awake one step before falling asleep");
+    for (SectorContainedObject object : objects) {
+      assertFalse(isAsleep(object));
+    }
+
+    step(1);
+    assertEquals(BODIES / 2, store.activeCount());
+    for (int i = 0; i < BODIES; i++) {
+      assertEquals(i % 2 == 1, isAsleep(objects.get(i)), "body " + i + " asleep");
+    }
+    assertSlotsConsistent();
+  }
+
+  @Test
+  void settingTheMotionWakesABodyUp() {
+    step(QUIET_STEPS);
+    assertEquals(0, store.activeCount());
+
+    SectorContainedObject object = objects.get(42);
+    object.setVelocity(new SectorLocalVec(0, 1, 0));
+
+    assertEquals(1, store.activeCount());
+    assertFalse(isAsleep(object));
+    assertTrue(store.slotOf(object.getBodyHandle()) < store.activeCount(), "in the awake range");
+    assertSlotsConsistent();
+
+    // and it doesn't fall asleep again while it moves
+    step(QUIET_STEPS * 2);
+    assertFalse(isAsleep(object));
+  }
+
+  @Test
+  void gravityAboveTheThresholdWakesABodyUp() {
+    step(QUIET_STEPS);
+    assertEquals(0, store.activeCount());
+
+    SectorContainedObject pulled = objects.get(7);
+    SectorContainedObject barelyPulled = objects.get(8);
+    double threshold = PhysicsAndRenderingConstants.SLEEP_GRAVITY_THRESHOLD;
+    store.set(SectorBodyStore.GRAVITY_Y, pulled.getBodyHandle(), threshold * 2);
+    store.set(SectorBodyStore.GRAVITY_Y, barelyPulled.getBodyHandle(), threshold / 2);
+    store.wakeDisturbed();
+
+    assertEquals(1, store.activeCount());
+    assertFalse(isAsleep(pulled));
+    assertTrue(isAsleep(barelyPulled));
+    assertSlotsConsistent();
+  }
+
+  @Test
+  void handlesSurviveRandomSleepingAndWaking() {
+    Random random = new Random(42);
+    for (int round = 0; round < 200; round++) {
+      for (int i = 0; i < 10; i++) {
+        SectorContainedObject object = objects.get(random.nextInt(BODIES));
+        switch (random.nextInt(3)) {
+          case 0 -> object.setVelocity(new SectorLocalVec(random.nextDouble(), 0, 0));
+          case 1 -> object.setVelocity(SectorLocalVec.ZERO);
+          default -> store.set(SectorBodyStore.GRAVITY_Z, object.getBodyHandle(),
+              random.nextBoolean() ? 1 : 0);
+        }
+      }
+      store.wakeDisturbed();
+      step(random.nextInt(QUIET_STEPS + 5));
+      assertSlotsConsistent();
+    }
+  }
+
+  @Test
+  void sectorReportsItsAwakeBodies() {
+    Sector sector = new Sector(SectorPosition.EMPTY_SPACE, new ArrayList<>(),
+        new BigDecimal("1e12"));
+    // nothing pulls, so only the bodies that were set moving stay awake
+    sector.setGravitySolver(null);
+    List<SectorPlanet> planets = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      SectorPlanet planet = new SectorPlanet(new SectorLocalPos(i * 1e6, 0, 0), 1);
+      if (i < 3) {
+        planet.setVelocity(new SectorLocalVec(0, 0, 1));
+      }
+      sector.addContainedObject(planet);
+      planets.add(planet);
+    }
+    assertEquals(10, sector.getActiveBodyCount());
+
+    long nowMillis = 0;
+    sector.tickPhysics(nowMillis);
+    for (int step = 0; step < QUIET_STEPS; step++) {
+      nowMillis += PhysicsAndRenderingConstants.PHYSICS_DELAY_MILLIS;
+      sector.tickPhysics(nowMillis);
+    }
+    assertEquals(3, sector.getActiveBodyCount());
+
+    planets.get(9).setAcceleration(new SectorLocalVec(1, 0, 0));
+    assertEquals(4, sector.getActiveBodyCount());
+  }
+
+  @Test
+  void bodiesOnRailsSleepButFollowTheirPrimary() {
+    Sector sector = new Sector(SectorPosition.EMPTY_SPACE, new ArrayList<>(),
+        new BigDecimal("1e12"));
+    sector.setGravitySolver(null);
+    SectorStar star = new SectorStar(SectorLocalPos.ZERO, 1e8, 1e30);
+    star.setVelocity(new SectorLocalVec(1e6, 0, 0));
+    SectorPlanet planet = new SectorPlanet(SectorLocalPos.ZERO, 1);
+    planet.setOrbit(KeplerOrbit.circular(1e7, 1e30, 0, 0), star);
+    sector.addContainedObject(star);
+    sector.addContainedObject(planet);
+
+    long nowMillis = 0;
+    sector.tickPhysics(nowMillis);
+    for (int step = 0; step < 100; step++) {
+      nowMillis += PhysicsAndRenderingConstants.PHYSICS_DELAY_MILLIS;
+      sector.tickPhysics(nowMillis);
+
+      // asleep from its first step on, without being settled like a body at rest
+      assertEquals(1, sector.getActiveBodyCount());
+      assertTrue(sector.getBodies().hasFlag(planet.getBodyHandle(), SectorBodyStore.FLAG_ASLEEP));
+      assertTrue(planet.getVelocity().x() != 0 || planet.getVelocity().z() != 0);
+
+      // and still indexed around wherever the star has got to
+      SectorLocalPos position = planet.getPosition();
+      List<SectorContainedObject> found = new ArrayList<>();
+      sector.getSpatialIndex().queryRadius(position.x(), position.y(), position.z(), 1, found);
+      assertTrue(found.contains(planet), "planet indexed after step " + step);
+    }
+
+    planet.clearOrbit();
+    assertEquals(2, sector.getActiveBodyCount());
+    assertEquals(planet.getPosition(), planet.getInterpolatedPosition(0));
+  }
+
+  /**
+   * Run the sleep part of a physics step, with every awake body still integrated so that moving
+   * bodies keep moving.
+   */
+  private void step(int steps) {
+    for (int step = 0; step < steps; step++) {
+      store.integrate(0, store.activeCount(), 1);
+      store.sleepQuietBodies();
+    }
+  }
+
+  private boolean isAsleep(SectorContainedObject object) {
+    return store.hasFlag(object.getBodyHandle(), SectorBodyStore.FLAG_ASLEEP);
+  }
+
+  /**
+   * Check that every handle still leads to its own body and state, and that the awake bodies are
+   * exactly the ones in front of {@link SectorBodyStore#activeCount()}.
+   */
+  private void assertSlotsConsistent() {
+    assertEquals(BODIES, store.size());
+    for (int i = 0; i < BODIES; i++) {
+      SectorContainedObject object = objects.get(i);
+      int slot = store.slotOf(object.getBodyHandle());
+      assertSame(object, store.objectAt(slot), "object in the slot of body " + i);
+      assertEquals(i + 1, store.column(SectorBodyStore.MASS)[slot], "mass of body " + i);
+      assertEquals(slot >= store.activeCount(), isAsleep(object), "body " + i + " asleep");
+    }
+  }
+}
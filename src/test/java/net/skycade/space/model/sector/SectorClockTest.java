@@ -0,0 +1,77 @@
+package net.skycade.space.model.sector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the fixed-timestep accounting of the {@link SectorClock}.
+ *
+ * @author Jacob Cohen
+ */
+class SectorClockTest {
+
+  private static final long STEP_MILLIS = 50;
+
+  private static final int MAX_SUB_STEPS = 5;
+
+  private final SectorClock clock = new SectorClock(STEP_MILLIS, MAX_SUB_STEPS);
+
+  @Test
+  void firstAdvanceOnlyStartsTheClock() {
+    assertEquals(0, clock.advance(1_000_000));
+    assertEquals(0, clock.getSteps());
+
+    assertEquals(1, clock.advance(1_000_000 + STEP_MILLIS));
+    assertEquals(1, clock.getSteps());
+  }
+
+  @Test
+  void partialStepsCarryOver() {
+    clock.advance(0);
+    assertEquals(0, clock.advance(30));
+    assertEquals(1, clock.advance(60));
+    // 10 ms left over from before
+    assertEquals(0, clock.advance(99));
+    assertEquals(1, clock.advance(100));
+    assertEquals(2, clock.getSteps());
+  }
+
+  @Test
+  void catchUpIsCappedButKeepsTheRemainder() {
+    clock.advance(0);
+    // 20 steps and 20 ms behind
+    assertEquals(MAX_SUB_STEPS, clock.advance(20 * STEP_MILLIS + 20));
+    assertEquals(MAX_SUB_STEPS, clock.getSteps());
+    // the rest of the backlog is dropped, but not the part of a step that was already under way
+    assertEquals(0.4, clock.getInterpolationAlpha(20 * STEP_MILLIS + 20), 1e-9);
+    assertEquals(1, clock.advance(20 * STEP_MILLIS + 20 + 30));
+  }
+
+  @Test
+  void clockGoingBackwardsRunsNothing() {
+    clock.advance(1000);
+    assertEquals(0, clock.advance(500));
+    assertEquals(1, clock.advance(500 + STEP_MILLIS));
+  }
+
+  @Test
+  void interpolationAlphaStaysBetweenZeroAndOne() {
+    assertEquals(1, clock.getInterpolationAlpha(0), "before the clock has started");
+
+    Random random = new Random(42);
+    long nowMillis = 0;
+    clock.advance(nowMillis);
+    for (int tick = 0; tick < 10_000; tick++) {
+      // scheduler jitter, stalls, and the odd jump back
+      nowMillis += random.nextInt(10) == 0 ? random.nextInt(2000) - 200 : random.nextInt(80);
+      clock.advance(nowMillis);
+      for (int frame = 0; frame < 3; frame++) {
+        double alpha = clock.getInterpolationAlpha(nowMillis + random.nextInt(200) - 50);
+        assertTrue(alpha >= 0 && alpha <= 1, "alpha " + alpha);
+      }
+    }
+  }
+}
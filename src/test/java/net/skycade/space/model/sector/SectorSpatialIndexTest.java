@@ -0,0 +1,248 @@
+package net.skycade.space.model.sector;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import net.skycade.space.model.physics.object.SectorPlanet;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.physics.vector.SectorLocalVec;
+import net.skycade.space.model.sector.contained.SectorContainedObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the {@link SectorSpatialIndex} queries against a brute-force scan over every object.
+ *
+ * @author Jacob Cohen
+ */
+class SectorSpatialIndexTest {
+
+  private static final int OBJECTS = 2000;
+
+  private static final int QUERIES = 200;
+
+  /**
+   * How far out the objects are spread, well inside the root node.
+   */
+  private static final double SPREAD = 1e12;
+
+  /**
+   * Further out than the root node reaches.
+   */
+  private static final double OUTSIDE_ROOT = 1e16;
+
+  private final Random random = new Random(42);
+
+  private SectorSpatialIndex index;
+
+  private List<SectorContainedObject> objects;
+
+  @BeforeEach
+  void setUp() {
+    index = new SectorSpatialIndex();
+    objects = new ArrayList<>();
+    for (int i = 0; i < OBJECTS; i++) {
+      SectorContainedObject object = randomObject();
+      objects.add(object);
+      index.add(object);
+    }
+  }
+
+  @Test
+  void queriesMatchBruteForce() {
+    assertEquals(OBJECTS, index.size());
+    assertQueriesMatch(index, objects);
+  }
+
+  @Test
+  void queriesMatchAfterObjectsMoveAcrossNodes() {
+    for (int round = 0; round < 5; round++) {
+      for (SectorContainedObject object : objects) {
+        // from tiny nudges to jumps across the whole sector (and out of the root)
+        double step = SPREAD * Math.pow(10, -random.nextInt(10));
+        SectorLocalPos position = object.getPosition();
+        object.setPosition(random.nextInt(50) == 0 ? randomOutsideRoot()
+            : new SectorLocalPos(position.x() + randomCoordinate(step),
+            position.y() + randomCoordinate(step), position.z() + randomCoordinate(step)));
+        index.update(object);
+      }
+      assertQueriesMatch(index, objects);
+    }
+  }
+
+  @Test
+  void queriesMatchAfterObjectsAreRemovedAndAdded() {
+    for (int round = 0; round < 5; round++) {
+      Collections.shuffle(objects, random);
+      List<SectorContainedObject> removed = new ArrayList<>(objects.subList(0, OBJECTS / 2));
+      for (SectorContainedObject object : removed) {
+        index.remove(object);
+      }
+      objects.removeAll(removed);
+      assertEquals(objects.size(), index.size());
+      assertQueriesMatch(index, objects);
+
+      // half of them come back, somewhere else, and half are new, reusing the freed entries
+      for (int i = 0; i < removed.size(); i++) {
+        SectorContainedObject object = i % 2 == 0 ? removed.get(i) : randomObject();
+        object.setPosition(randomPosition());
+        objects.add(object);
+        index.add(object);
+      }
+      assertEquals(OBJECTS, index.size());
+      assertQueriesMatch(index, objects);
+    }
+  }
+
+  @Test
+  void queriesMatchAfterTheLocalOriginShifts() {
+    Sector sector = new Sector(SectorPosition.EMPTY_SPACE, new ArrayList<>(),
+        new BigDecimal("1e18"));
+    for (SectorContainedObject object : objects) {
+      sector.addContainedObject(object);
+    }
+    sector.shiftLocalOrigin(new SectorLocalVec(3e11, -2e11, 5e10));
+
+    assertEquals(OBJECTS, sector.getSpatialIndex().size());
+    assertQueriesMatch(sector.getSpatialIndex(), objects);
+  }
+
+  private void assertQueriesMatch(SectorSpatialIndex index, List<SectorContainedObject> objects) {
+    List<SectorContainedObject> found = new ArrayList<>();
+    for (int query = 0; query < QUERIES; query++) {
+      double x = randomCoordinate(SPREAD);
+      double y = randomCoordinate(SPREAD);
+      double z = randomCoordinate(SPREAD);
+
+      double radius = SPREAD * random.nextDouble() * 0.3;
+      found.clear();
+      index.queryRadius(x, y, z, radius, found);
+      assertSameObjects(bruteForceRadius(objects, x, y, z, radius), found, "radius query");
+
+      double[] direction = randomDirection();
+      double halfAngle = random.nextDouble() * Math.PI / 3;
+      double maxDistance = SPREAD * random.nextDouble() * 2;
+      found.clear();
+      index.queryCone(x, y, z, direction[0], direction[1], direction[2], halfAngle, maxDistance,
+          found);
+      assertSameObjects(bruteForceCone(objects, x, y, z, direction, halfAngle, maxDistance),
+          found, "cone query");
+
+      int count = 1 + random.nextInt(20);
+      found.clear();
+      index.queryNearest(x, y, z, count, found);
+      assertArrayEquals(bruteForceNearestDistances(objects, x, y, z, count),
+          distances(found, x, y, z), "nearest query");
+    }
+  }
+
+  private static List<SectorContainedObject> bruteForceRadius(List<SectorContainedObject> objects,
+                                                              double x, double y, double z,
+                                                              double radius) {
+    List<SectorContainedObject> out = new ArrayList<>();
+    for (SectorContainedObject object : objects) {
+      if (distance(object, x, y, z) <= radius) {
+        out.add(object);
+      }
+    }
+    return out;
+  }
+
+  private static List<SectorContainedObject> bruteForceCone(List<SectorContainedObject> objects,
+                                                            double x, double y, double z,
+                                                            double[] direction, double halfAngle,
+                                                            double maxDistance) {
+    double cos = Math.cos(halfAngle);
+    double sin = Math.sin(halfAngle);
+    List<SectorContainedObject> out = new ArrayList<>();
+    for (SectorContainedObject object : objects) {
+      SectorLocalPos position = object.getPosition();
+      double offsetX = position.x() - x;
+      double offsetY = position.y() - y;
+      double offsetZ = position.z() - z;
+      double radius = object.getBoundingRadius();
+      double along = offsetX * direction[0] + offsetY * direction[1] + offsetZ * direction[2];
+      double distanceSquared = offsetX * offsetX + offsetY * offsetY + offsetZ * offsetZ;
+      double across = Math.sqrt(Math.max(0, distanceSquared - along * along));
+      if (along <= maxDistance + radius && (distanceSquared <= radius * radius
+          || across * cos - along * sin <= radius)) {
+        out.add(object);
+      }
+    }
+    return out;
+  }
+
+  private static double[] bruteForceNearestDistances(List<SectorContainedObject> objects,
+                                                     double x, double y, double z, int count) {
+    List<SectorContainedObject> sorted = new ArrayList<>(objects);
+    sorted.sort(Comparator.comparingDouble(object -> distance(object, x, y, z)));
+    return distances(sorted.subList(0, Math.min(count, sorted.size())), x, y, z);
+  }
+
+  private static double[] distances(List<SectorContainedObject> objects, double x, double y,
+                                    double z) {
+    double[] distances = new double[objects.size()];
+    for (int i = 0; i < distances.length; i++) {
+      distances[i] = distance(objects.get(i), x, y, z);
+    }
+    return distances;
+  }
+
+  /**
+   * The distance from a point to an object's bounding sphere, like the index measures it.
+   */
+  private static double distance(SectorContainedObject object, double x, double y, double z) {
+    SectorLocalPos position = object.getPosition();
+    double dx = position.x() - x;
+    double dy = position.y() - y;
+    double dz = position.z() - z;
+    return Math.max(0, Math.sqrt(dx * dx + dy * dy + dz * dz) - object.getBoundingRadius());
+  }
+
+  private static void assertSameObjects(List<SectorContainedObject> expected,
+                                        List<SectorContainedObject> actual, String query) {
+    Set<SectorContainedObject> expectedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+    expectedSet.addAll(expected);
+    Set<SectorContainedObject> actualSet = Collections.newSetFromMap(new IdentityHashMap<>());
+    actualSet.addAll(actual);
+    assertEquals(actual.size(), actualSet.size(), query + " found an object twice");
+    assertEquals(expectedSet, actualSet, query);
+  }
+
+  private SectorContainedObject randomObject() {
+    // sizes from asteroids to giant stars
+    double radius = Math.pow(10, 3 + random.nextDouble() * 8);
+    return new SectorPlanet(random.nextInt(50) == 0 ? randomOutsideRoot() : randomPosition(),
+        radius);
+  }
+
+  private SectorLocalPos randomPosition() {
+    return new SectorLocalPos(randomCoordinate(SPREAD), randomCoordinate(SPREAD),
+        randomCoordinate(SPREAD));
+  }
+
+  private SectorLocalPos randomOutsideRoot() {
+    return new SectorLocalPos(randomCoordinate(SPREAD) + OUTSIDE_ROOT, randomCoordinate(SPREAD),
+        randomCoordinate(SPREAD));
+  }
+
+  private double randomCoordinate(double spread) {
+    return (random.nextDouble() * 2 - 1) * spread;
+  }
+
+  private double[] randomDirection() {
+    double x = random.nextGaussian();
+    double y = random.nextGaussian();
+    double z = random.nextGaussian();
+    double length = Math.sqrt(x * x + y * y + z * z);
+    return new double[] {x / length, y / length, z / length};
+  }
+}
@@ -0,0 +1,84 @@
+package net.skycade.space.model.sector.contained;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import net.skycade.space.model.physics.integrator.SectorIntegrator;
+import net.skycade.space.model.physics.object.SectorPlanet;
+import net.skycade.space.model.physics.vector.Quaternion;
+import net.skycade.space.model.physics.vector.SectorLocalPos;
+import net.skycade.space.model.physics.vector.SectorLocalVec;
+import net.skycade.space.model.sector.Sector;
+import net.skycade.space.model.sector.SectorPosition;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that objects outside a sector keep their state without a store of their own, and carry
+ * it in and out of sectors.
+ *
+ * @author Jacob Cohen
+ */
+class SectorContainedObjectTest {
+
+  private static final SectorLocalVec VELOCITY = new SectorLocalVec(1, 2, 3);
+
+  private static final Quaternion ORIENTATION = Quaternion.fromEuler(0.1, 0.2, 0.3);
+
+  @Test
+  void detachedObjectsHaveNoStore() {
+    SectorPlanet planet = newPlanet();
+
+    assertNull(planet.getBodyStore());
+    assertEquals(-1, planet.getBodyHandle());
+    assertState(planet);
+  }
+
+  @Test
+  void stateSurvivesMovingInAndOutOfASector() {
+    SectorPlanet planet = newPlanet();
+    Sector sector =
+        new Sector(SectorPosition.EMPTY_SPACE, new ArrayList<>(), new BigDecimal("1e15"));
+
+    sector.addContainedObject(planet);
+    assertSame(sector.getBodies(), planet.getBodyStore());
+    assertState(planet);
+
+    sector.removeContainedObject(planet);
+    assertNull(planet.getBodyStore());
+    assertEquals(0, sector.getBodies().size());
+    assertState(planet);
+  }
+
+  @Test
+  void tickingADetachedObjectGivesItAStore() {
+    SectorPlanet planet = newPlanet();
+
+    planet.tickPhysics();
+
+    assertNotNull(planet.getBodyStore());
+    assertEquals(1, planet.getBodyStore().size());
+    assertEquals(VELOCITY.x(), planet.getPosition().x() - 10, 1e-9);
+    assertEquals(5e20, planet.getMass());
+  }
+
+  private static SectorPlanet newPlanet() {
+    SectorPlanet planet = new SectorPlanet(new SectorLocalPos(10, 20, 30), 1000, 5e20);
+    planet.setVelocity(VELOCITY);
+    planet.setOrientation(ORIENTATION);
+    planet.setIntegrator(SectorIntegrator.VELOCITY_VERLET);
+    return planet;
+  }
+
+  private static void assertState(SectorPlanet planet) {
+    assertEquals(new SectorLocalPos(10, 20, 30), planet.getPosition());
+    assertEquals(new SectorLocalPos(10, 20, 30), planet.getInterpolatedPosition(0.5));
+    assertEquals(VELOCITY, planet.getVelocity());
+    assertEquals(ORIENTATION.normalize(), planet.getOrientation());
+    assertEquals(5e20, planet.getMass());
+    assertSame(SectorIntegrator.VELOCITY_VERLET, planet.getIntegrator());
+  }
+}
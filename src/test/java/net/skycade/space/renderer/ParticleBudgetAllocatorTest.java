@@ -0,0 +1,151 @@
+package net.skycade.space.renderer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the invariants of the {@link ParticleBudgetAllocator} on random frames.
+ *
+ * @author Jacob Cohen
+ */
+class ParticleBudgetAllocatorTest {
+
+  private static final int FRAMES = 2000;
+
+  private final Random random = new Random(42);
+
+  private final ParticleBudgetAllocator allocator = new ParticleBudgetAllocator();
+
+  @Test
+  void allocationStaysWithinBudgetAndDemand() {
+    for (int frame = 0; frame < FRAMES; frame++) {
+      Frame objects = randomFrame();
+      int[] allocation = allocate(objects);
+
+      long total = 0;
+      int demanding = 0;
+      for (int i = 0; i < objects.count; i++) {
+        assertTrue(allocation[i] >= 0, "negative allocation");
+        assertTrue(allocation[i] <= objects.demand[i], "more than the demand");
+        total += allocation[i];
+        if (objects.demand[i] > 0) {
+          demanding++;
+        }
+      }
+      assertTrue(total <= objects.budget, "over the budget");
+
+      // while the budget lasts, every object that asks for anything gets something
+      int served = 0;
+      for (int i = 0; i < objects.count; i++) {
+        if (objects.demand[i] > 0 && allocation[i] > 0) {
+          served++;
+        }
+      }
+      assertEquals(Math.min(demanding, objects.budget), served, "objects given a particle");
+    }
+  }
+
+  @Test
+  void budgetIsUsedUpIfEnoughIsAskedFor() {
+    for (int frame = 0; frame < FRAMES; frame++) {
+      Frame objects = randomFrame();
+      int[] allocation = allocate(objects);
+
+      long totalDemand = 0;
+      long total = 0;
+      for (int i = 0; i < objects.count; i++) {
+        totalDemand += objects.demand[i];
+        total += allocation[i];
+      }
+      // the shares are rounded down, so a few particles per object can be left over
+      assertTrue(total >= Math.min(totalDemand, objects.budget) - objects.count,
+          "budget left unused");
+    }
+  }
+
+  @Test
+  void allocationDoesNotDependOnTheOrder() {
+    for (int frame = 0; frame < FRAMES; frame++) {
+      Frame objects = randomFrame();
+      Map<String, List<Integer>> expected = byObject(objects, allocate(objects));
+
+      List<Integer> permutation = new ArrayList<>();
+      for (int i = 0; i < objects.count; i++) {
+        permutation.add(i);
+      }
+      Collections.shuffle(permutation, random);
+      Frame shuffled = new Frame(objects.count, objects.budget);
+      for (int i = 0; i < objects.count; i++) {
+        shuffled.importance[i] = objects.importance[permutation.get(i)];
+        shuffled.demand[i] = objects.demand[permutation.get(i)];
+      }
+
+      assertEquals(expected, byObject(shuffled, allocate(shuffled)));
+    }
+  }
+
+  private int[] allocate(Frame objects) {
+    int[] allocation = new int[objects.count];
+    allocator.allocate(objects.importance, objects.demand, objects.count, objects.budget,
+        allocation);
+    return allocation;
+  }
+
+  /**
+   * Group the allocations by what the objects asked for: objects that look the same can be given
+   * their particles in any order.
+   */
+  private static Map<String, List<Integer>> byObject(Frame objects, int[] allocation) {
+    Map<String, List<Integer>> grouped = new HashMap<>();
+    for (int i = 0; i < objects.count; i++) {
+      grouped.computeIfAbsent(objects.importance[i] + "/" + objects.demand[i],
+          key -> new ArrayList<>()).add(allocation[i]);
+    }
+    grouped.values().forEach(Collections::sort);
+    return grouped;
+  }
+
+  private Frame randomFrame() {
+    Frame objects = new Frame(1 + random.nextInt(300), random.nextInt(5000));
+    for (int i = 0; i < objects.count; i++) {
+      if (i > 0 && random.nextInt(5) == 0) {
+        // the same as another object, as distant dots are
+        int other = random.nextInt(i);
+        objects.importance[i] = objects.importance[other];
+        objects.demand[i] = objects.demand[other];
+        continue;
+      }
+      objects.importance[i] = random.nextInt(4) == 0 ? SectorRenderer.MIN_IMPORTANCE
+          : Math.pow(10, random.nextDouble() * 4 - 2);
+      objects.demand[i] = random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(
+          random.nextBoolean() ? 3 : 2000);
+    }
+    return objects;
+  }
+
+  /**
+   * The objects of a frame.
+   */
+  private static final class Frame {
+
+    private final int count;
+    private final int budget;
+    private final double[] importance;
+    private final int[] demand;
+
+    private Frame(int count, int budget) {
+      this.count = count;
+      this.budget = budget;
+      this.importance = new double[count];
+      this.demand = new int[count];
+    }
+  }
+}
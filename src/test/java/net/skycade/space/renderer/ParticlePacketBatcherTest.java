@@ -0,0 +1,106 @@
+package net.skycade.space.renderer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.minestom.server.network.packet.server.SendablePacket;
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the {@link ParticlePacketBatcher} merges particles on the same spot, reuses the
+ * packets of spots that didn't change, and thins frames out evenly.
+ *
+ * @author Jacob Cohen
+ */
+class ParticlePacketBatcherTest {
+
+  /**
+   * A quarter of a spot, so particles this far apart land on the same one.
+   */
+  private static final double NUDGE =
+      0.25 / PhysicsAndRenderingConstants.PARTICLE_MERGE_RESOLUTION;
+
+  private ParticlePacketBatcher batcher;
+
+  @BeforeEach
+  void setUp() {
+    batcher = new ParticlePacketBatcher(new ViewerBandwidthGovernor());
+  }
+
+  @Test
+  void coincidentParticlesAreMergedWithTheirCountsSummed() {
+    batcher.begin(8);
+    batcher.add(10, 20, -30, 1);
+    batcher.add(5, 5, 5, 4);
+    batcher.add(10 + NUDGE, 20 - NUDGE, -30, 2);
+    batcher.add(10, 20, -30 + NUDGE, 3);
+    batcher.flush(null);
+
+    assertEquals(2, batcher.lastFrame().size());
+    // in the order the spots were first drawn in
+    assertEquals(6, batcher.lastFrameCount(0));
+    assertEquals(4, batcher.lastFrameCount(1));
+  }
+
+  @Test
+  void unchangedSpotsReuseTheirPackets() {
+    List<SendablePacket> first = drawFrame(8, 1);
+    List<SendablePacket> second = drawFrame(8, 1);
+    assertEquals(3, first.size());
+    for (int i = 0; i < first.size(); i++) {
+      assertSame(first.get(i), second.get(i), "packet " + i);
+    }
+
+    // a different count on the same spot is a different packet
+    List<SendablePacket> third = drawFrame(8, 2);
+    for (int i = 0; i < first.size(); i++) {
+      assertNotSame(second.get(i), third.get(i), "packet " + i);
+    }
+  }
+
+  @Test
+  void packetsAreReusedAcrossTableResizes() {
+    List<SendablePacket> small = drawFrame(4, 1);
+    // a frame with far more room has a bigger table, which still finds last frame's spots
+    List<SendablePacket> large = drawFrame(10_000, 1);
+    List<SendablePacket> smallAgain = drawFrame(4, 1);
+    for (int i = 0; i < small.size(); i++) {
+      assertSame(small.get(i), large.get(i), "packet " + i);
+      assertSame(large.get(i), smallAgain.get(i), "packet " + i);
+    }
+  }
+
+  @Test
+  void thinnedFramesAreSpreadEvenly() {
+    batcher.begin(100);
+    for (int i = 0; i < 100; i++) {
+      batcher.add(i, 0, 0, 1);
+    }
+    batcher.flush(null);
+    List<SendablePacket> frame = batcher.lastFrame();
+
+    List<SendablePacket> thinned = new ArrayList<>();
+    ParticlePacketBatcher.thin(frame, 25, thinned);
+    assertEquals(25, thinned.size());
+    for (int i = 0; i < thinned.size(); i++) {
+      assertSame(frame.get(i * 4), thinned.get(i), "packet " + i);
+    }
+  }
+
+  /**
+   * Draw the same three spots, and get the frame's packets.
+   */
+  private List<SendablePacket> drawFrame(int capacity, int count) {
+    batcher.begin(capacity);
+    batcher.add(1, 2, 3, count);
+    batcher.add(-1, -2, -3, count);
+    batcher.add(100.5, 0, 0.25, count);
+    batcher.flush(null);
+    return new ArrayList<>(batcher.lastFrame());
+  }
+}
@@ -0,0 +1,54 @@
+package net.skycade.space.renderer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Random;
+import net.skycade.space.space.SpaceShipSpaceConstants;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the vectorized {@link ParticleProjectionKernel} gives exactly the same results as
+ * the scalar one. Only runs when the vectorized kernel is built and its module is there (see
+ * {@link ParticleProjectionKernel#vectorized()}).
+ *
+ * @author Jacob Cohen
+ */
+class ParticleProjectionKernelTest {
+
+  /**
+   * Not a multiple of any vector length, so the scalar tail is run too.
+   */
+  private static final int PARTICLES = 10_007;
+
+  @Test
+  void vectorizedKernelMatchesScalarKernel() {
+    ParticleProjectionKernel vectorized = ParticleProjectionKernel.vectorized();
+    assumeTrue(vectorized != null, "the vectorized kernel isn't available");
+
+    // particles scattered around the 'draw sphere', like the objects drawn on it
+    Random random = new Random(42);
+    double radius = SpaceShipSpaceConstants.DRAW_ON_CIRCLE_RADIUS;
+    double[] x = new double[PARTICLES];
+    double[] y = new double[PARTICLES];
+    double[] z = new double[PARTICLES];
+    for (int i = 0; i < PARTICLES; i++) {
+      x[i] = SpaceShipSpaceConstants.THEORETICAL_CENTER_OF_SHIP.x()
+          + (random.nextDouble() * 2 - 1) * radius * 1.5;
+      y[i] = SpaceShipSpaceConstants.THEORETICAL_CENTER_OF_SHIP.y()
+          + (random.nextDouble() * 2 - 1) * radius * 1.5;
+      z[i] = SpaceShipSpaceConstants.THEORETICAL_CENTER_OF_SHIP.z()
+          + (random.nextDouble() * 2 - 1) * radius * 1.5;
+    }
+    double[] scalarX = x.clone();
+    double[] scalarY = y.clone();
+    double[] scalarZ = z.clone();
+
+    vectorized.project(x, y, z, PARTICLES);
+    new ScalarParticleProjectionKernel().project(scalarX, scalarY, scalarZ, PARTICLES);
+
+    assertArrayEquals(scalarX, x);
+    assertArrayEquals(scalarY, y);
+    assertArrayEquals(scalarZ, z);
+  }
+}
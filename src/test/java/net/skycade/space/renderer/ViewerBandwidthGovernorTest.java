@@ -0,0 +1,101 @@
+package net.skycade.space.renderer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import net.skycade.space.constants.PhysicsAndRenderingConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives a viewer's budget in the {@link ViewerBandwidthGovernor} with sequences of latencies.
+ *
+ * @author Jacob Cohen
+ */
+class ViewerBandwidthGovernorTest {
+
+  private static final int MAX_PACKETS =
+      PhysicsAndRenderingConstants.MAX_PARTICLE_BYTES_PER_VIEWER_FRAME
+          / PhysicsAndRenderingConstants.ESTIMATED_PARTICLE_PACKET_BYTES;
+
+  private static final int MIN_PACKETS =
+      PhysicsAndRenderingConstants.MIN_PARTICLE_PACKETS_PER_VIEWER_FRAME;
+
+  private static final int INCREASE =
+      (int) PhysicsAndRenderingConstants.VIEWER_BUDGET_INCREASE_PACKETS;
+
+  private static final int BASELINE = 40;
+
+  /**
+   * Latencies far enough above the baseline to count as backed up.
+   */
+  private static final int BACKED_UP =
+      BASELINE + PhysicsAndRenderingConstants.VIEWER_BACKLOG_THRESHOLD_MILLIS + 100;
+
+  private ViewerBandwidthGovernor.ViewerState state;
+
+  @BeforeEach
+  void setUp() {
+    state = new ViewerBandwidthGovernor.ViewerState();
+  }
+
+  @Test
+  void latencyIsIgnoredUntilTheFirstKeepAlive() {
+    for (int frame = 0; frame < 100; frame++) {
+      state.update(0);
+    }
+    assertEquals(MAX_PACKETS, state.packetBudget());
+    assertEquals(-1, state.toMetrics().latencyMillis());
+    assertEquals(-1, state.toMetrics().baselineLatencyMillis());
+    assertEquals(0, state.toMetrics().backlogMillis());
+
+    // the first real latency is the baseline, not a backlog on top of 0
+    state.update(BASELINE);
+    assertEquals(MAX_PACKETS, state.packetBudget());
+    assertEquals(BASELINE, state.toMetrics().baselineLatencyMillis());
+    assertEquals(0, state.toMetrics().backlogMillis());
+  }
+
+  @Test
+  void budgetHalvesOncePerNewMeasurement() {
+    state.update(BASELINE);
+
+    state.update(BACKED_UP);
+    assertEquals(MAX_PACKETS / 2, state.packetBudget());
+    // the same measurement, seen again on the frames until the next keep-alive
+    for (int frame = 0; frame < 10; frame++) {
+      state.update(BACKED_UP);
+      assertEquals(MAX_PACKETS / 2, state.packetBudget());
+    }
+
+    state.update(BACKED_UP + 1);
+    assertEquals(MAX_PACKETS / 4, state.packetBudget());
+  }
+
+  @Test
+  void budgetDoesNotGoBelowTheFloor() {
+    state.update(BASELINE);
+    for (int measurement = 0; measurement < 30; measurement++) {
+      state.update(BACKED_UP + measurement);
+    }
+    assertEquals(MIN_PACKETS, state.packetBudget());
+  }
+
+  @Test
+  void budgetGrowsBackUpToTheCeiling() {
+    state.update(BASELINE);
+    state.update(BACKED_UP);
+    state.update(BACKED_UP + 1);
+    int budget = state.packetBudget();
+
+    // the backlog has cleared
+    state.update(BASELINE);
+    assertEquals(budget + INCREASE, state.packetBudget());
+    state.update(BASELINE);
+    assertEquals(budget + 2 * INCREASE, state.packetBudget());
+
+    for (int frame = 0; frame < MAX_PACKETS / INCREASE + 10; frame++) {
+      state.update(BASELINE);
+    }
+    assertEquals(MAX_PACKETS, state.packetBudget());
+  }
+}